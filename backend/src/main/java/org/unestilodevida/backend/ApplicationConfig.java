@@ -1,6 +1,7 @@
 package org.unestilodevida.backend;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -33,9 +34,13 @@ public class ApplicationConfig {
         return authenticationProvider;
     }
 
+    // Costo de BCrypt configurable; si se sube, las claves con el costo anterior se vuelven a hashear en el próximo login.
+    @Value("${seguridad.bcrypt.costo:10}")
+    private int costoBcrypt;
+
     @Bean
     public PasswordEncoder setPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(costoBcrypt);
     }
 
     @Bean
@@ -2,8 +2,11 @@ package org.unestilodevida.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
 
 @SpringBootApplication
+// Flyway y Hibernate, y proxy inverso; application.properties tiene prioridad
+@PropertySource({"classpath:esquema.properties", "classpath:proxy.properties"})
 public class CelulasApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,114 @@
+package org.unestilodevida.backend;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.unestilodevida.backend.jwt.UsuarioAutenticado;
+import org.unestilodevida.backend.model.Usuario;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+Qué roles pueden usar cada endpoint. La tabla se arma una sola vez al arrancar: cada regla guarda sus roles como una
+máscara de bits (un bit por Usuario.Rol), así que autorizar una request es buscar la primera regla que coincide y
+hacer un AND con el bit del rol del usuario, sin SpEL ni recorrer authorities.
+
+Lo que no está en la tabla lo puede usar cualquier usuario autenticado, con cualquier rol. Las mismas restricciones
+se muestran en el frontend (ProtectedRoute, CelulaPanel, CelulasPage), pero las que valen son estas.
+
+Las reglas "propias" dejan pasar además al usuario cuyo id es el {id} de la ruta (sus propios datos). Lo que depende
+de la base, como quién lidera una célula, lo verifica el servicio (CelulaService.updateCelula).
+*/
+@Component
+public class MatrizPermisos implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final AuthorizationDecision PERMITIDO = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENEGADO = new AuthorizationDecision(false);
+
+    private final List<Regla> reglas = List.of(
+            regla(HttpMethod.POST, "/celulas/create", Usuario.Rol.ADMIN),
+            regla(HttpMethod.POST, "/celulas/bulk", Usuario.Rol.ADMIN),
+            regla(HttpMethod.POST, "/celulas/import", Usuario.Rol.ADMIN),
+            regla(HttpMethod.GET, "/celulas/export.csv", Usuario.Rol.ADMIN),
+            regla(HttpMethod.DELETE, "/celulas/delete/**", Usuario.Rol.ADMIN),
+            regla(HttpMethod.GET, "/usuarios", Usuario.Rol.ADMIN),
+            regla(HttpMethod.POST, "/usuarios/create", Usuario.Rol.ADMIN),
+            regla(HttpMethod.POST, "/usuarios/bulk", Usuario.Rol.ADMIN),
+            regla(HttpMethod.POST, "/usuarios/import", Usuario.Rol.ADMIN),
+            regla(HttpMethod.DELETE, "/usuarios/delete/**", Usuario.Rol.ADMIN),
+            regla(HttpMethod.POST, "/auth/register", Usuario.Rol.ADMIN),
+            propia(HttpMethod.PUT, "/usuarios/update/{id}", Usuario.Rol.ADMIN),
+            propia(HttpMethod.POST, "/usuarios/updateClave/{id}"), // pide la clave actual: solo la cambia su dueño
+            // Líderes y timoteos editan su propia célula; el servicio verifica que lo sea
+            regla(HttpMethod.PATCH, "/celulas/update/**", Usuario.Rol.ADMIN, Usuario.Rol.LIDER, Usuario.Rol.TIMOTEO)
+    );
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext contexto) {
+        UsuarioAutenticado usuario = UsuarioAutenticado.de(authentication.get());
+        if (usuario == null || usuario.rol() == null) {
+            return DENEGADO;
+        }
+        return permitido(contexto.getRequest(), usuario.id(), bit(usuario.rol())) ? PERMITIDO : DENEGADO;
+    }
+
+    // Decide con la primera regla que coincide con la request; si ninguna coincide, se permite a todos los roles.
+    boolean permitido(HttpServletRequest request, Long usuarioId, int rol) {
+        String metodo = request.getMethod();
+        PathContainer ruta = null;
+        for (Regla regla : reglas) {
+            if (!regla.metodo().matches(metodo)) {
+                continue;
+            }
+            if (ruta == null) {
+                // Mismo parseo que usa Spring MVC para elegir el controller: ignora ";parametros" y decodifica cada segmento.
+                ruta = RequestPath.parse(request.getRequestURI(), request.getContextPath()).pathWithinApplication();
+            }
+            if (!regla.propia()) {
+                if (regla.patron().matches(ruta)) {
+                    return (regla.roles() & rol) != 0;
+                }
+                continue;
+            }
+            PathPattern.PathMatchInfo coincidencia = regla.patron().matchAndExtract(ruta);
+            if (coincidencia != null) {
+                return (regla.roles() & rol) != 0
+                        || String.valueOf(usuarioId).equals(coincidencia.getUriVariables().get("id"));
+            }
+        }
+        return true;
+    }
+
+    private static int bit(Usuario.Rol rol) {
+        return 1 << rol.ordinal();
+    }
+
+    private static Regla regla(HttpMethod metodo, String patron, Usuario.Rol... roles) {
+        return new Regla(metodo, PathPatternParser.defaultInstance.parse(patron), mascara(roles), false);
+    }
+
+    // Como regla, pero además puede usarla el usuario cuyo id es la variable {id} de la ruta.
+    private static Regla propia(HttpMethod metodo, String patron, Usuario.Rol... roles) {
+        return new Regla(metodo, PathPatternParser.defaultInstance.parse(patron), mascara(roles), true);
+    }
+
+    private static int mascara(Usuario.Rol... roles) {
+        int mascara = 0;
+        for (Usuario.Rol rol : roles) {
+            mascara |= bit(rol);
+        }
+        return mascara;
+    }
+
+    private record Regla(HttpMethod metodo, PathPattern patron, int roles, boolean propia) {
+    }
+}
@@ -1,12 +1,16 @@
 package org.unestilodevida.backend;
 
 import lombok.RequiredArgsConstructor;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.firewall.HttpFirewall;
 import org.springframework.security.web.firewall.StrictHttpFirewall;
@@ -23,6 +27,7 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final AuthenticationProvider authenticationProvider;
+    private final MatrizPermisos matrizPermisos;
 
     @Bean
     public HttpFirewall relaxedHttpFirewall() {
@@ -43,9 +48,16 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource())) // ✅ Configurar CORS
                 .csrf(config -> config.disable()) // Desactiva CSRF
                 .authorizeHttpRequests(auth -> {
+                    // El alta por /auth/register recibe el rol en el cuerpo: solo la puede usar un ADMIN (ver MatrizPermisos)
+                    auth.requestMatchers(HttpMethod.POST, "/auth/register").access(matrizPermisos);
                     auth.requestMatchers("/auth/**", "/usuarios_fotos_perfil/**").permitAll(); // Rutas sin autenticación
-                    auth.anyRequest().authenticated(); // El resto requiere autenticación
+                    auth.requestMatchers(HttpMethod.GET, "/celulas/*/qr").permitAll(); // El QR se carga desde un <img>, sin token
+                    // Los envíos de /eventos (SSE) siguen en un dispatch asíncrono; el request ya se autorizó al conectarse
+                    auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
+                    auth.anyRequest().access(matrizPermisos); // El resto requiere autenticación y un rol permitido para el endpoint
                 })
+                // Sin token válido, 401 (el frontend renueva el token y reintenta); con token pero sin permiso, 403.
+                .exceptionHandling(excepciones -> excepciones.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
                 .sessionManagement(session -> {
                     session.sessionCreationPolicy(SessionCreationPolicy.STATELESS); // No usar sesiones
                 })
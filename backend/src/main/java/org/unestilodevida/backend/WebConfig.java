@@ -1,16 +1,70 @@
 package org.unestilodevida.backend;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.unestilodevida.backend.util.FotoPerfilResourceResolver;
+
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Value("${fotos.directorio:usuarios_fotos_perfil}")
+    private String directorioFotos;
+
+    @Value("${compresion.habilitada:true}")
+    private boolean compresionHabilitada;
+
+    @Value("${compresion.tamanio-minimo:1KB}")
+    private DataSize compresionTamanioMinimo;
+
+    private final FotoPerfilResourceResolver fotoPerfilResourceResolver;
+
+    public WebConfig(FotoPerfilResourceResolver fotoPerfilResourceResolver) {
+        this.fotoPerfilResourceResolver = fotoPerfilResourceResolver;
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // Este metodo le dice a Spring dónde buscar los archivos cuando alguien accede a /usuarios_fotos_perfil/**
+        // Cada foto se guarda con un nombre único (UUID) y nunca se sobreescribe, así que el navegador puede cachearla
+        // indefinidamente; si el usuario cambia la foto, cambia la URL. ETag y Last-Modified permiten revalidar con 304
+        // y el handler ya atiende pedidos con Range.
         registry.addResourceHandler("/usuarios_fotos_perfil/**")
-                .addResourceLocations("file:usuarios_fotos_perfil/");
+                .addResourceLocations("file:" + directorioFotos + "/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .setUseLastModified(true)
+                .setEtagGenerator(resource -> {
+                    try {
+                        // Hash del nombre (puede tener caracteres no válidos en un header) + fecha de modificación.
+                        return Integer.toHexString(String.valueOf(resource.getFilename()).hashCode())
+                                + "-" + Long.toHexString(resource.lastModified());
+                    } catch (Exception e) {
+                        return null;
+                    }
+                })
+                .resourceChain(false)
+                .addResolver(fotoPerfilResourceResolver);
+    }
+
+    // Compresión gzip de las respuestas JSON (los listados de células y usuarios se repiten mucho y comprimen bien).
+    // Las imágenes no se incluyen: PNG y JPEG ya vienen comprimidos.
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableServletWebServerFactory> compresionRespuestas() {
+        return factory -> {
+            Compression compression = new Compression();
+            compression.setEnabled(compresionHabilitada);
+            compression.setMimeTypes(new String[]{"application/json", "text/plain", "text/csv", "image/svg+xml"});
+            compression.setMinResponseSize(compresionTamanioMinimo);
+            factory.setCompression(compression);
+        };
     }
 }
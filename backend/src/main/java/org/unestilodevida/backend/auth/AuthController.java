@@ -1,13 +1,16 @@
 package org.unestilodevida.backend.auth;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.unestilodevida.backend.dto.UsuarioDTO;
 import org.unestilodevida.backend.service.UsuarioService;
+import org.unestilodevida.backend.util.UrlBase;
 
 @RestController
 @RequestMapping("/auth")
@@ -16,18 +19,38 @@ public class AuthController {
 
     private final AuthService authService;
     private final UsuarioService usuarioService;
+    private final LimitadorIntentos limitadorIntentos;
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request){
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request, HttpServletRequest http){
+        // Antes de verificar la clave (BCrypt): si la IP o el email superaron los intentos permitidos se responde 429.
+        limitadorIntentos.verificarLogin(http.getRemoteAddr(), request.getEmail());
         // Uso ResponseEntity para personalizar la respuesta, pero tengo que devolver el token en realidad.
-        return ResponseEntity.ok(authService.login(request));
+        return ResponseEntity.ok(authService.login(request, UrlBase.de(http)));
+    }
+
+    // Renueva el token de acceso. El refresh token se rota: la respuesta trae uno nuevo y el enviado deja de servir.
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request, HttpServletRequest http) {
+        limitadorIntentos.verificarIp(http.getRemoteAddr());
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken(), UrlBase.de(http)));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshRequest request, HttpServletRequest http) {
+        String authHeader = http.getHeader(HttpHeaders.AUTHORIZATION);
+        String tokenAcceso = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        authService.logout(request != null ? request.getRefreshToken() : null, tokenAcceso);
+        return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(
             @Valid @RequestPart("usuarioDTO") String usuarioJson,
-            @RequestPart(value = "foto", required = false) MultipartFile foto) {
+            @RequestPart(value = "foto", required = false) MultipartFile foto,
+            HttpServletRequest http) {
 
+        limitadorIntentos.verificarIp(http.getRemoteAddr()); // El alta también hashea la clave con BCrypt
         try {
             ObjectMapper mapper = new ObjectMapper();
             UsuarioDTO request = mapper.readValue(usuarioJson, UsuarioDTO.class);
@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class AuthResponse {
     String token;
+    String refreshToken; // para pedir un nuevo token de acceso en /auth/refresh cuando este venza
     String nombre;
     String apellido;
     String email;
@@ -1,71 +1,125 @@
 package org.unestilodevida.backend.auth;
 
-import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.jsonwebtoken.JwtException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.unestilodevida.backend.evento.CambioEntidadEvent;
 import org.unestilodevida.backend.jwt.JwtService;
-import lombok.*;
+import org.unestilodevida.backend.jwt.JwtTokenCache;
+import org.unestilodevida.backend.jwt.RevocacionTokens;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.unestilodevida.backend.model.Usuario;
 import org.unestilodevida.backend.repository.UsuarioRepository;
-import org.unestilodevida.backend.service.UsuarioDetailsService;
-import org.unestilodevida.backend.service.UsuarioService;
+import org.unestilodevida.backend.util.UrlBase;
 
-@RequiredArgsConstructor
+import java.util.Optional;
+
+/*
+Login con una sola consulta a la base: se busca el usuario por email, se verifica la clave con BCrypt en el pool
+de VerificadorClaves y se emite el token con la misma entidad. Cada fase se mide con el timer "auth.login" (tag fase).
+
+El token de acceso dura poco; junto con él se entrega un refresh token para renovarlo en /auth/refresh.
+*/
 @Service
 public class AuthService {
 
     private final UsuarioRepository usuarioRepository;
-    private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
-    private final UsuarioDetailsService usuarioDetailsService;
-    @Autowired
-    private HttpServletRequest req;
+    private final VerificadorClaves verificadorClaves;
+    private final RefreshTokenService refreshTokenService;
+    private final RevocacionTokens revocacionTokens;
+    private final JwtTokenCache tokenCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer tiempoBusqueda;
+    private final Timer tiempoHash;
+    private final Timer tiempoToken;
 
+    public AuthService(UsuarioRepository usuarioRepository, JwtService jwtService, VerificadorClaves verificadorClaves,
+                       RefreshTokenService refreshTokenService, RevocacionTokens revocacionTokens, JwtTokenCache tokenCache,
+                       ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.usuarioRepository = usuarioRepository;
+        this.jwtService = jwtService;
+        this.verificadorClaves = verificadorClaves;
+        this.refreshTokenService = refreshTokenService;
+        this.revocacionTokens = revocacionTokens;
+        this.tokenCache = tokenCache;
+        this.eventPublisher = eventPublisher;
+        this.tiempoBusqueda = timer(meterRegistry, "busqueda");
+        this.tiempoHash = timer(meterRegistry, "hash");
+        this.tiempoToken = timer(meterRegistry, "token");
+    }
 
-    public AuthResponse login(LoginRequest request) {
-        String baseUrl = req.getScheme() + "://" + req.getServerName() + ":" + req.getServerPort()+"/usuarios_fotos_perfil/";
-        try {
-            // 1️⃣ Buscar usuario por email
-            Usuario usuario = usuarioRepository.findByEmail(request.getEmail())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Email o clave incorrectos"));
+    public AuthResponse login(LoginRequest request, String baseUrl) {
+        // 1️⃣ Buscar usuario por email (única consulta del login)
+        Optional<Usuario> encontrado = tiempoBusqueda.record(() -> usuarioRepository.findByEmail(request.getEmail()));
 
-            // 2️⃣ Verificar si está dado de baja
-            if (usuario.getFechaBaja() != null) {
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "El usuario ha sido dado de baja");
-            }
+        // 2️⃣ Verificar la clave. Si el email no existe se verifica igual, así no se puede saber por el tiempo de respuesta.
+        VerificadorClaves.Resultado verificacion = tiempoHash.record(
+                () -> verificadorClaves.verificar(request.getClave(), encontrado.map(Usuario::getClave).orElse(null)));
+        if (!verificacion.coincide()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Email o clave incorrectos");
+        }
+        Usuario usuario = encontrado.get();
 
-            // Intenta autenticar al usuario
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getClave())
-            );
+        // 3️⃣ Verificar si está dado de baja
+        if (usuario.getFechaBaja() != null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "El usuario ha sido dado de baja");
+        }
 
-            // Si la autenticación es exitosa, genera el token
-            UserDetails userDetails = usuarioDetailsService.loadUserByUsername(request.getEmail());
-            String token = jwtService.getToken((Usuario) userDetails);
+        // Si cambió el costo de BCrypt configurado, se guarda la clave con el costo nuevo aprovechando que la tenemos en claro.
+        if (verificacion.nuevoHash() != null) {
+            usuario.setClave(verificacion.nuevoHash());
+            usuarioRepository.save(usuario);
+            eventPublisher.publishEvent(new CambioEntidadEvent(CambioEntidadEvent.Entidad.USUARIO, usuario.getId(),
+                    CambioEntidadEvent.Operacion.MODIFICACION));
+        }
 
-            return AuthResponse.builder()
-                    .token(token)
-                    .id(((Usuario) userDetails).getId())
-                    .nombre(((Usuario) userDetails).getNombre())
-                    .apellido(((Usuario) userDetails).getApellido())
-                    .email(((Usuario) userDetails).getEmail())
-                    .rol(((Usuario) userDetails).getRol().toString())
-                    .fotoPerfil(((Usuario) userDetails).getFotoPerfil() != null ? baseUrl+((Usuario) userDetails).getFotoPerfil() : null)
-                    .build();
+        // 4️⃣ Generar el token de acceso y el refresh token
+        String token = tiempoToken.record(() -> jwtService.getToken(usuario));
+        return respuesta(usuario, token, refreshTokenService.emitir(usuario), baseUrl);
+    }
 
-        } catch (BadCredentialsException e) {
-            // Si la autenticación falla por usuario o clave incorrectos
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Email o clave incorrectos");
-        } catch (Exception e) {
-            // Si ocurre algún otro error
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error en el servidor: " + e.getMessage());
+    // Cambia un refresh token por un token de acceso nuevo y otro refresh token (el anterior deja de servir).
+    public AuthResponse refresh(String refreshToken, String baseUrl) {
+        RefreshTokenService.Rotacion rotacion = refreshTokenService.rotar(refreshToken);
+        return respuesta(rotacion.usuario(), jwtService.getToken(rotacion.usuario()), rotacion.refreshToken(), baseUrl);
+    }
+
+    // Cierra la sesión: revoca el refresh token y, si viene, el token de acceso actual (aunque todavía no haya vencido).
+    public void logout(String refreshToken, String tokenAcceso) {
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revocar(refreshToken);
+        }
+        if (tokenAcceso != null) {
+            try {
+                revocacionTokens.revocar(jwtService.parseToken(tokenAcceso));
+                tokenCache.invalidar(tokenAcceso);
+            } catch (JwtException | IllegalArgumentException e) {
+                // Token vencido o inválido: ya no da acceso, no hay nada que revocar.
+            }
         }
     }
 
+    private AuthResponse respuesta(Usuario usuario, String token, String refreshToken, String baseUrl) {
+        return AuthResponse.builder()
+                .token(token)
+                .refreshToken(refreshToken)
+                .id(usuario.getId())
+                .nombre(usuario.getNombre())
+                .apellido(usuario.getApellido())
+                .email(usuario.getEmail())
+                .rol(usuario.getRol().toString())
+                .fotoPerfil(usuario.getFotoPerfil() != null ? baseUrl + UrlBase.FOTOS_PERFIL + usuario.getFotoPerfil() : null)
+                .build();
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String fase) {
+        return Timer.builder("auth.login")
+                .description("Duración de cada fase del login")
+                .tag("fase", fase)
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,50 @@
+package org.unestilodevida.backend.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.unestilodevida.backend.exception.DemasiadosIntentosException;
+import org.unestilodevida.backend.util.TokenBuckets;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/*
+Limita los intentos contra /auth/** por IP y por email, antes de gastar CPU en BCrypt.
+
+- Por IP: frena a un cliente que prueba muchas cuentas (credential stuffing).
+- Por email: frena a quien prueba muchas claves de una misma cuenta desde distintas IPs.
+Si no quedan intentos se lanza DemasiadosIntentosException (429 con Retry-After).
+*/
+@Component
+public class LimitadorIntentos {
+
+    private final TokenBuckets porIp;
+    private final TokenBuckets porEmail;
+
+    public LimitadorIntentos(@Value("${seguridad.login.ip.capacidad:20}") int capacidadIp,
+                             @Value("${seguridad.login.ip.segundos-por-intento:3}") double segundosIp,
+                             @Value("${seguridad.login.email.capacidad:5}") int capacidadEmail,
+                             @Value("${seguridad.login.email.segundos-por-intento:60}") double segundosEmail,
+                             @Value("${seguridad.login.max-claves:10000}") int maxClaves) {
+        this.porIp = new TokenBuckets(capacidadIp, segundosIp, maxClaves);
+        this.porEmail = new TokenBuckets(capacidadEmail, segundosEmail, maxClaves);
+    }
+
+    public void verificarIp(String ip) {
+        rechazarSiHaceFalta(porIp.consumir(ip));
+    }
+
+    public void verificarLogin(String ip, String email) {
+        verificarIp(ip);
+        if (email != null) {
+            rechazarSiHaceFalta(porEmail.consumir(email.trim().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    private void rechazarSiHaceFalta(long nanosParaReintentar) {
+        if (nanosParaReintentar > 0) {
+            long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanosParaReintentar + 999_999_999L));
+            throw new DemasiadosIntentosException("Demasiados intentos, intente nuevamente en " + segundos + " segundos", segundos);
+        }
+    }
+}
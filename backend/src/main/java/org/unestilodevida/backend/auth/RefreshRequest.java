@@ -0,0 +1,15 @@
+package org.unestilodevida.backend.auth;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Cuerpo de /auth/refresh y /auth/logout.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshRequest {
+    @NotBlank(message = "El refresh token es obligatorio")
+    private String refreshToken;
+}
@@ -0,0 +1,134 @@
+package org.unestilodevida.backend.auth;
+
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.unestilodevida.backend.jwt.JwtTokenCache;
+import org.unestilodevida.backend.jwt.RevocacionTokens;
+import org.unestilodevida.backend.model.RefreshToken;
+import org.unestilodevida.backend.model.Usuario;
+import org.unestilodevida.backend.repository.RefreshTokenRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+Emite, rota y revoca refresh tokens. El token que recibe el cliente son 32 bytes aleatorios; en la base se guarda su SHA-256.
+*/
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevocacionTokens revocacionTokens;
+    private final JwtTokenCache tokenCache;
+    private final long duracionMs;
+    private final long graciaMs;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, RevocacionTokens revocacionTokens,
+                               JwtTokenCache tokenCache, @Value("${jwt.refresh.expiracion-dias:30}") long dias,
+                               @Value("${jwt.refresh.gracia-segundos:30}") long graciaSegundos) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revocacionTokens = revocacionTokens;
+        this.tokenCache = tokenCache;
+        this.duracionMs = TimeUnit.DAYS.toMillis(dias);
+        this.graciaMs = TimeUnit.SECONDS.toMillis(graciaSegundos);
+    }
+
+    // Nuevo refresh token para un login (familia nueva).
+    @Transactional
+    public String emitir(Usuario usuario) {
+        refreshTokenRepository.borrarVencidos(usuario.getId(), new Date());
+        return emitir(usuario, UUID.randomUUID().toString());
+    }
+
+    // Consume el refresh token y devuelve el usuario y el token que lo reemplaza. Si el token ya se había usado, se
+    // revoca toda su familia y se cierran las sesiones del usuario (el token fue copiado por alguien más).
+    //
+    // Excepción: dentro de los segundos de gracia desde que se rotó, reusarlo no se toma como robo. Es lo que pasa cuando
+    // dos pestañas (que comparten el refresh token en localStorage) renuevan a la vez. En ese caso se emite otro token
+    // de la misma familia: el sucesor ya entregado no se puede devolver porque de él solo se guarda el hash.
+    @Transactional(dontRollbackOn = ResponseStatusException.class)
+    public Rotacion rotar(String token) {
+        RefreshToken actual = refreshTokenRepository.findByHash(hash(token))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Sesión inválida, inicie sesión nuevamente"));
+        if (actual.isRevocado()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Sesión cerrada, inicie sesión nuevamente");
+        }
+        Date ahora = new Date();
+        if (actual.getUsadoEn() != null || refreshTokenRepository.marcarUsado(actual.getId(), ahora) == 0) {
+            // usadoEn en null: otra request lo acaba de marcar (o revocar) entre la lectura y el UPDATE.
+            Date usadoEn = actual.getUsadoEn() != null ? actual.getUsadoEn() : ahora;
+            if (ahora.getTime() - usadoEn.getTime() > graciaMs || refreshTokenRepository.familiaRevocada(actual.getFamilia())) {
+                refreshTokenRepository.revocarFamilia(actual.getFamilia());
+                revocarAccesos(actual.getUsuario().getEmail());
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Sesión cerrada por seguridad, inicie sesión nuevamente");
+            }
+        }
+        if (actual.getExpiraEn().before(ahora)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Sesión vencida, inicie sesión nuevamente");
+        }
+        Usuario usuario = actual.getUsuario();
+        if (!usuario.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "El usuario ha sido dado de baja");
+        }
+        return new Rotacion(usuario, emitir(usuario, actual.getFamilia()));
+    }
+
+    // Logout: revoca la familia del refresh token (si existe). No falla si el token no es válido.
+    @Transactional
+    public void revocar(String token) {
+        refreshTokenRepository.findByHash(hash(token))
+                .ifPresent(refreshToken -> refreshTokenRepository.revocarFamilia(refreshToken.getFamilia()));
+    }
+
+    // Cierra todas las sesiones del usuario: refresh tokens y tokens de acceso ya emitidos (baja, cambio de clave).
+    @Transactional
+    public void cerrarSesiones(Usuario usuario) {
+        refreshTokenRepository.revocarPorUsuario(usuario.getId());
+        revocarAccesos(usuario.getEmail());
+    }
+
+    private void revocarAccesos(String email) {
+        revocacionTokens.revocarUsuario(email);
+        tokenCache.invalidarUsuario(email);
+    }
+
+    private String emitir(Usuario usuario, String familia) {
+        byte[] aleatorio = new byte[32];
+        RANDOM.nextBytes(aleatorio);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(aleatorio);
+
+        Date ahora = new Date();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .hash(hash(token))
+                .familia(familia)
+                .usuario(usuario)
+                .creadoEn(ahora)
+                .expiraEn(new Date(ahora.getTime() + duracionMs))
+                .build());
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotacion(Usuario usuario, String refreshToken) {
+    }
+}
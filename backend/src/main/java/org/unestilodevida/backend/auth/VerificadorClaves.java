@@ -0,0 +1,118 @@
+package org.unestilodevida.backend.auth;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Verifica claves con BCrypt en un pool propio y acotado de hilos.
+
+BCrypt es caro a propósito (decenas de ms de CPU por intento). Si se ejecutara en los hilos de Tomcat, una ráfaga de
+logins (por ejemplo, el domingo a la noche) los ocuparía a todos y el resto de la API dejaría de responder. Con el pool
+acotado, como mucho seguridad.bcrypt.hilos logins calculan a la vez; si además la cola está llena se responde 503.
+
+Aprovecha el mismo hilo para volver a hashear la clave cuando el costo configurado cambió (upgradeEncoding).
+
+También hashea las claves de las altas masivas (hashear), en paralelo pero con a lo sumo la mitad de los hilos, para
+que los logins no queden esperando detrás de un lote.
+*/
+@Component
+public class VerificadorClaves {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long esperaMaximaMs;
+    // Hash de una clave cualquiera: se verifica contra él cuando el email no existe, para que la respuesta tarde lo mismo.
+    private final String hashFicticio;
+
+    public VerificadorClaves(PasswordEncoder passwordEncoder,
+                             @Value("${seguridad.bcrypt.hilos:0}") int hilos,
+                             @Value("${seguridad.bcrypt.cola:64}") int cola,
+                             @Value("${seguridad.bcrypt.espera-ms:5000}") long esperaMaximaMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.esperaMaximaMs = esperaMaximaMs;
+        int cantidadHilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(cantidadHilos, cantidadHilos, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(cola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "bcrypt-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.hashFicticio = passwordEncoder.encode("clave-ficticia");
+    }
+
+    // hash en null = el usuario no existe (se compara igual contra un hash ficticio y el resultado es siempre "no coincide").
+    public Resultado verificar(String clave, String hash) {
+        Future<Resultado> futuro;
+        try {
+            futuro = executor.submit(() -> {
+                boolean coincide = passwordEncoder.matches(clave, hash != null ? hash : hashFicticio) && hash != null;
+                String nuevoHash = coincide && passwordEncoder.upgradeEncoding(hash) ? passwordEncoder.encode(clave) : null;
+                return new Resultado(coincide, nuevoHash);
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiados inicios de sesión simultáneos, intente nuevamente");
+        }
+        try {
+            return futuro.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiados inicios de sesión simultáneos, intente nuevamente");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Inicio de sesión interrumpido");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error verificando la clave", e.getCause());
+        }
+    }
+
+    // Devuelve los hashes en el mismo orden que las claves. Se reparten en pocas tareas (no una por clave) para no llenar la cola.
+    public List<String> hashear(List<String> claves) {
+        int tareas = Math.max(1, Math.min(claves.size(), executor.getMaximumPoolSize() / 2));
+        String[] hashes = new String[claves.size()];
+        List<Future<?>> futuros = new ArrayList<>(tareas);
+        try {
+            for (int t = 0; t < tareas; t++) {
+                int primera = t;
+                futuros.add(executor.submit(() -> {
+                    for (int i = primera; i < claves.size(); i += tareas) {
+                        hashes[i] = passwordEncoder.encode(claves.get(i));
+                    }
+                }));
+            }
+            for (Future<?> futuro : futuros) {
+                futuro.get();
+            }
+        } catch (RejectedExecutionException e) {
+            futuros.forEach(futuro -> futuro.cancel(true));
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "El servidor está ocupado, intente nuevamente");
+        } catch (InterruptedException e) {
+            futuros.forEach(futuro -> futuro.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Alta interrumpida");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error hasheando las claves", e.getCause());
+        }
+        return Arrays.asList(hashes);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdown();
+    }
+
+    // nuevoHash: la clave hasheada con el costo actual, si el hash guardado usaba otro; si no, null.
+    public record Resultado(boolean coincide, String nuevoHash) {
+    }
+}
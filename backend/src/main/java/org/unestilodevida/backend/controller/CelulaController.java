@@ -1,24 +1,60 @@
 package org.unestilodevida.backend.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.unestilodevida.backend.dto.AsignacionDTO;
+import org.unestilodevida.backend.dto.CambiosCelulasDTO;
+import org.unestilodevida.backend.dto.CelulaCercanaDTO;
 import org.unestilodevida.backend.dto.CelulaDTO;
+import org.unestilodevida.backend.dto.CelulaPaginaDTO;
 import org.unestilodevida.backend.dto.CelulaResponseDTO;
+import org.unestilodevida.backend.dto.ClusterCelulasDTO;
+import org.unestilodevida.backend.dto.ResultadoImportacionDTO;
+import org.unestilodevida.backend.dto.ResultadoLoteDTO;
+import org.unestilodevida.backend.evento.CambioEntidadEvent.Entidad;
+import org.unestilodevida.backend.jwt.UsuarioAutenticado;
 import org.unestilodevida.backend.model.Celula;
 import org.unestilodevida.backend.service.CelulaService;
+import org.unestilodevida.backend.service.ExportacionCsv;
+import org.unestilodevida.backend.service.ImportacionCsv;
+import org.unestilodevida.backend.service.QRService;
+import org.unestilodevida.backend.service.VersionesColecciones;
+import org.unestilodevida.backend.util.UrlBase;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/celulas")
 public class CelulaController {
     private CelulaService celulaService;
+    private QRService qrService;
+    private VersionesColecciones versiones;
+    private ImportacionCsv importacionCsv;
+    private ExportacionCsv exportacionCsv;
 
-    public CelulaController(CelulaService celulaService) {
+    public CelulaController(CelulaService celulaService, QRService qrService, VersionesColecciones versiones,
+                            ImportacionCsv importacionCsv, ExportacionCsv exportacionCsv) {
         this.celulaService = celulaService;
+        this.qrService = qrService;
+        this.versiones = versiones;
+        this.importacionCsv = importacionCsv;
+        this.exportacionCsv = exportacionCsv;
     }
 
     @PostMapping("/create")
@@ -27,19 +63,118 @@ public class CelulaController {
         return celulaService.createCelula(celulaDTO);
     }
 
+    // Alta masiva (por ejemplo, todas las células de un campus nuevo). Cada ítem se valida por separado y la respuesta
+    // trae, en el mismo orden, el id creado o los errores de cada uno.
+    @PostMapping("/bulk")
+    public List<ResultadoLoteDTO> createCelulas(@RequestBody List<CelulaDTO> celulasDTO) {
+        return celulaService.createCelulas(celulasDTO);
+    }
+
+    // Importación desde la planilla: el cuerpo es el CSV (Content-Type: text/csv), sin multipart, para leerlo a medida que
+    // llega sin el límite de tamaño de los archivos adjuntos. Ver ImportacionCsv para el formato.
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResultadoImportacionDTO importarCelulas(InputStream csv) {
+        return importacionCsv.importarCelulas(csv);
+    }
+
+    // Células activas en CSV, escritas directamente en la respuesta a medida que se leen de la base.
+    @GetMapping("/export.csv")
+    public void exportarCelulas(HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("celulas.csv").build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        exportacionCsv.exportarCelulas(response.getOutputStream());
+    }
+
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<?> deleteCelula (@PathVariable Long id) {
         return celulaService.deleteCelula(id);
     }
 
     @PatchMapping("/update/{id}")
-    public Celula updateCelula (@Valid @RequestBody CelulaDTO celulaDTO, @PathVariable Long id) {
-        return celulaService.updateCelula(celulaDTO, id);
+    public Celula updateCelula (@Valid @RequestBody CelulaDTO celulaDTO, @PathVariable Long id, HttpServletRequest request,
+                                Authentication authentication) {
+        return celulaService.updateCelula(celulaDTO, id, UrlBase.de(request), UsuarioAutenticado.de(authentication));
     }
 
+    // El listado incluye datos del líder y del timoteo, así que su ETag depende de las versiones de células y usuarios.
+    // Si el cliente ya tiene la versión actual se responde 304 sin consultar la base de datos.
     @GetMapping
-    public List<CelulaResponseDTO> getCelulas () {
-        return celulaService.getCelulas();
+    public ResponseEntity<byte[]> getCelulas (WebRequest webRequest, HttpServletRequest request) {
+        String etag = versiones.etag(Entidad.CELULA, Entidad.USUARIO);
+        if (webRequest.checkNotModified(etag)) {
+            return null; // Spring responde 304 Not Modified
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(celulaService.getCelulasJson(UrlBase.de(request)));
+    }
+
+    // Variante paginada y filtrable de GET /celulas. Para pedir la página siguiente se envía como cursor el "siguienteCursor" recibido.
+    @GetMapping("/pagina")
+    public CelulaPaginaDTO getCelulasPaginadas(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limite,
+            @RequestParam(required = false) String dia,
+            @RequestParam(required = false) String genero,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime horaDesde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime horaHasta,
+            @RequestParam(required = false) String texto,
+            HttpServletRequest request) {
+        return celulaService.getCelulasPaginadas(cursor, limite, dia, genero, horaDesde, horaHasta, texto, UrlBase.de(request));
+    }
+
+    // Sincronización incremental para clientes que guardan las células: devuelve solo lo que cambió desde la versión
+    // "desde" (0 la primera vez) y la versión a enviar en el próximo pedido. Si "hayMas" es true se pide de nuevo enseguida.
+    @GetMapping("/cambios")
+    public CambiosCelulasDTO getCambios(
+            @RequestParam(defaultValue = "0") long desde,
+            @RequestParam(defaultValue = "500") int limite,
+            HttpServletRequest request) {
+        return celulaService.getCambios(desde, limite, UrlBase.de(request));
+    }
+
+    // Células activas cerca de un punto (por ejemplo, la dirección de quien busca una célula), de la más cercana a la más lejana.
+    @GetMapping("/cercanas")
+    public List<CelulaCercanaDTO> getCelulasCercanas(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "5") double radioKm,
+            @RequestParam(name = "limit", defaultValue = "20") int limite,
+            @RequestParam(required = false) String dia,
+            @RequestParam(required = false) String genero,
+            HttpServletRequest request) {
+        return celulaService.getCelulasCercanas(lat, lng, radioKm, limite, dia, genero, UrlBase.de(request));
+    }
+
+    // Células del mapa ya agrupadas para el zoom y el área visible (bbox = oeste,sur,este,norte), con la cantidad por género.
+    @GetMapping("/clusters")
+    public List<ClusterCelulasDTO> getClusters(@RequestParam String bbox, @RequestParam int zoom) {
+        return celulaService.getClusters(bbox, zoom);
+    }
+
+    // QR de WhatsApp como imagen PNG (o SVG con ?formato=svg). Es público (se usa directo en un <img>) y cacheable:
+    // la URL del listado incluye la versión.
+    @GetMapping("/{id}/qr")
+    public ResponseEntity<byte[]> getQr(@PathVariable Long id,
+                                        @RequestParam(defaultValue = "png") String formato,
+                                        WebRequest webRequest) {
+        QRService.Formato tipo = "svg".equalsIgnoreCase(formato) ? QRService.Formato.SVG : QRService.Formato.PNG;
+        Optional<String> enlace = celulaService.getEnlaceWhatsapp(id);
+        if (enlace.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(qrService.calcularEtag(enlace.get(), tipo))) {
+            return null; // Spring responde 304 Not Modified
+        }
+        QRService.QR qr = qrService.obtenerQR(enlace.get(), tipo);
+        return ResponseEntity.ok()
+                .eTag(qr.etag())
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .contentType(tipo == QRService.Formato.SVG ? MediaType.valueOf("image/svg+xml") : MediaType.IMAGE_PNG)
+                .body(qr.contenido());
     }
 
     @GetMapping ("/dias")
@@ -48,9 +183,16 @@ public class CelulaController {
     @GetMapping ("/generos")
     public List<Map<String, String>> getGeneros() { return celulaService.getGeneros(); }
 
-    // Consulta si el usuario está libre o asocaido a una celula
+    // Consulta si el usuario está libre o asocaido a una celula. Para varios usuarios usar /asignaciones.
     @GetMapping("/usuarioLibre/{id}")
-    public Optional<String> usuarioLibre (@PathVariable Integer id) {
+    public Optional<String> usuarioLibre (@PathVariable Long id) {
         return celulaService.usuarioLibre(id); // Si no está asociado a ninguna celula retorna NULL, sino retorna el nombre de la celula asociada para mostrar en el frontend
     }
+
+    // Mapa usuarioId -> célula asignada (id, nombre y si es líder o timoteo) para los ids pedidos, o para todos si no
+    // se pasan. Los usuarios libres no aparecen. Ejemplo: /celulas/asignaciones?ids=3,8,15
+    @GetMapping("/asignaciones")
+    public Map<Long, AsignacionDTO> getAsignaciones(@RequestParam(required = false) List<Long> ids) {
+        return celulaService.getAsignaciones(ids);
+    }
 }
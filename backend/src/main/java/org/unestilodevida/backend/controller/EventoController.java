@@ -0,0 +1,38 @@
+package org.unestilodevida.backend.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.unestilodevida.backend.evento.DifusorCambios;
+import org.unestilodevida.backend.jwt.TicketsEventos;
+
+import java.util.Map;
+
+@RestController
+public class EventoController {
+
+    private final DifusorCambios difusorCambios;
+    private final TicketsEventos ticketsEventos;
+
+    public EventoController(DifusorCambios difusorCambios, TicketsEventos ticketsEventos) {
+        this.difusorCambios = difusorCambios;
+        this.ticketsEventos = ticketsEventos;
+    }
+
+    // Avisos de cambios de células y usuarios (Server-Sent Events). EventSource no permite mandar headers, así que se
+    // autentica con el parámetro "ticket", pedido antes a POST /eventos/ticket (ver JwtAuthenticationFilter).
+    @GetMapping(path = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventos() {
+        return difusorCambios.suscribir();
+    }
+
+    // Ticket de un solo uso y pocos segundos para conectarse a /eventos, a cambio del token de acceso del header.
+    @PostMapping("/eventos/ticket")
+    public Map<String, String> ticket(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        return Map.of("ticket", ticketsEventos.emitir(authorization.substring("Bearer ".length())));
+    }
+}
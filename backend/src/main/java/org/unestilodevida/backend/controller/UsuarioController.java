@@ -2,17 +2,33 @@ package org.unestilodevida.backend.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 import org.unestilodevida.backend.dto.ClaveUpdateDTO;
+import org.unestilodevida.backend.dto.ResultadoImportacionDTO;
+import org.unestilodevida.backend.dto.ResultadoLoteDTO;
 import org.unestilodevida.backend.dto.UsuarioDTO;
 import org.unestilodevida.backend.dto.UsuarioResponseDTO;
+import org.unestilodevida.backend.dto.UsuarioResumenDTO;
 import org.unestilodevida.backend.dto.UsuarioUpdateDTO;
+import org.unestilodevida.backend.evento.CambioEntidadEvent.Entidad;
+import org.unestilodevida.backend.jwt.UsuarioAutenticado;
 import org.unestilodevida.backend.model.Usuario;
+import org.unestilodevida.backend.service.ImportacionCsv;
 import org.unestilodevida.backend.service.UsuarioService;
+import org.unestilodevida.backend.service.UsuariosDisponibles;
+import org.unestilodevida.backend.service.VersionesColecciones;
+import org.unestilodevida.backend.util.UrlBase;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -22,9 +38,16 @@ import java.util.Optional;
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
+    private final VersionesColecciones versiones;
+    private final ImportacionCsv importacionCsv;
+    private final UsuariosDisponibles usuariosDisponibles;
 
-    public UsuarioController(UsuarioService usuarioService) {
+    public UsuarioController(UsuarioService usuarioService, VersionesColecciones versiones, ImportacionCsv importacionCsv,
+                             UsuariosDisponibles usuariosDisponibles) {
         this.usuarioService = usuarioService;
+        this.versiones = versiones;
+        this.importacionCsv = importacionCsv;
+        this.usuariosDisponibles = usuariosDisponibles;
     }
 
     @PostMapping("/updateClave/{id}")
@@ -46,13 +69,32 @@ public class UsuarioController {
         return ResponseEntity.ok("Usuario creado con éxito");
     }
 
+    // Alta masiva de usuarios (JSON, sin fotos). La respuesta trae, en el mismo orden, el id creado o los errores de cada uno.
+    @PostMapping("/bulk")
+    public List<ResultadoLoteDTO> createUsuarios(@RequestBody List<UsuarioDTO> usuariosDTO) {
+        return usuarioService.createUsuarios(usuariosDTO);
+    }
+
+    // Importación desde CSV (Content-Type: text/csv) con las columnas nombre, apellido, email, telefono, clave y rol.
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResultadoImportacionDTO importarUsuarios(InputStream csv) {
+        return importacionCsv.importarUsuarios(csv);
+    }
+
+    // Los listados de usuarios responden 304 (sin consultar la base de datos) si no hubo cambios desde el ETag del cliente.
     @GetMapping
-    public List<UsuarioResponseDTO> getUsuarios() {
-        return usuarioService.getUsuarios();
+    public ResponseEntity<List<UsuarioResponseDTO>> getUsuarios(WebRequest webRequest, HttpServletRequest request) {
+        String etag = versiones.etag(Entidad.USUARIO);
+        if (webRequest.checkNotModified(etag)) {
+            return null; // Spring responde 304 Not Modified
+        }
+        return conVersion(etag, usuarioService.getUsuarios(UrlBase.de(request)));
     }
 
     @GetMapping ("/{id}")
-    public Optional<UsuarioResponseDTO> getUsuarioById(@PathVariable Long id) {return usuarioService.getUsuarioById(id);}
+    public Optional<UsuarioResponseDTO> getUsuarioById(@PathVariable Long id, HttpServletRequest request) {
+        return usuarioService.getUsuarioById(id, UrlBase.de(request));
+    }
 
     @GetMapping ("/roles")
     public List<Map<String, String>> getRoles() { return usuarioService.getRoles(); }
@@ -63,26 +105,50 @@ public class UsuarioController {
     }
 
     @GetMapping ("/lideres")
-    public  List<Usuario> getLideres() {
-        return usuarioService.getLideres();
+    public ResponseEntity<List<UsuarioResumenDTO>> getLideres(WebRequest webRequest) {
+        String etag = versiones.etag(Entidad.USUARIO);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return conVersion(etag, usuarioService.getLideres());
     }
 
     @GetMapping("/timoteos")
-    public List<Usuario> getTimoteos() {
-        return  usuarioService.getTimoteos();
+    public ResponseEntity<List<UsuarioResumenDTO>> getTimoteos(WebRequest webRequest) {
+        String etag = versiones.etag(Entidad.USUARIO);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return conVersion(etag, usuarioService.getTimoteos());
+    }
+
+    // Candidatos para una célula: usuarios activos del rol (LIDER o TIMOTEO) que todavía no están asignados a ninguna.
+    @GetMapping("/disponibles")
+    public ResponseEntity<List<UsuarioResumenDTO>> getDisponibles(@RequestParam Usuario.Rol rol, WebRequest webRequest) {
+        if (rol == Usuario.Rol.ADMIN) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El rol debe ser LIDER o TIMOTEO");
+        }
+        String etag = usuariosDisponibles.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return conVersion(etag, usuariosDisponibles.de(rol));
     }
 
     @PutMapping("/update/{id}")
     public ResponseEntity<?> updateUsuario(
             @PathVariable Long id,
             @RequestPart("usuarioDTO") String usuarioJson,
-            @RequestPart(value = "foto", required = false) MultipartFile foto
+            @RequestPart(value = "foto", required = false) MultipartFile foto,
+            HttpServletRequest request,
+            Authentication authentication
     ) throws JsonProcessingException {
 
         ObjectMapper mapper = new ObjectMapper();
         UsuarioUpdateDTO usuarioDTO = mapper.readValue(usuarioJson, UsuarioUpdateDTO.class);
 
-        Optional<UsuarioResponseDTO> actualizado = usuarioService.updateUsuario(id, usuarioDTO, foto);
+        Optional<UsuarioResponseDTO> actualizado = usuarioService.updateUsuario(id, usuarioDTO, foto, UrlBase.de(request),
+                UsuarioAutenticado.de(authentication));
         if (actualizado.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
@@ -94,4 +160,12 @@ public class UsuarioController {
     public ResponseEntity<String> deleteUsuario (@PathVariable Long id) {
         return usuarioService.deleteUsuario(id);
     }
+
+    // no-cache: el navegador guarda la respuesta pero la revalida siempre con el ETag (If-None-Match).
+    private <T> ResponseEntity<T> conVersion(String etag, T body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
+    }
 }
@@ -0,0 +1,14 @@
+package org.unestilodevida.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.unestilodevida.backend.model.Usuario;
+
+// Célula activa a la que está asignado un usuario y con qué función (LIDER o TIMOTEO). La arma CelulasEnMemoria.
+@Data
+@AllArgsConstructor
+public class AsignacionDTO {
+    private Long celulaId;
+    private String celulaNombre;
+    private Usuario.Rol funcion;
+}
@@ -0,0 +1,13 @@
+package org.unestilodevida.backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CambiosCelulasDTO {
+    private List<CelulaResponseDTO> celulas; // altas y modificaciones: reemplazan a la fila con el mismo id
+    private List<Long> bajas; // ids a quitar
+    private long version; // se envía como "desde" en el próximo pedido
+    private boolean hayMas; // true si se cortó en el límite: pedir de nuevo con la versión recibida
+}
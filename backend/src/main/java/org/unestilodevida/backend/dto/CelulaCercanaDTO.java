@@ -0,0 +1,9 @@
+package org.unestilodevida.backend.dto;
+
+import lombok.Data;
+
+@Data
+public class CelulaCercanaDTO {
+    private CelulaResponseDTO celula;
+    private double distanciaKm; // distancia en línea recta desde el punto consultado
+}
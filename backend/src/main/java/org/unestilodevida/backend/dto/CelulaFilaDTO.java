@@ -0,0 +1,42 @@
+package org.unestilodevida.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.unestilodevida.backend.model.Celula;
+import org.unestilodevida.backend.model.Usuario;
+
+import java.time.LocalTime;
+
+// Proyección plana de una célula con su líder y su timoteo, tal como la devuelve la consulta del listado.
+// Se arma con un único SELECT (LEFT JOIN a usuario) y solo trae las columnas que necesita CelulaResponseDTO.
+@Data
+@AllArgsConstructor
+public class CelulaFilaDTO {
+    private Long id;
+    private String nombre;
+    private Celula.DiaSemana dia;
+    private Celula.Genero genero;
+    private LocalTime horaInicio;
+    private String direccion;
+    private Double latitud;
+    private Double longitud;
+    private String descripcion;
+    private String telefono;
+    private String enlaceWhatsapp;
+
+    private Long liderId;
+    private String liderNombre;
+    private String liderApellido;
+    private String liderEmail;
+    private String liderTelefono;
+    private String liderFotoPerfil;
+    private Usuario.Rol liderRol;
+
+    private Long timoteoId;
+    private String timoteoNombre;
+    private String timoteoApellido;
+    private String timoteoEmail;
+    private String timoteoTelefono;
+    private String timoteoFotoPerfil;
+    private Usuario.Rol timoteoRol;
+}
@@ -0,0 +1,11 @@
+package org.unestilodevida.backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CelulaPaginaDTO {
+    private List<CelulaResponseDTO> celulas;
+    private Long siguienteCursor; // null cuando no hay más páginas
+}
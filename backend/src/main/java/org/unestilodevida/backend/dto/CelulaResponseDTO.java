@@ -17,7 +17,7 @@ public class CelulaResponseDTO {
     private String descripcion;
     private String telefono;
     private String enlaceWhatsapp;
-    private String qrWhatsapp;
+    private String qrUrl; // GET /celulas/{id}/qr
 
     private UsuarioResponseDTO lider;
     private UsuarioResponseDTO timoteo;
@@ -0,0 +1,13 @@
+package org.unestilodevida.backend.dto;
+
+import lombok.Data;
+
+@Data
+public class ClusterCelulasDTO {
+    private double latitud; // centro (promedio) de las células del grupo
+    private double longitud;
+    private int cantidad;
+    private int hombres;
+    private int mujeres;
+    private Long celulaId; // solo cuando el grupo tiene una única célula, para mostrarla como marcador
+}
@@ -0,0 +1,21 @@
+package org.unestilodevida.backend.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Resumen de una importación de CSV. Solo se detallan los errores de las primeras filas (ver ImportacionCsv).
+@Data
+public class ResultadoImportacionDTO {
+    private long filas; // filas de datos leídas (sin el encabezado)
+    private long creadas;
+    private long conErrores;
+    private List<ErrorFila> errores = new ArrayList<>();
+
+    @Data
+    public static class ErrorFila {
+        private long linea; // línea del archivo donde empieza la fila
+        private List<String> errores;
+    }
+}
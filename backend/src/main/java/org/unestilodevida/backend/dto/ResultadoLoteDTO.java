@@ -0,0 +1,28 @@
+package org.unestilodevida.backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Resultado de un ítem de un alta masiva (/celulas/bulk, /usuarios/bulk): el id creado o los motivos por los que no se creó.
+@Data
+public class ResultadoLoteDTO {
+    private int indice; // posición del ítem en la lista recibida
+    private Long id;
+    private List<String> errores;
+
+    public static ResultadoLoteDTO creado(int indice, Long id) {
+        ResultadoLoteDTO resultado = new ResultadoLoteDTO();
+        resultado.setIndice(indice);
+        resultado.setId(id);
+        resultado.setErrores(List.of());
+        return resultado;
+    }
+
+    public static ResultadoLoteDTO rechazado(int indice, List<String> errores) {
+        ResultadoLoteDTO resultado = new ResultadoLoteDTO();
+        resultado.setIndice(indice);
+        resultado.setErrores(errores);
+        return resultado;
+    }
+}
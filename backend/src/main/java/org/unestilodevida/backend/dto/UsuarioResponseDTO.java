@@ -12,6 +12,7 @@ public class UsuarioResponseDTO {
     private String email;
     private String telefono;
     private String fotoPerfil;
+    private String fotoPerfilMiniatura; // avatar reducido, para listados y mapas
     private String rol;
     private Date fechaBaja;
 }
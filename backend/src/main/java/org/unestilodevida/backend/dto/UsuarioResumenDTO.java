@@ -0,0 +1,14 @@
+package org.unestilodevida.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Lo mínimo de un usuario para los selectores de líder y timoteo (sin clave ni datos de sesión).
+@Data
+@AllArgsConstructor
+public class UsuarioResumenDTO {
+    private Long id;
+    private String nombre;
+    private String apellido;
+    private String email;
+}
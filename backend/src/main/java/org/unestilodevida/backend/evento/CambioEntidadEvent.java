@@ -0,0 +1,18 @@
+package org.unestilodevida.backend.evento;
+
+/*
+Evento que publican los servicios cada vez que se crea, modifica o da de baja una célula o un usuario.
+Quien lo escuche con @TransactionalEventListener lo recibe recién cuando la transacción se confirma.
+
+Las altas masivas publican un solo evento con id null: cambiaron varias entidades de ese tipo a la vez.
+*/
+public record CambioEntidadEvent(Entidad entidad, Long id, Operacion operacion) {
+
+    public enum Entidad {
+        CELULA, USUARIO
+    }
+
+    public enum Operacion {
+        ALTA, MODIFICACION, BAJA
+    }
+}
@@ -0,0 +1,294 @@
+package org.unestilodevida.backend.evento;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.unestilodevida.backend.service.VersionesColecciones;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Reparte a los clientes conectados a GET /eventos (Server-Sent Events) un aviso por cada cambio confirmado de células
+o usuarios: entidad, id, operación y la versión de la colección (la misma del ETag de los listados).
+
+Publicar no bloquea: el listener (que corre en el hilo del request, después del commit) solo deja el aviso en la cola
+de cada suscriptor, y los hilos de envío escriben en los sockets. Cada cola está acotada y se compacta: si la misma
+fila cambia varias veces antes de enviarse, queda solo el último aviso; si aun así se llena (un cliente lento o un
+alta masiva), se descarta y al cliente se le manda un "resync" para que vuelva a pedir los listados.
+
+Escribir en el socket sí bloquea cuando el cliente no lee. Por eso cada suscriptor usa a lo sumo un hilo a la vez (los
+avisos y el latido pasan por la misma cola) y el pool crece hasta eventos.max-hilos-envio, así un cliente trabado no
+frena a los demás. Si un envío tarda más de eventos.timeout-envio-ms, el suscriptor se da de baja: no recibe más
+avisos y su hilo se libera cuando vence la escritura en Tomcat. El navegador se vuelve a conectar y, con el evento
+"conectado", vuelve a pedir los listados.
+
+Las conexiones abiertas no ocupan hilos de Tomcat (el request queda en modo asíncrono). Se cortan cuando vence el
+tiempo de un token de acceso: el cliente se vuelve a conectar con un ticket nuevo (TicketsEventos), así un token
+revocado no sigue recibiendo avisos indefinidamente. Cada eventos.latido-ms (25 segundos) se manda un comentario
+para que los proxies no cierren la conexión por inactividad y para detectar clientes que ya no están.
+*/
+@Component
+public class DifusorCambios {
+
+    private final VersionesColecciones versiones;
+    private final int maxSuscriptores;
+    private final int maxPendientes;
+    private final long duracionMs;
+    private final long timeoutEnvioNs;
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor envios;
+    private final ScheduledExecutorService reloj;
+
+    public DifusorCambios(VersionesColecciones versiones,
+                          @Value("${eventos.max-suscriptores:1000}") int maxSuscriptores,
+                          @Value("${eventos.max-pendientes:256}") int maxPendientes,
+                          @Value("${eventos.hilos-envio:2}") int hilosEnvio,
+                          @Value("${eventos.max-hilos-envio:32}") int maxHilosEnvio,
+                          @Value("${eventos.timeout-envio-ms:10000}") long timeoutEnvioMs,
+                          @Value("${eventos.latido-ms:25000}") long latidoMs,
+                          @Value("${jwt.acceso.expiracion-ms:900000}") long duracionMs) {
+        this.versiones = versiones;
+        this.maxSuscriptores = maxSuscriptores;
+        this.maxPendientes = maxPendientes;
+        this.duracionMs = duracionMs;
+        this.timeoutEnvioNs = TimeUnit.MILLISECONDS.toNanos(timeoutEnvioMs);
+        // Sin cola: si no hay un hilo libre se crea otro (hasta el máximo); si se llegó al máximo, vigilar() reintenta.
+        this.envios = new ThreadPoolExecutor(hilosEnvio, Math.max(hilosEnvio, maxHilosEnvio), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), hilos("eventos-"));
+        this.reloj = Executors.newSingleThreadScheduledExecutor(hilos("eventos-reloj-"));
+        reloj.scheduleAtFixedRate(this::latido, latidoMs, latidoMs, TimeUnit.MILLISECONDS);
+        long cadaMs = Math.max(1, timeoutEnvioMs / 2);
+        reloj.scheduleAtFixedRate(this::vigilar, cadaMs, cadaMs, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter suscribir() {
+        if (suscriptores.size() >= maxSuscriptores) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiadas conexiones de eventos abiertas");
+        }
+        SseEmitter emitter = nuevoEmitter(duracionMs);
+        Suscriptor suscriptor = new Suscriptor(emitter);
+        emitter.onCompletion(() -> suscriptores.remove(suscriptor));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> suscriptores.remove(suscriptor));
+        suscriptores.add(suscriptor);
+        // Primer evento ("conectado", ver Suscriptor): el cliente sabe que está conectado y, si es una reconexión, que
+        // pudo perderse avisos.
+        programar(suscriptor);
+        return emitter;
+    }
+
+    public int cantidadSuscriptores() {
+        return suscriptores.size();
+    }
+
+    // Último de los listeners: cuando corre, VersionesColecciones ya incrementó la versión de la colección.
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void registrarCambio(CambioEntidadEvent evento) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        AvisoCambio aviso = new AvisoCambio(evento.entidad(), evento.id(), evento.operacion(), versiones.version(evento.entidad()));
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.encolar(aviso);
+            programar(suscriptor);
+        }
+    }
+
+    SseEmitter nuevoEmitter(long duracionMs) {
+        return new SseEmitter(duracionMs);
+    }
+
+    private void programar(Suscriptor suscriptor) {
+        if (!suscriptor.tomarEnvio()) {
+            return;
+        }
+        try {
+            envios.execute(suscriptor::enviarPendientes);
+        } catch (RejectedExecutionException e) {
+            suscriptor.soltarEnvio(); // todos los hilos ocupados: lo retoma vigilar()
+        }
+    }
+
+    private void latido() {
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.marcarLatido();
+            programar(suscriptor);
+        }
+    }
+
+    // Da de baja a los suscriptores con un envío trabado y reprograma los que quedaron con avisos sin hilo.
+    private void vigilar() {
+        long ahora = System.nanoTime();
+        for (Suscriptor suscriptor : suscriptores) {
+            long desde = suscriptor.enviandoDesde;
+            if (desde != 0 && ahora - desde > timeoutEnvioNs) {
+                // No se llama a emitter.complete(): espera el mismo lock que el send trabado.
+                suscriptor.descartar();
+            } else if (suscriptor.tienePendientes()) {
+                programar(suscriptor);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        reloj.shutdownNow();
+        envios.shutdownNow();
+        suscriptores.forEach(suscriptor -> suscriptor.emitter.complete());
+    }
+
+    private static ThreadFactory hilos(String prefijo) {
+        AtomicInteger numero = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, prefijo + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    // id es null cuando cambiaron muchas filas a la vez (altas masivas): el cliente vuelve a pedir el listado.
+    public record AvisoCambio(CambioEntidadEvent.Entidad entidad, Long id, CambioEntidadEvent.Operacion operacion, long version) {
+    }
+
+    private final class Suscriptor {
+        private final SseEmitter emitter;
+        // entidad:id -> último aviso pendiente de esa fila, en el orden en que cambiaron.
+        private final Map<String, AvisoCambio> pendientes = new LinkedHashMap<>();
+        private boolean saludo = true;
+        private boolean desbordado;
+        private boolean latido;
+        private boolean enviando;
+        private volatile boolean descartado;
+        // System.nanoTime() del send en curso, o 0 si no hay ninguno.
+        private volatile long enviandoDesde;
+
+        Suscriptor(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void encolar(AvisoCambio aviso) {
+            if (desbordado || descartado) {
+                return;
+            }
+            String clave = aviso.entidad() + ":" + aviso.id();
+            pendientes.remove(clave); // así el aviso nuevo queda al final
+            pendientes.put(clave, aviso);
+            if (pendientes.size() > maxPendientes) {
+                pendientes.clear();
+                desbordado = true;
+            }
+        }
+
+        synchronized void marcarLatido() {
+            latido = true;
+        }
+
+        synchronized boolean tienePendientes() {
+            return !enviando && (saludo || desbordado || latido || !pendientes.isEmpty());
+        }
+
+        // Devuelve true si hay que programar un envío (no hay otro en curso para este suscriptor).
+        synchronized boolean tomarEnvio() {
+            if (enviando || descartado) {
+                return false;
+            }
+            enviando = true;
+            return true;
+        }
+
+        synchronized void soltarEnvio() {
+            enviando = false;
+        }
+
+        void descartar() {
+            suscriptores.remove(this);
+            synchronized (this) {
+                descartado = true;
+                pendientes.clear();
+            }
+        }
+
+        // Un solo hilo a la vez por suscriptor, hasta vaciar la cola (los avisos que llegan mientras tanto se suman).
+        void enviarPendientes() {
+            while (true) {
+                List<AvisoCambio> lote;
+                boolean conectado, resync, comentario;
+                synchronized (this) {
+                    if (descartado || (pendientes.isEmpty() && !saludo && !desbordado && !latido)) {
+                        enviando = false;
+                        return;
+                    }
+                    lote = new ArrayList<>(pendientes.values());
+                    pendientes.clear();
+                    conectado = saludo;
+                    resync = desbordado;
+                    // Si se envía algún evento, ese mismo mantiene viva la conexión.
+                    comentario = latido && lote.isEmpty() && !conectado && !resync;
+                    saludo = desbordado = latido = false;
+                }
+                if (conectado && !enviar(SseEmitter.event().name("conectado").data(""))) {
+                    return;
+                }
+                if (resync && !enviar(SseEmitter.event().name("resync").data(""))) {
+                    return;
+                }
+                for (AvisoCambio aviso : lote) {
+                    if (!enviar(SseEmitter.event().name("cambio").data(aviso, MediaType.APPLICATION_JSON))) {
+                        return;
+                    }
+                }
+                if (comentario && !enviar(SseEmitter.event().comment(""))) {
+                    return;
+                }
+            }
+        }
+
+        // Si el cliente ya se fue, se lo da de baja y se descarta lo pendiente. Si vigilar() lo dio de baja mientras el
+        // envío estaba trabado, al terminar se cierra la conexión.
+        private boolean enviar(SseEmitter.SseEventBuilder evento) {
+            enviandoDesde = System.nanoTime();
+            try {
+                emitter.send(evento);
+                if (descartado) {
+                    synchronized (this) {
+                        enviando = false;
+                    }
+                    emitter.complete();
+                    return false;
+                }
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                descartar();
+                synchronized (this) {
+                    enviando = false;
+                }
+                emitter.completeWithError(e);
+                return false;
+            } finally {
+                enviandoDesde = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.unestilodevida.backend.evento;
+
+/*
+Evento que publica FotoPerfilStorage al eliminar una foto de perfil (y su miniatura). Lo escucha quien tenga copias
+de los archivos, para descartarlas.
+*/
+public record FotoPerfilEliminadaEvent(String nombreArchivo) {
+}
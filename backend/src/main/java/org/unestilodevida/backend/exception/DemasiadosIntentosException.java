@@ -0,0 +1,14 @@
+package org.unestilodevida.backend.exception;
+
+public class DemasiadosIntentosException extends RuntimeException {
+    private final long segundosParaReintentar;
+
+    public DemasiadosIntentosException(String mensaje, long segundosParaReintentar) {
+        super(mensaje);
+        this.segundosParaReintentar = segundosParaReintentar;
+    }
+
+    public long getSegundosParaReintentar() {
+        return segundosParaReintentar;
+    }
+}
@@ -1,7 +1,10 @@
 package org.unestilodevida.backend.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -49,4 +52,33 @@ public class GlobalExceptionHandler {
         // Retorna HTTP 409 (Conflict) con el mensaje de la excepción
         return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
     }
+
+    /**
+     * Maneja la excepción DemasiadosIntentosException, que lanza el limitador de intentos de /auth/**.
+     *
+     * @param e La excepción con los segundos que faltan para poder reintentar
+     * @return ResponseEntity con código HTTP 429 y el header Retry-After
+     */
+    @ExceptionHandler(DemasiadosIntentosException.class)
+    public ResponseEntity<String> handleDemasiadosIntentos(DemasiadosIntentosException e) {
+        // Retorna HTTP 429 (Too Many Requests); Retry-After indica en segundos cuándo volver a intentar
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getSegundosParaReintentar()))
+                .body(e.getMessage());
+    }
+
+    /**
+     * Maneja los casos en que no se consiguió una conexión del pool a tiempo (spring.datasource.hikari.connection-timeout).
+     * Con el perfil "virtual" es la forma en que la aplicación rechaza carga: el pool es el límite de concurrencia.
+     *
+     * @param e La excepción lanzada al abrir la transacción o pedir la conexión
+     * @return ResponseEntity con código HTTP 503 y el header Retry-After
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<String> handleSinConexion(Exception e) {
+        // Retorna HTTP 503 (Service Unavailable); el cliente puede reintentar en un segundo
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("El servidor está ocupado, intente nuevamente");
+    }
 }
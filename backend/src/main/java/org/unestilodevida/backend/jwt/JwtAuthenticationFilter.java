@@ -1,14 +1,16 @@
 package org.unestilodevida.backend.jwt;
 
+import io.jsonwebtoken.JwtException;
 import io.micrometer.common.lang.NonNull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -26,13 +28,35 @@ encabezado de la solicitud.*/
 // Basicamente lo que hace es verificar si la request tiene el token:
 // * Si no lo tiene devuelve un ERROR 403.
 // * Si lo tiene, extrae el username del token (JwtService) y luego en el UsuarioEmpresaDetailsService lo busca en la base de datos y chequea que el token este bien.
-@RequiredArgsConstructor
+// * Los tokens ya validados quedan en JwtTokenCache hasta que expiran, para no repetir el parseo ni la consulta a la BD.
+// * En cada request se consulta RevocacionTokens (O(1)), para que un logout o una baja corten el acceso al instante.
+// * Un token vencido, mal firmado o de un usuario inexistente o dado de baja se ignora: la request sigue sin autenticar.
+// * Con seguridad.principal.modo=claims (por defecto) el usuario se arma con los claims del token (UsuarioAutenticado) y
+//   solo se compara su versión de seguridad con VersionesSeguridad, que casi siempre responde sin ir a la base.
+//   Con modo=base se carga el usuario con UsuarioDetailsService, como antes.
 @Component
 // indica que esta clase es parte de la configuración de Spring y debe ser gestionada por el contenedor de Spring.
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UsuarioDetailsService usuarioDetailsService;
+    private final JwtTokenCache tokenCache;
+    private final RevocacionTokens revocacionTokens;
+    private final VersionesSeguridad versionesSeguridad;
+    private final TicketsEventos ticketsEventos;
+    private final boolean principalDesdeClaims;
+
+    public JwtAuthenticationFilter(JwtService jwtService, UsuarioDetailsService usuarioDetailsService, JwtTokenCache tokenCache,
+                                   RevocacionTokens revocacionTokens, VersionesSeguridad versionesSeguridad,
+                                   TicketsEventos ticketsEventos, @Value("${seguridad.principal.modo:claims}") String modoPrincipal) {
+        this.jwtService = jwtService;
+        this.usuarioDetailsService = usuarioDetailsService;
+        this.tokenCache = tokenCache;
+        this.revocacionTokens = revocacionTokens;
+        this.versionesSeguridad = versionesSeguridad;
+        this.ticketsEventos = ticketsEventos;
+        this.principalDesdeClaims = "claims".equalsIgnoreCase(modoPrincipal);
+    }
 
     // OncePerRequestFilter es una clase de Spring que garantiza que el filtro solo se ejecute una vez por solicitud. Esto es útil cuando tienes filtros que necesitas aplicar a todas las solicitudes.
 
@@ -40,30 +64,76 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,@NonNull FilterChain filterChain) throws ServletException, IOException {
         // Este es el metodo principal que se ejecuta cuando la solicitud llega al filtro. Aquí es donde se realiza la lógica para verificar el token JWT y autenticarlo.
         final String token = getTokenFromRequest(request);
-        final String email;
 
         if (token == null) {
             filterChain.doFilter(request,response); // Le duevuelvo el control a la cadena de Filtros, para permitir que la solicitud continúe su curso, sin realizar ninguna acción de autenticación (es decir, no se realiza ninguna autenticación en este caso).
             return;
         }
-        email=jwtService.getEmailFromToken(token);
-        if(email!=null && SecurityContextHolder.getContext().getAuthentication()==null){
-            UserDetails userDetails= usuarioDetailsService.loadUserByUsername(email);
-            if(jwtService.isTokenValid(token, userDetails)){
+        if (SecurityContextHolder.getContext().getAuthentication()==null) {
+            JwtTokenCache.TokenValidado validado = tokenCache.obtener(token);
+            if (validado == null) {
+                validado = validar(token);
+            }
+            if (validado != null && !revocacionTokens.estaRevocado(validado.claims()) && esVigente(validado)) {
+                UserDetails userDetails = validado.usuario();
                 UsernamePasswordAuthenticationToken authToken= new UsernamePasswordAuthenticationToken(userDetails,null,userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);            }
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+            }
         }
         filterChain.doFilter(request,response);
 
     }
 
+    // Se parsea y verifica la firma una sola vez, y se leen todos los claims de ese resultado.
+    private JwtTokenCache.TokenValidado validar(String token) {
+        long generacion = tokenCache.generacion();
+        try {
+            TokenClaims claims = jwtService.parseToken(token);
+            if (claims.getEmail() == null) {
+                return null;
+            }
+            UserDetails usuario;
+            if (principalDesdeClaims && claims.tieneDatosDeUsuario()) {
+                if (claims.isExpirado()) {
+                    return null;
+                }
+                usuario = UsuarioAutenticado.de(claims);
+            } else {
+                usuario = usuarioDetailsService.loadUserByUsername(claims.getEmail());
+                if (!usuario.isEnabled() || !jwtService.isTokenValid(claims, usuario)) {
+                    return null;
+                }
+            }
+            tokenCache.guardar(token, usuario, claims, generacion);
+            return new JwtTokenCache.TokenValidado(usuario, claims);
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            return null;
+        }
+    }
+
+    // El principal armado desde los claims no pasó por la base: se controla en cada request (también con el token en
+    // cache) que el usuario no haya cambiado de clave, rol o email ni se haya dado de baja desde que se emitió el token.
+    private boolean esVigente(JwtTokenCache.TokenValidado validado) {
+        if (!(validado.usuario() instanceof UsuarioAutenticado)) {
+            return true;
+        }
+        TokenClaims claims = validado.claims();
+        return versionesSeguridad.esVigente(claims.getUsuarioId(), claims.getVersionSeguridad());
+    }
+
     private String getTokenFromRequest(HttpServletRequest request) {
         final String authHeader= request.getHeader(HttpHeaders.AUTHORIZATION);
 
         if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ") ){
             return authHeader.substring(7);
         }
+        // EventSource (GET /eventos) no puede mandar el header: ahí, y solo ahí, se acepta un ticket de un solo uso
+        // como parámetro (ver TicketsEventos), nunca el token.
+        if ("/eventos".equals(request.getServletPath())) {
+            String ticket = request.getParameter("ticket");
+            return StringUtils.hasText(ticket) ? ticketsEventos.canjear(ticket) : null;
+        }
         return null;
     }
 }
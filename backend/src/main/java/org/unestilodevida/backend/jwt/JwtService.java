@@ -1,6 +1,7 @@
 package org.unestilodevida.backend.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -13,20 +14,28 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret.key}")
-    private String key;
+    private final long expiration;
 
-    @Value("${jwt.expiration}")
-    private long expiration;
+    // La clave y el parser se construyen una sola vez; JwtParser es inmutable y se puede usar desde varios hilos.
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    // Convierte la clave secreta de String a SecretKey
-    private SecretKey getKey() {
-        return Keys.hmacShaKeyFor(key.getBytes());
+    // Los tokens de acceso duran poco (15 minutos por defecto); la sesión se extiende con el refresh token (/auth/refresh).
+    public JwtService(@Value("${jwt.secret.key}") String key, @Value("${jwt.acceso.expiracion-ms:900000}") long expiration) {
+        this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(key.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
+    // Parsea y verifica el token una sola vez y devuelve todos los datos que usamos de él.
+    public TokenClaims parseToken(String token) {
+        return TokenClaims.from(getAllClaims(token));
     }
 
     public String getEmailFromToken(String token) {
@@ -50,33 +59,45 @@ public class JwtService {
         extraClaims.put("email", usuario.getEmail());
         extraClaims.put("nombre", usuario.getNombre());
         extraClaims.put("apellido", usuario.getApellido());
+        // Con estos datos el filtro arma el usuario autenticado sin consultar la base (ver UsuarioAutenticado).
+        extraClaims.put("uid", usuario.getId());
+        extraClaims.put("rol", usuario.getRol().name());
+        extraClaims.put("sv", usuario.getVersionSeguridad());
 
+        long ahora = System.currentTimeMillis();
         return Jwts
                 .builder()
                 .setClaims(extraClaims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(usuario.getEmail())
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(ahora))
+                .setExpiration(new Date(ahora + expiration))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
 
 
 
+    public long getExpiracionMs() {
+        return expiration;
+    }
+
     public String getUsernameFromToken(String token) {
         return getClaim(token, Claims::getSubject);
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username =getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isTokenValid(parseToken(token), userDetails);
+    }
+
+    // Igual que isTokenValid(String, UserDetails), pero sobre claims ya parseados para no volver a verificar la firma.
+    public boolean isTokenValid(TokenClaims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && !claims.isExpirado();
     }
 
     private Claims getAllClaims (String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -85,12 +106,4 @@ public class JwtService {
         final Claims claims = getAllClaims(token);
         return claimsResolver.apply(claims);
     }
-
-    private Date getExpiration(String token){
-        return getClaim(token, Claims::getExpiration);
-    }
-
-    private boolean isTokenExpired (String token) {
-        return getExpiration(token).before(new Date());
-    }
 }
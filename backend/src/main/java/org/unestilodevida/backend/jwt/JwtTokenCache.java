@@ -0,0 +1,151 @@
+package org.unestilodevida.backend.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Cache de tokens ya validados. Guarda, para cada token cuya firma ya fue verificada, el usuario que
+representa y sus claims (con el "exp" del propio token). Así el filtro no tiene que volver a
+parsear el token ni consultar la base de datos en cada request.
+
+Las entradas se invalidan cuando el usuario se modifica, se da de baja o cambia la clave, y cuando se cierra la sesión.
+La invalidación por usuario se hace después del commit (antes, otra request podría volver a cachear los datos viejos
+que todavía lee de la base) y usa un índice por email, sin recorrer todo el cache. Para la request que ya estaba
+validando mientras tanto, guardar() recibe la generación leída al empezar y descarta el resultado si hubo una
+invalidación en el medio, como VersionesSeguridad.
+
+Leer es sin locks (el filtro lo hace en cada request); las altas y bajas, que son pocas, se sincronizan para que el
+índice no se desfase de las entradas.
+*/
+@Component
+public class JwtTokenCache {
+
+    private final int maxEntradas;
+    private final Map<String, TokenValidado> entradas = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> tokensPorEmail = new HashMap<>();
+    private volatile long generacion;
+
+    public JwtTokenCache(@Value("${jwt.cache.max-entradas:10000}") int maxEntradas) {
+        this.maxEntradas = maxEntradas;
+    }
+
+    // Devuelve el usuario y los claims asociados al token, o null si no está en cache o ya expiró.
+    public TokenValidado obtener(String token) {
+        TokenValidado entrada = entradas.get(token);
+        if (entrada == null) {
+            return null;
+        }
+        if (entrada.expiraEn() <= System.currentTimeMillis()) {
+            quitar(token, entrada);
+            return null;
+        }
+        return entrada;
+    }
+
+    // Se lee antes de validar un token y se pasa a guardar().
+    public long generacion() {
+        return generacion;
+    }
+
+    public synchronized void guardar(String token, UserDetails usuario, TokenClaims claims, long generacionLeida) {
+        if (generacionLeida != generacion) {
+            return; // se invalidó algún usuario mientras se validaba: el usuario leído puede estar desactualizado
+        }
+        if (claims.getExpiracion() == null || claims.getExpiracion().getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        if (entradas.size() >= maxEntradas) {
+            liberarEspacio();
+        }
+        TokenValidado anterior = entradas.put(token, new TokenValidado(usuario, claims));
+        if (anterior != null) {
+            quitarDelIndice(token, anterior);
+        }
+        tokensPorEmail.computeIfAbsent(usuario.getUsername(), email -> new HashSet<>()).add(token);
+    }
+
+    public void invalidar(String token) {
+        TokenValidado entrada = entradas.get(token);
+        if (entrada != null) {
+            quitar(token, entrada);
+        }
+    }
+
+    // Elimina todos los tokens cacheados del usuario (se llama al modificarlo, darlo de baja o cambiarle la clave).
+    // Dentro de una transacción, recién cuando se confirma.
+    public void invalidarUsuario(String email) {
+        if (email == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            quitarUsuario(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                quitarUsuario(email);
+            }
+        });
+    }
+
+    private synchronized void quitarUsuario(String email) {
+        generacion++;
+        Set<String> tokens = tokensPorEmail.remove(email);
+        if (tokens != null) {
+            tokens.forEach(entradas::remove);
+        }
+    }
+
+    private synchronized void quitar(String token, TokenValidado entrada) {
+        if (entradas.remove(token, entrada)) {
+            quitarDelIndice(token, entrada);
+        }
+    }
+
+    private void quitarDelIndice(String token, TokenValidado entrada) {
+        String email = entrada.usuario().getUsername();
+        Set<String> tokens = tokensPorEmail.get(email);
+        if (tokens != null && tokens.remove(token) && tokens.isEmpty()) {
+            tokensPorEmail.remove(email);
+        }
+    }
+
+    // Primero descarta los tokens expirados; si sigue lleno, descarta una parte de las entradas para no crecer sin límite.
+    private void liberarEspacio() {
+        long ahora = System.currentTimeMillis();
+        List<Map.Entry<String, TokenValidado>> vencidas = new ArrayList<>();
+        for (Map.Entry<String, TokenValidado> entrada : entradas.entrySet()) {
+            if (entrada.getValue().expiraEn() <= ahora) {
+                vencidas.add(entrada);
+            }
+        }
+        vencidas.forEach(entrada -> quitar(entrada.getKey(), entrada.getValue()));
+
+        int aEliminar = entradas.size() - maxEntradas + Math.max(1, maxEntradas / 10);
+        Iterator<Map.Entry<String, TokenValidado>> it = entradas.entrySet().iterator();
+        while (aEliminar-- > 0 && it.hasNext()) {
+            Map.Entry<String, TokenValidado> entrada = it.next();
+            it.remove();
+            quitarDelIndice(entrada.getKey(), entrada.getValue());
+        }
+    }
+
+    public record TokenValidado(UserDetails usuario, TokenClaims claims) {
+        long expiraEn() {
+            return claims.getExpiracion().getTime();
+        }
+    }
+}
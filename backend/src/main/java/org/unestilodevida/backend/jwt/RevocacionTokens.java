@@ -0,0 +1,127 @@
+package org.unestilodevida.backend.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+Tokens de acceso revocados antes de su vencimiento. El filtro lo consulta en cada request, así que la consulta es O(1)
+y casi siempre no toca ningún mapa:
+
+- Por token (logout): el jti se guarda en un mapa exacto y en un filtro de Bloom. Si el Bloom dice que el jti no está
+  (el caso normal) no hace falta mirar el mapa; si dice que puede estar, se confirma con el mapa.
+- Por usuario (baja, cambio de clave, robo de refresh token): se guarda el instante de corte y se rechazan todos los
+  tokens del usuario emitidos hasta ese momento.
+
+Las entradas solo hacen falta mientras pueda existir un token de acceso vigente (jwt.acceso.expiracion-ms); después
+se descartan y el Bloom se vuelve a armar con lo que queda. Es memoria del proceso: con varias instancias cada una
+tiene su propia lista.
+*/
+@Component
+public class RevocacionTokens {
+
+    private final long vidaTokenMs;
+    private final Map<String, Long> revocados = new ConcurrentHashMap<>(); // jti -> vencimiento del token
+    private final Map<String, Long> cortePorUsuario = new ConcurrentHashMap<>(); // email -> instante de corte (segundos)
+    private volatile FiltroBloom bloom = new FiltroBloom();
+
+    public RevocacionTokens(@Value("${jwt.acceso.expiracion-ms:900000}") long vidaTokenMs) {
+        this.vidaTokenMs = vidaTokenMs;
+    }
+
+    public boolean estaRevocado(TokenClaims claims) {
+        if (!cortePorUsuario.isEmpty() && claims.getEmail() != null) {
+            Long corte = cortePorUsuario.get(claims.getEmail());
+            // "iat" tiene precisión de segundos: un token emitido en el mismo segundo del corte también se rechaza.
+            if (corte != null && (claims.getEmitido() == null || claims.getEmitido().getTime() / 1000 <= corte)) {
+                return true;
+            }
+        }
+        String jti = claims.getId();
+        return jti != null && bloom.puedeContener(jti) && revocados.containsKey(jti);
+    }
+
+    // Las altas se sincronizan entre sí (son pocas) para que un jti no se pierda mientras se vuelve a armar el Bloom.
+    public synchronized void revocar(TokenClaims claims) {
+        if (claims.getId() == null) {
+            return;
+        }
+        limpiarVencidos();
+        long vence = claims.getExpiracion() != null ? claims.getExpiracion().getTime() : System.currentTimeMillis() + vidaTokenMs;
+        revocados.put(claims.getId(), vence);
+        bloom.agregar(claims.getId());
+    }
+
+    // Invalida todos los tokens de acceso ya emitidos para el usuario (los que se emitan después siguen siendo válidos).
+    public synchronized void revocarUsuario(String email) {
+        if (email == null) {
+            return;
+        }
+        limpiarVencidos();
+        cortePorUsuario.put(email, System.currentTimeMillis() / 1000);
+    }
+
+    // Las revocaciones son pocas (logout, bajas), así que se limpia en cada alta en lugar de con una tarea programada.
+    private void limpiarVencidos() {
+        long ahora = System.currentTimeMillis();
+        cortePorUsuario.values().removeIf(corte -> corte * 1000 + vidaTokenMs < ahora);
+        if (revocados.values().removeIf(vence -> vence < ahora)) {
+            FiltroBloom nuevo = new FiltroBloom();
+            revocados.keySet().forEach(nuevo::agregar);
+            bloom = nuevo;
+        }
+    }
+
+    // Filtro de Bloom de 64 Kbit con 4 funciones de hash: con unos pocos miles de jti revocados los falsos positivos son raros.
+    private static final class FiltroBloom {
+        private static final int BITS = 1 << 16;
+        private static final int HASHES = 4;
+        private final AtomicLongArray palabras = new AtomicLongArray(BITS / 64);
+
+        void agregar(String valor) {
+            long h = hash(valor);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = posicion(h, i);
+                long mascara = 1L << (bit & 63);
+                int indice = bit >>> 6;
+                long actual;
+                do {
+                    actual = palabras.get(indice);
+                } while ((actual & mascara) == 0 && !palabras.compareAndSet(indice, actual, actual | mascara));
+            }
+        }
+
+        boolean puedeContener(String valor) {
+            long h = hash(valor);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = posicion(h, i);
+                if ((palabras.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Doble hashing: h1 + i * h2, con h1 y h2 las dos mitades de un hash de 64 bits.
+        private static int posicion(long h, int i) {
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            return (h1 + i * h2) & (BITS - 1);
+        }
+
+        private static long hash(String valor) {
+            long h = 0xcbf29ce484222325L; // FNV-1a de 64 bits
+            for (int i = 0; i < valor.length(); i++) {
+                h ^= valor.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.unestilodevida.backend.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+Tickets para conectarse a GET /eventos. EventSource no puede mandar el header Authorization, y poner el token de acceso
+en la URL lo deja en los logs del servidor, de los proxies y en el historial. En su lugar el cliente pide un ticket
+(POST /eventos/ticket, con el header) y lo manda como parámetro: son 32 bytes aleatorios, sirven una sola vez y vencen
+a los eventos.ticket.segundos (30).
+
+El ticket guarda el token de acceso con el que se pidió; al canjearlo, JwtAuthenticationFilter valida ese token como
+cualquier otro (firma, vencimiento, revocación). Es memoria del proceso: con varias instancias, el ticket se tiene que
+canjear en la misma que lo emitió.
+*/
+@Component
+public class TicketsEventos {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final long vidaMs;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    public TicketsEventos(@Value("${eventos.ticket.segundos:30}") long segundos) {
+        this.vidaMs = TimeUnit.SECONDS.toMillis(segundos);
+    }
+
+    public String emitir(String tokenAcceso) {
+        long ahora = System.currentTimeMillis();
+        // Los tickets se canjean enseguida, así que quedan pocos: se limpia en cada alta, sin tarea programada.
+        tickets.values().removeIf(ticket -> ticket.venceEn() < ahora);
+        byte[] aleatorio = new byte[32];
+        RANDOM.nextBytes(aleatorio);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(aleatorio);
+        tickets.put(ticket, new Ticket(tokenAcceso, ahora + vidaMs));
+        return ticket;
+    }
+
+    // El token de acceso del ticket, o null si no existe, ya se usó o venció.
+    public String canjear(String ticket) {
+        Ticket canjeado = tickets.remove(ticket);
+        if (canjeado == null || canjeado.venceEn() < System.currentTimeMillis()) {
+            return null;
+        }
+        return canjeado.tokenAcceso();
+    }
+
+    private record Ticket(String tokenAcceso, long venceEn) {
+    }
+}
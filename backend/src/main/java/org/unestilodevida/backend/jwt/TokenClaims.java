@@ -0,0 +1,49 @@
+package org.unestilodevida.backend.jwt;
+
+import io.jsonwebtoken.Claims;
+import lombok.Value;
+
+import java.util.Date;
+
+// Vista inmutable de los claims de un token ya verificado, para no tener que parsearlo de nuevo por cada dato.
+@Value
+public class TokenClaims {
+    String id; // jti: identifica al token para poder revocarlo
+    String subject;
+    String email;
+    String nombre;
+    String apellido;
+    Long usuarioId; // uid
+    String rol;
+    Long versionSeguridad; // sv: Usuario.versionSeguridad al emitir el token
+    Date emitido;
+    Date expiracion;
+
+    static TokenClaims from(Claims claims) {
+        return new TokenClaims(
+                claims.getId(),
+                claims.getSubject(),
+                claims.get("email", String.class),
+                claims.get("nombre", String.class),
+                claims.get("apellido", String.class),
+                numero(claims.get("uid")),
+                claims.get("rol", String.class),
+                numero(claims.get("sv")),
+                claims.getIssuedAt(),
+                claims.getExpiration());
+    }
+
+    // Los números del JSON llegan como Integer o Long según su tamaño.
+    private static Long numero(Object valor) {
+        return valor instanceof Number numero ? numero.longValue() : null;
+    }
+
+    // Los tokens emitidos antes de agregar uid, rol y sv no alcanzan para armar el usuario sin ir a la base.
+    public boolean tieneDatosDeUsuario() {
+        return usuarioId != null && rol != null && versionSeguridad != null;
+    }
+
+    public boolean isExpirado() {
+        return expiracion == null || expiracion.before(new Date());
+    }
+}
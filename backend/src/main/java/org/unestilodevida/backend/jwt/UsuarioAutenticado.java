@@ -0,0 +1,56 @@
+package org.unestilodevida.backend.jwt;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.unestilodevida.backend.model.Usuario;
+
+import java.util.Collection;
+
+/*
+Usuario autenticado armado con los claims del token (uid, email, rol), sin cargar la entidad Usuario.
+Es lo que queda como principal en el SecurityContext cuando seguridad.principal.modo=claims. No tiene clave:
+solo sirve para requests ya autenticadas con un token válido y vigente.
+*/
+public record UsuarioAutenticado(Long id, String email, Usuario.Rol rol) implements UserDetails {
+
+    static UsuarioAutenticado de(TokenClaims claims) {
+        return new UsuarioAutenticado(claims.getUsuarioId(), claims.getEmail(), Usuario.Rol.valueOf(claims.getRol()));
+    }
+
+    // El usuario de una request autenticada, con cualquiera de los dos principals que arma JwtAuthenticationFilter
+    // (este record o la entidad Usuario). null si la request no está autenticada.
+    public static UsuarioAutenticado de(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UsuarioAutenticado usuario) {
+            return usuario;
+        }
+        if (principal instanceof Usuario usuario) {
+            return new UsuarioAutenticado(usuario.getId(), usuario.getEmail(), usuario.getRol());
+        }
+        return null;
+    }
+
+    public boolean esAdmin() {
+        return rol == Usuario.Rol.ADMIN;
+    }
+
+    // Las mismas autoridades que Usuario.getAuthorities().
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return rol.getAutoridades();
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
@@ -0,0 +1,67 @@
+package org.unestilodevida.backend.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.unestilodevida.backend.evento.CambioEntidadEvent;
+import org.unestilodevida.backend.repository.UsuarioRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Versión de seguridad vigente de cada usuario (Usuario.versionSeguridad), para que el filtro pueda comparar el "sv" del
+token sin consultar la base en cada request. Solo se va a la base cuando el usuario no está en el mapa: la primera
+request después de arrancar o después de que el usuario cambió.
+
+Un usuario dado de baja o inexistente se guarda con versión SIN_ACCESO, así ningún token suyo es vigente.
+*/
+@Component
+public class VersionesSeguridad {
+
+    private static final long SIN_ACCESO = -1;
+
+    private final UsuarioRepository usuarioRepository;
+    private final int maxEntradas;
+    private final Map<Long, Long> versiones = new ConcurrentHashMap<>();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public VersionesSeguridad(UsuarioRepository usuarioRepository,
+                              @Value("${seguridad.principal.max-usuarios:10000}") int maxEntradas) {
+        this.usuarioRepository = usuarioRepository;
+        this.maxEntradas = maxEntradas;
+    }
+
+    public boolean esVigente(long usuarioId, long versionToken) {
+        Long actual = versiones.get(usuarioId);
+        if (actual == null) {
+            actual = cargar(usuarioId);
+        }
+        return actual == versionToken;
+    }
+
+    // Cualquier cambio confirmado de un usuario descarta su versión; la próxima request la vuelve a leer.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void registrarCambio(CambioEntidadEvent evento) {
+        if (evento.entidad() == CambioEntidadEvent.Entidad.USUARIO && evento.id() != null) {
+            invalidaciones.incrementAndGet();
+            versiones.remove(evento.id());
+        }
+    }
+
+    // Si hubo una invalidación mientras se leía la base, el valor leído puede ser anterior al cambio: se usa para esta
+    // request (la transacción que lo cambió puede no haber terminado) pero no se deja en el mapa.
+    private long cargar(long usuarioId) {
+        long antes = invalidaciones.get();
+        long version = usuarioRepository.findVersionSeguridadActiva(usuarioId).orElse(SIN_ACCESO);
+        if (versiones.size() >= maxEntradas) {
+            versiones.clear();
+        }
+        versiones.put(usuarioId, version);
+        if (invalidaciones.get() != antes) {
+            versiones.remove(usuarioId, version);
+        }
+        return version;
+    }
+}
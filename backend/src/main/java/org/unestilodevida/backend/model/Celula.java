@@ -10,7 +10,7 @@ import java.time.LocalTime;
 import java.util.Date;
 
 @Entity // marca la clase como tabla de base de dato
-@Table(name="celula")
+@Table(name="celula") // el esquema y los índices están en las migraciones de db/migration
 @Data // Genera getters, setters, toString, equals y hashCode automáticamente
 @NoArgsConstructor
 @AllArgsConstructor
@@ -48,6 +48,7 @@ public class Celula {
 
     private String enlaceWhatsapp;
 
+    // Obsoleto: el QR se genera a demanda desde enlaceWhatsapp (GET /celulas/{id}/qr). La migración V6 vació los datos viejos; queda la columna.
     @Lob
     @Column(columnDefinition = "TEXT")
     private String qrWhatsapp;
@@ -64,6 +65,11 @@ public class Celula {
     @JoinColumn(name = "timoteo_id", unique = true, nullable = true)
     private Usuario timoteo; // puede ser null
 
+    // La asigna la base al confirmar cada alta o modificación (triggers de las migraciones V3 y V4); hasta el commit
+    // es null. Solo se lee, en las consultas de sincronización.
+    @Column(insertable = false, updatable = false)
+    private Long versionCambio;
+
     public enum DiaSemana {
         LUNES, MARTES, MIERCOLES, JUEVES, VIERNES, SABADO, DOMINGO
     }
@@ -0,0 +1,54 @@
+package org.unestilodevida.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/*
+Refresh token emitido en el login. Del token solo se guarda el hash SHA-256: si se filtra la tabla, los tokens no sirven.
+Cada uso lo rota: se marca como usado y se emite otro de la misma "familia". Si llega un token ya usado, alguien lo
+copió, y se revoca la familia entera.
+*/
+@Entity
+@Table(name="refresh_token")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String hash;
+
+    @Column(nullable = false, length = 36)
+    private String familia; // todos los tokens rotados a partir del mismo login comparten la familia
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    @Column(nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date creadoEn;
+
+    @Column(nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiraEn;
+
+    @Column
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date usadoEn; // cuándo se rotó; un token usado no se puede volver a usar
+
+    @Column(nullable = false)
+    private boolean revocado;
+}
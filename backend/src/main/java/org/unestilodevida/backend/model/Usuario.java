@@ -5,12 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 import java.util.Date;
 
 @Entity // marca la clase como tabla de base de dato
@@ -51,15 +52,37 @@ public class Usuario implements UserDetails {
     @Column(nullable = false)
     private Rol rol;
 
+    // Se incrementa cuando cambia algo que invalida los tokens emitidos (clave, rol, email, baja). Va dentro del token
+    // ("sv") y el filtro rechaza los tokens con una versión vieja sin tener que cargar el usuario en cada request.
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private long versionSeguridad = 0;
+
+    // La asigna la base al confirmar cada alta o modificación (triggers de las migraciones V3 y V4); hasta el commit
+    // es null. Solo se lee, en las consultas de sincronización.
+    @Column(insertable = false, updatable = false)
+    private Long versionCambio;
+
     public enum Rol {
-        ADMIN, LIDER, TIMOTEO
+        ADMIN, LIDER, TIMOTEO;
+
+        private final List<GrantedAuthority> autoridades = List.of(new SimpleGrantedAuthority("ROLE_" + name()));
+
+        // ROLE_ADMIN, ROLE_LIDER o ROLE_TIMOTEO; la lista se crea una vez por rol.
+        public List<GrantedAuthority> getAutoridades() {
+            return autoridades;
+        }
+    }
+
+    public void incrementarVersionSeguridad() {
+        versionSeguridad++;
     }
 
     // Métodos requeridos por UserDetails
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        // Si deseas manejar roles, puedes retornar una lista de roles desde aquí.
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+        return rol != null ? rol.getAutoridades() : List.of();
     }
 
     @Override
@@ -87,4 +110,9 @@ public class Usuario implements UserDetails {
         return true; // Define si las credenciales están expiradas
     }
 
+    @Override
+    public boolean isEnabled() {
+        return fechaBaja == null; // Un usuario dado de baja no puede autenticarse
+    }
+
 }
@@ -0,0 +1,97 @@
+package org.unestilodevida.backend.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.unestilodevida.backend.model.Celula;
+import org.unestilodevida.backend.model.Usuario;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+/*
+Inserciones masivas con JDBC. Celula y Usuario usan GenerationType.IDENTITY, y con IDENTITY Hibernate tiene que
+ejecutar cada INSERT en el momento para conocer el id, así que no puede agruparlos. Acá se mandan todos los INSERT en
+un solo batch y se leen los ids generados al final.
+
+No pasa por el EntityManager: las entidades recibidas no quedan administradas y no se disparan eventos de JPA.
+Tiene que ejecutarse dentro de una transacción para que el lote se confirme o se descarte entero.
+*/
+@Repository
+public class AltasPorLoteRepository {
+
+    private static final String INSERT_CELULA = "INSERT INTO celula (nombre, dia, genero, hora_inicio, direccion, latitud, longitud," +
+            " descripcion, telefono, enlace_whatsapp, lider_id, timoteo_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USUARIO = "INSERT INTO usuario (nombre, apellido, email, clave, telefono, rol, version_seguridad)" +
+            " VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AltasPorLoteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Devuelve los ids generados, en el mismo orden que las células recibidas.
+    public List<Long> insertarCelulas(List<Celula> celulas) {
+        return insertar(INSERT_CELULA, celulas.size(), (ps, i) -> {
+            Celula celula = celulas.get(i);
+            ps.setString(1, celula.getNombre());
+            ps.setString(2, celula.getDia().name());
+            ps.setString(3, celula.getGenero().name());
+            ps.setObject(4, celula.getHoraInicio());
+            ps.setString(5, celula.getDireccion());
+            ps.setObject(6, celula.getLatitud(), Types.DOUBLE);
+            ps.setObject(7, celula.getLongitud(), Types.DOUBLE);
+            ps.setString(8, celula.getDescripcion());
+            ps.setString(9, celula.getTelefono());
+            ps.setString(10, celula.getEnlaceWhatsapp());
+            ps.setObject(11, celula.getLider() != null ? celula.getLider().getId() : null, Types.BIGINT);
+            ps.setObject(12, celula.getTimoteo() != null ? celula.getTimoteo().getId() : null, Types.BIGINT);
+        });
+    }
+
+    // La clave tiene que venir ya hasheada. Devuelve los ids generados, en el mismo orden que los usuarios recibidos.
+    public List<Long> insertarUsuarios(List<Usuario> usuarios) {
+        return insertar(INSERT_USUARIO, usuarios.size(), (ps, i) -> {
+            Usuario usuario = usuarios.get(i);
+            ps.setString(1, usuario.getNombre());
+            ps.setString(2, usuario.getApellido());
+            ps.setString(3, usuario.getEmail());
+            ps.setString(4, usuario.getClave());
+            ps.setString(5, usuario.getTelefono());
+            ps.setString(6, usuario.getRol().name());
+        });
+    }
+
+    private List<Long> insertar(String sql, int cantidad, Parametros parametros) {
+        if (cantidad == 0) {
+            return List.of();
+        }
+        KeyHolder ids = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                parametros.asignar(ps, i);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return cantidad;
+            }
+        }, ids);
+        // Cada fila de claves trae solo la columna id (el nombre exacto depende del driver: "id" o "ID").
+        return ids.getKeyList().stream()
+                .map(fila -> ((Number) fila.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    @FunctionalInterface
+    private interface Parametros {
+        void asignar(PreparedStatement ps, int i) throws SQLException;
+    }
+}
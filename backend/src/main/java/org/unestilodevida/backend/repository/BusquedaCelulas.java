@@ -0,0 +1,17 @@
+package org.unestilodevida.backend.repository;
+
+import org.springframework.data.domain.Limit;
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
+import org.unestilodevida.backend.model.Celula;
+
+import java.time.LocalTime;
+import java.util.List;
+
+// Consultas de CelulaRepository que se arman según los filtros recibidos (ver BusquedaCelulasImpl).
+public interface BusquedaCelulas {
+
+    // Paginación por keyset: trae las células activas con id mayor al cursor. Los filtros en null no se aplican.
+    // texto es un patrón de LIKE ya en minúsculas, con \ como carácter de escape (ver CelulaService.patronLike).
+    List<CelulaFilaDTO> buscarPagina(Long cursor, Celula.DiaSemana dia, Celula.Genero genero,
+                                     LocalTime horaDesde, LocalTime horaHasta, String texto, Limit limite);
+}
@@ -0,0 +1,63 @@
+package org.unestilodevida.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Limit;
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
+import org.unestilodevida.backend.model.Celula;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+El WHERE de buscarPagina lleva solo los filtros que vinieron. Con un único @Query de la forma
+"(:dia IS NULL OR c.dia = :dia)" PostgreSQL prepara un plan genérico que sirve para cualquier combinación de
+parámetros y no siempre puede usar el índice que corresponde; así cada combinación es una consulta distinta, con su
+propio plan.
+*/
+class BusquedaCelulasImpl implements BusquedaCelulas {
+
+    private final EntityManager entityManager;
+
+    BusquedaCelulasImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<CelulaFilaDTO> buscarPagina(Long cursor, Celula.DiaSemana dia, Celula.Genero genero,
+                                            LocalTime horaDesde, LocalTime horaHasta, String texto, Limit limite) {
+        StringBuilder jpql = new StringBuilder(CelulaRepository.SELECT_FILA).append(" WHERE c.fechaBaja IS NULL AND c.id > :cursor");
+        Map<String, Object> parametros = new HashMap<>();
+        parametros.put("cursor", cursor);
+        if (dia != null) {
+            jpql.append(" AND c.dia = :dia");
+            parametros.put("dia", dia);
+        }
+        if (genero != null) {
+            jpql.append(" AND c.genero = :genero");
+            parametros.put("genero", genero);
+        }
+        if (horaDesde != null) {
+            jpql.append(" AND c.horaInicio >= :horaDesde");
+            parametros.put("horaDesde", horaDesde);
+        }
+        if (horaHasta != null) {
+            jpql.append(" AND c.horaInicio <= :horaHasta");
+            parametros.put("horaHasta", horaHasta);
+        }
+        if (texto != null) {
+            jpql.append(" AND (LOWER(c.nombre) LIKE :texto ESCAPE '\\' OR LOWER(c.direccion) LIKE :texto ESCAPE '\\')");
+            parametros.put("texto", texto);
+        }
+        jpql.append(" ORDER BY c.id");
+
+        TypedQuery<CelulaFilaDTO> consulta = entityManager.createQuery(jpql.toString(), CelulaFilaDTO.class);
+        parametros.forEach(consulta::setParameter);
+        if (limite.isLimited()) {
+            consulta.setMaxResults(limite.max());
+        }
+        return consulta.getResultList();
+    }
+}
@@ -1,17 +1,62 @@
 package org.unestilodevida.backend.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
 import org.unestilodevida.backend.model.Celula;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
-public interface CelulaRepository extends JpaRepository<Celula, Long> {
-    @Query("SELECT c.nombre FROM Celula c WHERE c.lider.id = :id OR c.timoteo.id = :id")
-    Optional<String> findNombreByUsuarioId(@Param("id") Integer id);
+public interface CelulaRepository extends JpaRepository<Celula, Long>, BusquedaCelulas {
+    // Columnas de la proyección CelulaFilaDTO; se comparten entre las consultas del listado.
+    String SELECT_FILA = "SELECT new org.unestilodevida.backend.dto.CelulaFilaDTO(" +
+            "c.id, c.nombre, c.dia, c.genero, c.horaInicio, c.direccion, c.latitud, c.longitud, c.descripcion, c.telefono, c.enlaceWhatsapp," +
+            " l.id, l.nombre, l.apellido, l.email, l.telefono, l.fotoPerfil, l.rol," +
+            " t.id, t.nombre, t.apellido, t.email, t.telefono, t.fotoPerfil, t.rol)" +
+            " FROM Celula c LEFT JOIN c.lider l LEFT JOIN c.timoteo t";
+
+    // Lista y no Optional: si por datos viejos el usuario figura en más de una célula, un Optional hacía fallar la consulta.
+    @Query("SELECT c.nombre FROM Celula c WHERE c.lider.id = :id OR c.timoteo.id = :id ORDER BY c.id")
+    List<String> findNombreByUsuarioId(@Param("id") Long id);
+
+    @Query("SELECT c.enlaceWhatsapp FROM Celula c WHERE c.id = :id AND c.fechaBaja IS NULL")
+    Optional<String> findEnlaceWhatsappById(@Param("id") Long id);
 
     @Query("SELECT c FROM Celula c WHERE c.fechaBaja IS NULL")
     List<Celula> findCelulasAlta();
+
+    // Igual que findCelulasAlta, pero trae líder y timoteo en la misma consulta (sin un SELECT extra por fila).
+    @Query(SELECT_FILA + " WHERE c.fechaBaja IS NULL ORDER BY c.id")
+    List<CelulaFilaDTO> listarCelulasAlta();
+
+    // Una célula activa, para actualizar el listado en memoria cuando se modifica.
+    @Query(SELECT_FILA + " WHERE c.fechaBaja IS NULL AND c.id = :id")
+    Optional<CelulaFilaDTO> buscarFilaAlta(@Param("id") Long id);
+
+    // Células activas donde el usuario es líder o timoteo (se vuelven a leer cuando cambian sus datos).
+    // Se filtra por las columnas lider_id/timoteo_id de la célula, que tienen índice; con l.id/t.id el OR cruza los
+    // LEFT JOIN y PostgreSQL tenía que recorrer toda la tabla.
+    @Query(SELECT_FILA + " WHERE c.fechaBaja IS NULL AND (c.lider.id = :usuarioId OR c.timoteo.id = :usuarioId) ORDER BY c.id")
+    List<CelulaFilaDTO> listarFilasPorUsuario(@Param("usuarioId") Long usuarioId);
+
+    // Sincronización incremental: las células que cambiaron (alta, modificación o baja) después de la versión "desde",
+    // en el orden en que cambiaron. Lee el índice de version_cambio desde "desde" en adelante.
+    @Query("SELECT c.id AS id, c.versionCambio AS versionCambio, c.fechaBaja AS fechaBaja FROM Celula c" +
+            " WHERE c.versionCambio > :desde ORDER BY c.versionCambio")
+    List<CelulaCambio> buscarCambios(@Param("desde") long desde, Limit limite);
+
+    // Las filas de las activas que devolvió buscarCambios.
+    @Query(SELECT_FILA + " WHERE c.fechaBaja IS NULL AND c.id IN :ids ORDER BY c.id")
+    List<CelulaFilaDTO> listarFilasAlta(@Param("ids") Collection<Long> ids);
+
+    interface CelulaCambio {
+        Long getId();
+        Long getVersionCambio();
+        Date getFechaBaja();
+    }
 }
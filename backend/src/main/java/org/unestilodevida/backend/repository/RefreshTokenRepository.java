@@ -0,0 +1,39 @@
+package org.unestilodevida.backend.repository;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.unestilodevida.backend.model.RefreshToken;
+
+import java.util.Date;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // Trae también el usuario, que siempre hace falta para emitir el nuevo token de acceso.
+    @EntityGraph(attributePaths = "usuario")
+    Optional<RefreshToken> findByHash(String hash);
+
+    // Marca el token como usado solo si nadie lo usó antes (dos requests con el mismo token: solo una gana).
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.usadoEn = :ahora WHERE r.id = :id AND r.usadoEn IS NULL AND r.revocado = false")
+    int marcarUsado(@Param("id") Long id, @Param("ahora") Date ahora);
+
+    // Logout y reuso revocan la familia entera: con que un token esté revocado, la familia ya no sirve.
+    @Query("SELECT COUNT(r) > 0 FROM RefreshToken r WHERE r.familia = :familia AND r.revocado = true")
+    boolean familiaRevocada(@Param("familia") String familia);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revocado = true WHERE r.familia = :familia AND r.revocado = false")
+    int revocarFamilia(@Param("familia") String familia);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revocado = true WHERE r.usuario.id = :usuarioId AND r.revocado = false")
+    int revocarPorUsuario(@Param("usuarioId") Long usuarioId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.usuario.id = :usuarioId AND r.expiraEn < :ahora")
+    int borrarVencidos(@Param("usuarioId") Long usuarioId, @Param("ahora") Date ahora);
+}
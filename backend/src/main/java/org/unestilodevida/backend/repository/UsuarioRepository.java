@@ -1,8 +1,13 @@
 package org.unestilodevida.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.unestilodevida.backend.dto.UsuarioResumenDTO;
 import org.unestilodevida.backend.model.Usuario;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +15,48 @@ import java.util.Optional;
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmail (String email); // metodo custom para buscar por email, porque jpa los basicos.
     List<Usuario> findByRol(Usuario.Rol rol);
+
+    String SELECT_RESUMEN = "SELECT new org.unestilodevida.backend.dto.UsuarioResumenDTO(u.id, u.nombre, u.apellido, u.email)" +
+            " FROM Usuario u";
+
+    // Todos los usuarios del rol (también los dados de baja), sin cargar las entidades.
+    @Query(SELECT_RESUMEN + " WHERE u.rol = :rol ORDER BY u.apellido, u.nombre")
+    List<UsuarioResumenDTO> listarPorRol(@Param("rol") Usuario.Rol rol);
+
+    // Usuarios activos del rol que no son líder ni timoteo de ninguna célula. Un NOT EXISTS por columna (y no uno con
+    // OR) para que PostgreSQL los resuelva como dos anti-joins en lugar de una subconsulta por usuario.
+    @Query(SELECT_RESUMEN + " WHERE u.rol = :rol AND u.fechaBaja IS NULL" +
+            " AND NOT EXISTS (SELECT c.id FROM Celula c WHERE c.lider = u)" +
+            " AND NOT EXISTS (SELECT c.id FROM Celula c WHERE c.timoteo = u)" +
+            " ORDER BY u.apellido, u.nombre")
+    List<UsuarioResumenDTO> listarDisponibles(@Param("rol") Usuario.Rol rol);
+
+    // Solo la versión de seguridad de un usuario activo (VersionesSeguridad), sin cargar la entidad.
+    @Query("SELECT u.versionSeguridad FROM Usuario u WHERE u.id = :id AND u.fechaBaja IS NULL")
+    Optional<Long> findVersionSeguridadActiva(@Param("id") Long id);
+
+    // Emails de la lista que ya están registrados (alta masiva de usuarios).
+    @Query("SELECT u.email FROM Usuario u WHERE u.email IN :emails")
+    List<String> findEmailsRegistrados(@Param("emails") Collection<String> emails);
+
+    // Para el alta masiva de células: en una sola consulta, qué usuarios existen, si están activos y en cuántas células están.
+    @Query("SELECT u.id AS id, u.fechaBaja AS fechaBaja," +
+            " (SELECT COUNT(c) FROM Celula c WHERE c.lider = u OR c.timoteo = u) AS celulas" +
+            " FROM Usuario u WHERE u.id IN :ids")
+    List<UsuarioAsignable> buscarAsignables(@Param("ids") Collection<Long> ids);
+
+    // Ids de los usuarios con esos emails (importación de células desde CSV, que identifica al líder por email).
+    @Query("SELECT u.id AS id, u.email AS email FROM Usuario u WHERE u.email IN :emails")
+    List<UsuarioIdEmail> findIdsPorEmail(@Param("emails") Collection<String> emails);
+
+    interface UsuarioIdEmail {
+        Long getId();
+        String getEmail();
+    }
+
+    interface UsuarioAsignable {
+        Long getId();
+        Date getFechaBaja();
+        Long getCelulas();
+    }
 }
@@ -0,0 +1,128 @@
+package org.unestilodevida.backend.service;
+
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
+import org.unestilodevida.backend.dto.ClusterCelulasDTO;
+import org.unestilodevida.backend.model.Celula;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Agrupa las células activas para un nivel de zoom del mapa. Se divide el mapa (en proyección Web Mercator, la misma
+que usa Leaflet) en una grilla de celdas de TAMANIO_CELDA_PX pixeles y se junta en un grupo todo lo que cae en la
+misma celda. Es inmutable: se arma una vez por zoom y por foto del listado (ver CelulasEnMemoria).
+*/
+final class AgrupacionCelulas {
+
+    static final int ZOOM_MAXIMO = 20;
+    private static final int TAMANIO_CELDA_PX = 40;
+    private static final double LATITUD_MAXIMA = 85.05112878; // límite de Web Mercator
+
+    private final int zoom;
+    private final Map<Long, ClusterCelulasDTO> clusters;
+
+    private AgrupacionCelulas(int zoom, Map<Long, ClusterCelulasDTO> clusters) {
+        this.zoom = zoom;
+        this.clusters = clusters;
+    }
+
+    static AgrupacionCelulas de(List<CelulaFilaDTO> filas, int zoom) {
+        Map<Long, Acumulador> porCelda = new HashMap<>();
+        for (CelulaFilaDTO fila : filas) {
+            if (fila.getLatitud() == null || fila.getLongitud() == null) {
+                continue;
+            }
+            long clave = clave(columna(fila.getLongitud(), zoom), fila(fila.getLatitud(), zoom));
+            porCelda.computeIfAbsent(clave, c -> new Acumulador()).agregar(fila);
+        }
+        Map<Long, ClusterCelulasDTO> clusters = new HashMap<>(porCelda.size() * 2);
+        porCelda.forEach((clave, acumulador) -> clusters.put(clave, acumulador.aCluster()));
+        return new AgrupacionCelulas(zoom, clusters);
+    }
+
+    // Grupos cuyas celdas se superponen con el rectángulo (oeste, sur, este, norte).
+    List<ClusterCelulasDTO> en(double oeste, double sur, double este, double norte) {
+        int columnaDesde = columna(oeste, zoom);
+        int columnaHasta = columna(este, zoom);
+        int filaDesde = fila(norte, zoom); // en la grilla las filas crecen hacia el sur
+        int filaHasta = fila(sur, zoom);
+
+        List<ClusterCelulasDTO> resultado = new ArrayList<>();
+        long celdasEnRango = (long) (columnaHasta - columnaDesde + 1) * (filaHasta - filaDesde + 1);
+        if (celdasEnRango <= clusters.size()) {
+            for (int x = columnaDesde; x <= columnaHasta; x++) {
+                for (int y = filaDesde; y <= filaHasta; y++) {
+                    ClusterCelulasDTO cluster = clusters.get(clave(x, y));
+                    if (cluster != null) {
+                        resultado.add(cluster);
+                    }
+                }
+            }
+        } else {
+            // Vista amplia: es más barato recorrer los grupos que todas las celdas del rectángulo.
+            clusters.forEach((clave, cluster) -> {
+                int x = (int) (clave >>> 32);
+                int y = (int) (long) clave;
+                if (x >= columnaDesde && x <= columnaHasta && y >= filaDesde && y <= filaHasta) {
+                    resultado.add(cluster);
+                }
+            });
+        }
+        return resultado;
+    }
+
+    private static long clave(int columna, int fila) {
+        return ((long) columna << 32) | (fila & 0xFFFFFFFFL);
+    }
+
+    private static int columna(double longitud, int zoom) {
+        double x = (Math.max(-180, Math.min(180, longitud)) + 180) / 360;
+        return celda(x, zoom);
+    }
+
+    private static int fila(double latitud, int zoom) {
+        double radianes = Math.toRadians(Math.max(-LATITUD_MAXIMA, Math.min(LATITUD_MAXIMA, latitud)));
+        double y = (1 - Math.log(Math.tan(radianes) + 1 / Math.cos(radianes)) / Math.PI) / 2;
+        return celda(y, zoom);
+    }
+
+    // x e y van de 0 a 1 sobre todo el mapa; a cada zoom el mapa mide 256 * 2^zoom pixeles de lado.
+    private static int celda(double posicion, int zoom) {
+        long celdasPorLado = Math.max(1, (256L << zoom) / TAMANIO_CELDA_PX);
+        return (int) Math.min(celdasPorLado - 1, (long) Math.floor(posicion * celdasPorLado));
+    }
+
+    private static class Acumulador {
+        private double sumaLatitud;
+        private double sumaLongitud;
+        private int cantidad;
+        private int hombres;
+        private int mujeres;
+        private Long celulaId;
+
+        void agregar(CelulaFilaDTO fila) {
+            sumaLatitud += fila.getLatitud();
+            sumaLongitud += fila.getLongitud();
+            cantidad++;
+            if (fila.getGenero() == Celula.Genero.HOMBRE) {
+                hombres++;
+            } else if (fila.getGenero() == Celula.Genero.MUJER) {
+                mujeres++;
+            }
+            celulaId = fila.getId();
+        }
+
+        ClusterCelulasDTO aCluster() {
+            ClusterCelulasDTO cluster = new ClusterCelulasDTO();
+            cluster.setLatitud(sumaLatitud / cantidad);
+            cluster.setLongitud(sumaLongitud / cantidad);
+            cluster.setCantidad(cantidad);
+            cluster.setHombres(hombres);
+            cluster.setMujeres(mujeres);
+            cluster.setCelulaId(cantidad == 1 ? celulaId : null);
+            return cluster;
+        }
+    }
+}
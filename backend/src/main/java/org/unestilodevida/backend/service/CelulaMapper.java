@@ -0,0 +1,70 @@
+package org.unestilodevida.backend.service;
+
+import org.springframework.stereotype.Component;
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
+import org.unestilodevida.backend.dto.CelulaResponseDTO;
+import org.unestilodevida.backend.dto.UsuarioResponseDTO;
+import org.unestilodevida.backend.model.Usuario;
+
+/*
+Arma el CelulaResponseDTO de una fila del listado. Lo usan CelulaService (páginas) y CelulasEnMemoria (listado completo).
+*/
+@Component
+public class CelulaMapper {
+
+    private final QRService qrService;
+
+    public CelulaMapper(QRService qrService) {
+        this.qrService = qrService;
+    }
+
+    // baseUrl es la URL del servidor (esquema, host y puerto) desde donde se arman las URLs de fotos y QR.
+    public CelulaResponseDTO toResponseDTO(CelulaFilaDTO fila, String baseUrl) {
+        CelulaResponseDTO dto = new CelulaResponseDTO();
+        dto.setId(fila.getId());
+        dto.setNombre(fila.getNombre());
+        dto.setDia(fila.getDia().toString()); // si es enum
+        dto.setGenero(fila.getGenero().toString()); // si es enum
+        dto.setHoraInicio(fila.getHoraInicio()); // LocalTime
+        dto.setDireccion(fila.getDireccion());
+        dto.setLatitud(fila.getLatitud());
+        dto.setLongitud(fila.getLongitud());
+        dto.setDescripcion(fila.getDescripcion());
+        dto.setTelefono(fila.getTelefono());
+        dto.setEnlaceWhatsapp(fila.getEnlaceWhatsapp());
+        if (fila.getEnlaceWhatsapp() != null) {
+            // El parámetro v cambia cuando cambia el enlace, así el navegador puede cachear el QR sin revalidarlo.
+            dto.setQrUrl(baseUrl + "/celulas/" + fila.getId() + "/qr?v=" + qrService.calcularEtag(fila.getEnlaceWhatsapp()));
+        }
+
+        // Lider
+        if (fila.getLiderId() != null) {
+            dto.setLider(toUsuarioDTO(fila.getLiderId(), fila.getLiderNombre(), fila.getLiderApellido(), fila.getLiderEmail(),
+                    fila.getLiderTelefono(), fila.getLiderFotoPerfil(), fila.getLiderRol(), baseUrl));
+        }
+
+        // Timoteo
+        if (fila.getTimoteoId() != null) {
+            dto.setTimoteo(toUsuarioDTO(fila.getTimoteoId(), fila.getTimoteoNombre(), fila.getTimoteoApellido(), fila.getTimoteoEmail(),
+                    fila.getTimoteoTelefono(), fila.getTimoteoFotoPerfil(), fila.getTimoteoRol(), baseUrl));
+        }
+
+        return dto;
+    }
+
+    private UsuarioResponseDTO toUsuarioDTO(Long id, String nombre, String apellido, String email, String telefono,
+                                            String fotoPerfil, Usuario.Rol rol, String baseUrl) {
+        UsuarioResponseDTO dto = new UsuarioResponseDTO();
+        dto.setId(id);
+        dto.setNombre(nombre);
+        dto.setApellido(apellido);
+        dto.setEmail(email);
+        dto.setTelefono(telefono);
+        dto.setRol(rol.toString());
+        if (fotoPerfil != null) {
+            dto.setFotoPerfil(baseUrl + "/usuarios_fotos_perfil/" + fotoPerfil);
+            dto.setFotoPerfilMiniatura(baseUrl + "/usuarios_fotos_perfil/" + FotoPerfilStorage.nombreMiniatura(fotoPerfil));
+        }
+        return dto;
+    }
+}
@@ -1,37 +1,65 @@
 package org.unestilodevida.backend.service;
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.unestilodevida.backend.dto.AsignacionDTO;
+import org.unestilodevida.backend.dto.CambiosCelulasDTO;
+import org.unestilodevida.backend.dto.CelulaCercanaDTO;
 import org.unestilodevida.backend.dto.CelulaDTO;
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
+import org.unestilodevida.backend.dto.CelulaPaginaDTO;
 import org.unestilodevida.backend.dto.CelulaResponseDTO;
-import org.unestilodevida.backend.dto.UsuarioResponseDTO;
+import org.unestilodevida.backend.dto.ClusterCelulasDTO;
+import org.unestilodevida.backend.dto.ResultadoLoteDTO;
+import org.unestilodevida.backend.evento.CambioEntidadEvent;
+import org.unestilodevida.backend.jwt.UsuarioAutenticado;
 import org.unestilodevida.backend.model.Celula;
 import org.unestilodevida.backend.model.Usuario;
+import org.unestilodevida.backend.repository.AltasPorLoteRepository;
 import org.unestilodevida.backend.repository.CelulaRepository;
 import org.unestilodevida.backend.repository.UsuarioRepository;
-import org.unestilodevida.backend.util.QRUtils;
+import org.unestilodevida.backend.util.UrlBase;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class CelulaService {
+    private static final int LIMITE_MAXIMO_PAGINA = 200;
+    private static final int LIMITE_MAXIMO_CAMBIOS = 1000;
+    private static final double RADIO_MAXIMO_KM = 100;
+    private static final int MAX_ITEMS_LOTE = 1000;
+
     private final CelulaRepository celulaRepository;
     private final UsuarioRepository usuarioRepository;
-    @Autowired
-    private HttpServletRequest request;
-
-    public CelulaService(CelulaRepository celulaRepository, UsuarioRepository usuarioRepository) {
+    private final CelulaMapper celulaMapper;
+    private final CelulasEnMemoria celulasEnMemoria;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AltasPorLoteRepository altasPorLoteRepository;
+    private final Validator validator;
+
+    public CelulaService(CelulaRepository celulaRepository, UsuarioRepository usuarioRepository, CelulaMapper celulaMapper,
+                         CelulasEnMemoria celulasEnMemoria, ApplicationEventPublisher eventPublisher,
+                         AltasPorLoteRepository altasPorLoteRepository, Validator validator) {
         this.celulaRepository=celulaRepository;
         this.usuarioRepository = usuarioRepository;
+        this.celulaMapper = celulaMapper;
+        this.celulasEnMemoria = celulasEnMemoria;
+        this.eventPublisher = eventPublisher;
+        this.altasPorLoteRepository = altasPorLoteRepository;
+        this.validator = validator;
     }
 
     public Celula createCelula(CelulaDTO celulaDTO) {
@@ -61,30 +89,139 @@ public class CelulaService {
             celula.setTimoteo(timoteo);
         }
 
-        // Generar enlace de WhatsApp
-        try {
-            String mensaje = "Hola, quiero unirme a la célula";
-            String telefono = celulaDTO.getTelefono().replaceAll("[^0-9]", ""); // eliminar espacios o símbolos
-            String enlaceWhatsapp = "https://wa.me/" + telefono + "?text=" + URLEncoder.encode(mensaje, StandardCharsets.UTF_8.toString());
-            celula.setEnlaceWhatsapp(enlaceWhatsapp);
-
-            // Generar QR en Base64
-            String qrBase64 = QRUtils.generarQRBase64(enlaceWhatsapp, 200, 200);
-            celula.setQrWhatsapp(qrBase64);
-        } catch (Exception e) {
-            // Manejar errores de generación de QR
-            System.err.println("Error generando enlace o QR de WhatsApp: " + e.getMessage());
-            celula.setEnlaceWhatsapp(null);
-            celula.setQrWhatsapp(null);
+        // Generar enlace de WhatsApp. El QR ya no se guarda: se genera a demanda en GET /celulas/{id}/qr.
+        celula.setEnlaceWhatsapp(generarEnlaceWhatsapp(celulaDTO.getTelefono()));
+
+        Celula guardada = celulaRepository.save(celula);
+        publicarCambio(guardada.getId(), CambioEntidadEvent.Operacion.ALTA);
+        return guardada;
+    }
+
+    // Alta de varias células en una sola transacción. Se validan todas primero; las que tienen errores se informan y no se
+    // crean, y las válidas se insertan en un solo batch. El resultado de cada una vuelve en el mismo orden que se recibió.
+    @Transactional
+    public List<ResultadoLoteDTO> createCelulas(List<CelulaDTO> celulasDTO) {
+        if (celulasDTO.size() > MAX_ITEMS_LOTE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Se pueden crear hasta " + MAX_ITEMS_LOTE + " células por vez");
+        }
+
+        // Líderes y timoteos de todo el lote en una sola consulta
+        Set<Long> usuarioIds = new HashSet<>();
+        for (CelulaDTO dto : celulasDTO) {
+            if (dto != null && dto.getLiderId() != null) usuarioIds.add(dto.getLiderId());
+            if (dto != null && dto.getTimoteoId() != null && dto.getTimoteoId() != 0) usuarioIds.add(dto.getTimoteoId());
+        }
+        Map<Long, UsuarioRepository.UsuarioAsignable> usuarios = usuarioIds.isEmpty() ? Map.of()
+                : usuarioRepository.buscarAsignables(usuarioIds).stream()
+                        .collect(Collectors.toMap(UsuarioRepository.UsuarioAsignable::getId, u -> u));
+
+        ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[celulasDTO.size()];
+        List<Integer> indicesValidos = new ArrayList<>();
+        List<Celula> validas = new ArrayList<>();
+        Set<Long> asignadosEnLote = new HashSet<>(); // un usuario puede ser líder o timoteo de una sola célula
+        for (int i = 0; i < celulasDTO.size(); i++) {
+            CelulaDTO dto = celulasDTO.get(i);
+            List<String> errores = new ArrayList<>();
+            if (dto == null) {
+                errores.add("La célula no puede ser null");
+            } else {
+                for (ConstraintViolation<CelulaDTO> violacion : validator.validate(dto)) {
+                    errores.add(violacion.getMessage());
+                }
+                Celula.DiaSemana dia = valorDeEnum(Celula.DiaSemana.class, dto.getDia(), "Día inválido: ", errores);
+                Celula.Genero genero = valorDeEnum(Celula.Genero.class, dto.getGenero(), "Género inválido: ", errores);
+                Long timoteoId = dto.getTimoteoId() != null && dto.getTimoteoId() != 0 ? dto.getTimoteoId() : null;
+                verificarAsignable(dto.getLiderId(), "líder", usuarios, asignadosEnLote, errores);
+                if (timoteoId != null && timoteoId.equals(dto.getLiderId())) {
+                    errores.add("El líder y el timoteo no pueden ser la misma persona");
+                } else {
+                    verificarAsignable(timoteoId, "timoteo", usuarios, asignadosEnLote, errores);
+                }
+
+                if (errores.isEmpty()) {
+                    asignadosEnLote.add(dto.getLiderId());
+                    if (timoteoId != null) {
+                        asignadosEnLote.add(timoteoId);
+                    }
+                    validas.add(Celula.builder()
+                            .nombre(dto.getNombre())
+                            .dia(dia)
+                            .genero(genero)
+                            .horaInicio(dto.getHoraInicio())
+                            .direccion(dto.getDireccion())
+                            .latitud(dto.getLatitud())
+                            .longitud(dto.getLongitud())
+                            .descripcion(dto.getDescripcion())
+                            .telefono(dto.getTelefono())
+                            .enlaceWhatsapp(generarEnlaceWhatsapp(dto.getTelefono()))
+                            .lider(usuarioRepository.getReferenceById(dto.getLiderId()))
+                            .timoteo(timoteoId != null ? usuarioRepository.getReferenceById(timoteoId) : null)
+                            .build());
+                    indicesValidos.add(i);
+                }
+            }
+            if (!errores.isEmpty()) {
+                resultados[i] = ResultadoLoteDTO.rechazado(i, errores);
+            }
+        }
+
+        List<Long> ids = altasPorLoteRepository.insertarCelulas(validas);
+        for (int j = 0; j < ids.size(); j++) {
+            resultados[indicesValidos.get(j)] = ResultadoLoteDTO.creado(indicesValidos.get(j), ids.get(j));
+        }
+        if (!ids.isEmpty()) {
+            publicarCambio(null, CambioEntidadEvent.Operacion.ALTA); // un solo aviso para todo el lote
         }
+        return Arrays.asList(resultados);
+    }
+
+    private static void verificarAsignable(Long usuarioId, String funcion, Map<Long, UsuarioRepository.UsuarioAsignable> usuarios,
+                                           Set<Long> asignadosEnLote, List<String> errores) {
+        if (usuarioId == null) {
+            return;
+        }
+        UsuarioRepository.UsuarioAsignable usuario = usuarios.get(usuarioId);
+        if (usuario == null) {
+            errores.add("No existe el " + funcion + " con ID: " + usuarioId);
+        } else if (usuario.getFechaBaja() != null) {
+            errores.add("El " + funcion + " con ID " + usuarioId + " está dado de baja");
+        } else if (usuario.getCelulas() > 0 || asignadosEnLote.contains(usuarioId)) {
+            errores.add("El " + funcion + " con ID " + usuarioId + " ya está asignado a otra célula");
+        }
+    }
 
-        return celulaRepository.save(celula);
+    private static <E extends Enum<E>> E valorDeEnum(Class<E> tipo, String valor, String mensaje, List<String> errores) {
+        if (valor == null) {
+            return null; // ya lo informa la validación del DTO
+        }
+        try {
+            return Enum.valueOf(tipo, valor.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            errores.add(mensaje + valor);
+            return null;
+        }
     }
 
-    public Celula updateCelula(CelulaDTO celulaDTO, Long id) {
-        String baseUrl = request.getScheme() + "://" + request.getServerName() + ":" + request.getServerPort() + "/usuarios_fotos_perfil/";
+    // Un ADMIN edita cualquier célula; un líder o timoteo, solo la suya y sin cambiar quién la lidera ni quién es el
+    // timoteo (si no mandan timoteoId, el timoteo queda como está).
+    public Celula updateCelula(CelulaDTO celulaDTO, Long id, String baseUrl, UsuarioAutenticado editor) {
+        String urlFotos = baseUrl + UrlBase.FOTOS_PERFIL;
         Celula celulaExistente = celulaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Célula no encontrada con ID: " + id));
+        if (!editor.esAdmin()) {
+            Long liderId = celulaExistente.getLider() != null ? celulaExistente.getLider().getId() : null;
+            Long timoteoId = celulaExistente.getTimoteo() != null ? celulaExistente.getTimoteo().getId() : null;
+            if (!editor.id().equals(liderId) && !editor.id().equals(timoteoId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Solo se puede editar la célula propia");
+            }
+            if (celulaDTO.getLiderId() != null && !celulaDTO.getLiderId().equals(liderId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Solo un administrador puede cambiar el líder");
+            }
+            Long timoteoPedido = celulaDTO.getTimoteoId() != null && celulaDTO.getTimoteoId() == 0 ? null : celulaDTO.getTimoteoId();
+            if (celulaDTO.getTimoteoId() != null && !Objects.equals(timoteoPedido, timoteoId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Solo un administrador puede cambiar el timoteo");
+            }
+        }
 
         if (celulaDTO.getNombre() != null)
             celulaExistente.setNombre(celulaDTO.getNombre());
@@ -112,22 +249,12 @@ public class CelulaService {
 
         if (celulaDTO.getTelefono() != null) {
             celulaExistente.setTelefono(celulaDTO.getTelefono());
-
-            try {
-                String mensaje = "Hola, quiero unirme a la célula";
-                String telefono = celulaDTO.getTelefono().replaceAll("[^0-9]", "");
-                String enlaceWhatsapp = "https://wa.me/" + telefono + "?text=" + URLEncoder.encode(mensaje, StandardCharsets.UTF_8);
-                celulaExistente.setEnlaceWhatsapp(enlaceWhatsapp);
-
-                String qrBase64 = QRUtils.generarQRBase64(enlaceWhatsapp, 200, 200);
-                celulaExistente.setQrWhatsapp(qrBase64);
-            } catch (Exception e) {
-                System.err.println("Error generando enlace o QR de WhatsApp: " + e.getMessage());
-                celulaExistente.setEnlaceWhatsapp(null);
-                celulaExistente.setQrWhatsapp(null);
-            }
+            celulaExistente.setEnlaceWhatsapp(generarEnlaceWhatsapp(celulaDTO.getTelefono()));
         }
 
+        // El QR en Base64 de versiones anteriores ya no se usa; se limpia al modificar la célula.
+        celulaExistente.setQrWhatsapp(null);
+
         if (celulaDTO.getLiderId() != null) {
             Usuario nuevoLider = usuarioRepository.findById(celulaDTO.getLiderId())
                     .orElseThrow(() -> new RuntimeException("Líder no encontrado con ID: " + celulaDTO.getLiderId()));
@@ -138,81 +265,110 @@ public class CelulaService {
             Usuario nuevoTimoteo = usuarioRepository.findById(celulaDTO.getTimoteoId())
                     .orElseThrow(() -> new RuntimeException("Timoteo no encontrado con ID: " + celulaDTO.getTimoteoId()));
             celulaExistente.setTimoteo(nuevoTimoteo);
-        } else {
+        } else if (editor.esAdmin()) {
             celulaExistente.setTimoteo(null);
         }
 
         Celula actualizada = celulaRepository.save(celulaExistente);
+        publicarCambio(actualizada.getId(), CambioEntidadEvent.Operacion.MODIFICACION);
 
         // ✅ Asegurar que las URLs de fotos sean absolutas
         if (actualizada.getLider() != null && actualizada.getLider().getFotoPerfil() != null) {
             String foto = actualizada.getLider().getFotoPerfil();
             if (!foto.startsWith("http")) { // evita duplicar si ya tiene la URL completa
-                actualizada.getLider().setFotoPerfil(baseUrl + foto);
+                actualizada.getLider().setFotoPerfil(urlFotos + foto);
             }
         }
 
         if (actualizada.getTimoteo() != null && actualizada.getTimoteo().getFotoPerfil() != null) {
             String foto = actualizada.getTimoteo().getFotoPerfil();
             if (!foto.startsWith("http")) {
-                actualizada.getTimoteo().setFotoPerfil(baseUrl + foto);
+                actualizada.getTimoteo().setFotoPerfil(urlFotos + foto);
             }
         }
 
         return actualizada;
     }
 
+    public List<CelulaResponseDTO> getCelulas (String baseUrl) {
+        return celulasEnMemoria.filas().stream()
+                .map(fila -> celulaMapper.toResponseDTO(fila, baseUrl))
+                .collect(Collectors.toList());
+    }
+
+    // Listado de células activas ya serializado a JSON, servido desde memoria (ver CelulasEnMemoria).
+    public byte[] getCelulasJson(String baseUrl) {
+        return celulasEnMemoria.json(baseUrl);
+    }
+
+    // Página de células activas ordenadas por id. El cursor es el id de la última célula de la página anterior (keyset), así la
+    // consulta no tiene que saltear filas con OFFSET. Todos los filtros son opcionales y se aplican en la base de datos.
     @Transactional
-    public List<CelulaResponseDTO> getCelulas () {
-        String baseUrl = request.getScheme() + "://" + request.getServerName() + ":" + request.getServerPort() + "/usuarios_fotos_perfil/";
-
-        return celulaRepository.findCelulasAlta().stream().map(celula -> {
-            CelulaResponseDTO dto = new CelulaResponseDTO();
-            dto.setId(celula.getId());
-            dto.setNombre(celula.getNombre());
-            dto.setDia(celula.getDia().toString()); // si es enum
-            dto.setGenero(celula.getGenero().toString()); // si es enum
-            dto.setHoraInicio(celula.getHoraInicio()); // LocalTime
-            dto.setDireccion(celula.getDireccion());
-            dto.setLatitud(celula.getLatitud());
-            dto.setLongitud(celula.getLongitud());
-            dto.setDescripcion(celula.getDescripcion());
-            dto.setTelefono(celula.getTelefono());
-            dto.setEnlaceWhatsapp(celula.getEnlaceWhatsapp());
-            dto.setQrWhatsapp(celula.getQrWhatsapp());
-
-            // Lider
-            if (celula.getLider() != null) {
-                UsuarioResponseDTO liderDTO = new UsuarioResponseDTO();
-                liderDTO.setId(celula.getLider().getId());
-                liderDTO.setNombre(celula.getLider().getNombre());
-                liderDTO.setApellido(celula.getLider().getApellido());
-                liderDTO.setEmail(celula.getLider().getEmail());
-                liderDTO.setTelefono(celula.getLider().getTelefono());
-                liderDTO.setRol(celula.getLider().getRol().toString());
-                if (celula.getLider().getFotoPerfil() != null) {
-                    liderDTO.setFotoPerfil(baseUrl + celula.getLider().getFotoPerfil());
-                }
-                dto.setLider(liderDTO);
-            }
+    public CelulaPaginaDTO getCelulasPaginadas(Long cursor, int limite, String dia, String genero,
+                                              LocalTime horaDesde, LocalTime horaHasta, String texto, String baseUrl) {
+        int tamanio = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+
+        Celula.DiaSemana diaFiltro = parsearDia(dia);
+        Celula.Genero generoFiltro = parsearGenero(genero);
+        String patron = (texto != null && !texto.isBlank()) ? patronLike(texto.trim().toLowerCase()) : null;
+
+        // Se pide una fila de más para saber si hay otra página sin hacer un COUNT.
+        List<CelulaFilaDTO> celulas = celulaRepository.buscarPagina(cursor != null ? cursor : 0L, diaFiltro, generoFiltro,
+                horaDesde, horaHasta, patron, Limit.of(tamanio + 1));
+        boolean hayMas = celulas.size() > tamanio;
+        if (hayMas) {
+            celulas = celulas.subList(0, tamanio);
+        }
 
-            // Timoteo
-            if (celula.getTimoteo() != null) {
-                UsuarioResponseDTO timoteoDTO = new UsuarioResponseDTO();
-                timoteoDTO.setId(celula.getTimoteo().getId());
-                timoteoDTO.setNombre(celula.getTimoteo().getNombre());
-                timoteoDTO.setApellido(celula.getTimoteo().getApellido());
-                timoteoDTO.setEmail(celula.getTimoteo().getEmail());
-                timoteoDTO.setTelefono(celula.getTimoteo().getTelefono());
-                timoteoDTO.setRol(celula.getTimoteo().getRol().toString());
-                if (celula.getTimoteo().getFotoPerfil() != null) {
-                    timoteoDTO.setFotoPerfil(baseUrl + celula.getTimoteo().getFotoPerfil());
-                }
-                dto.setTimoteo(timoteoDTO);
-            }
+        CelulaPaginaDTO pagina = new CelulaPaginaDTO();
+        pagina.setCelulas(celulas.stream().map(fila -> celulaMapper.toResponseDTO(fila, baseUrl)).collect(Collectors.toList()));
+        pagina.setSiguienteCursor(hayMas ? celulas.get(celulas.size() - 1).getId() : null);
+        return pagina;
+    }
+
+    // Sincronización incremental: lo que cambió desde la versión que ya tiene el cliente (0 la primera vez) y la
+    // versión hasta la que quedó al día. Una célula que cambió más de una vez viaja una sola vez, con sus datos actuales.
+    // Las versiones se asignan al confirmar, de a una transacción por vez (migración V4): todo lo que tenga una versión
+    // menor o igual a la devuelta ya está confirmado, así que pedir desde ella no saltea cambios.
+    public CambiosCelulasDTO getCambios(long desde, int limite, String baseUrl) {
+        if (desde < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La versión no puede ser negativa");
+        }
+        int tamanio = Math.max(1, Math.min(limite, LIMITE_MAXIMO_CAMBIOS));
+
+        List<CelulaRepository.CelulaCambio> cambios = celulaRepository.buscarCambios(desde, Limit.of(tamanio + 1));
+        boolean hayMas = cambios.size() > tamanio;
+        if (hayMas) {
+            cambios = cambios.subList(0, tamanio);
+        }
+
+        List<Long> activas = new ArrayList<>();
+        List<Long> bajas = new ArrayList<>();
+        for (CelulaRepository.CelulaCambio cambio : cambios) {
+            (cambio.getFechaBaja() == null ? activas : bajas).add(cambio.getId());
+        }
+        // Si una célula se da de baja entre las dos consultas no viene en las filas; la baja llega en el próximo pedido.
+        List<CelulaResponseDTO> celulas = activas.isEmpty() ? List.of() : celulaRepository.listarFilasAlta(activas).stream()
+                .map(fila -> celulaMapper.toResponseDTO(fila, baseUrl))
+                .collect(Collectors.toList());
+
+        CambiosCelulasDTO respuesta = new CambiosCelulasDTO();
+        respuesta.setCelulas(celulas);
+        respuesta.setBajas(bajas);
+        respuesta.setVersion(cambios.isEmpty() ? desde : cambios.get(cambios.size() - 1).getVersionCambio());
+        respuesta.setHayMas(hayMas);
+        return respuesta;
+    }
 
-            return dto;
-        }).collect(Collectors.toList());
+    private String generarEnlaceWhatsapp(String telefono) {
+        String mensaje = "Hola, quiero unirme a la célula";
+        String numero = telefono.replaceAll("[^0-9]", ""); // eliminar espacios o símbolos
+        return "https://wa.me/" + numero + "?text=" + URLEncoder.encode(mensaje, StandardCharsets.UTF_8);
+    }
+
+    // Enlace de WhatsApp de una célula activa; es lo único que hace falta para generar su QR.
+    public Optional<String> getEnlaceWhatsapp(Long id) {
+        return celulaRepository.findEnlaceWhatsappById(id);
     }
 
     public List<Map<String,String>> getDias() {
@@ -231,8 +387,93 @@ public class CelulaService {
                 .toList();
     }
 
-    public Optional<String> usuarioLibre(Integer id) {
-        return celulaRepository.findNombreByUsuarioId(id); // Busca una celula asociada al id del usuario y retorna el nombre de la misma.
+    // Células activas a menos de radioKm del punto, ordenadas por distancia. Se responde desde el listado en memoria.
+    public List<CelulaCercanaDTO> getCelulasCercanas(double lat, double lng, double radioKm, int limite, String dia, String genero,
+                                                     String baseUrl) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180 || radioKm <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Coordenadas o radio inválidos");
+        }
+        Celula.DiaSemana diaFiltro = parsearDia(dia);
+        Celula.Genero generoFiltro = parsearGenero(genero);
+
+        return celulasEnMemoria.cercanas(lat, lng, Math.min(radioKm, RADIO_MAXIMO_KM), Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA)),
+                        fila -> (diaFiltro == null || fila.getDia() == diaFiltro) && (generoFiltro == null || fila.getGenero() == generoFiltro))
+                .stream()
+                .map(resultado -> {
+                    CelulaCercanaDTO dto = new CelulaCercanaDTO();
+                    dto.setCelula(celulaMapper.toResponseDTO(resultado.elemento(), baseUrl));
+                    dto.setDistanciaKm(resultado.distanciaKm());
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Grupos de células para el mapa. bbox = "oeste,sur,este,norte" (el formato de toBBoxString() de Leaflet).
+    public List<ClusterCelulasDTO> getClusters(String bbox, int zoom) {
+        String[] partes = bbox.split(",");
+        if (partes.length != 4) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bbox debe ser oeste,sur,este,norte");
+        }
+        double oeste, sur, este, norte;
+        try {
+            oeste = Double.parseDouble(partes[0].trim());
+            sur = Double.parseDouble(partes[1].trim());
+            este = Double.parseDouble(partes[2].trim());
+            norte = Double.parseDouble(partes[3].trim());
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bbox debe ser oeste,sur,este,norte");
+        }
+        if (oeste > este || sur > norte) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bbox inválido");
+        }
+        int nivel = Math.max(0, Math.min(zoom, AgrupacionCelulas.ZOOM_MAXIMO));
+        return celulasEnMemoria.clusters(nivel, oeste, sur, este, norte);
+    }
+
+    private Celula.DiaSemana parsearDia(String dia) {
+        try {
+            return dia != null ? Celula.DiaSemana.valueOf(dia.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Día inválido: " + dia);
+        }
+    }
+
+    private Celula.Genero parsearGenero(String genero) {
+        try {
+            return genero != null ? Celula.Genero.valueOf(genero.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Género inválido: " + genero);
+        }
+    }
+
+    // "contiene texto" para LIKE ... ESCAPE '\': %, _ y \ escritos por el usuario se buscan como caracteres comunes.
+    static String patronLike(String texto) {
+        return "%" + texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    public Optional<String> usuarioLibre(Long id) {
+        AsignacionDTO asignacion = celulasEnMemoria.asignaciones().get(id);
+        return asignacion != null ? Optional.of(asignacion.getCelulaNombre()) : Optional.empty();
+    }
+
+    // Células a las que están asignados los usuarios pedidos (o todos, si ids es null). Sale de la foto en memoria,
+    // así que un formulario valida a todos sus candidatos con un solo request y sin consultar la base.
+    public Map<Long, AsignacionDTO> getAsignaciones(List<Long> ids) {
+        Map<Long, AsignacionDTO> asignaciones = celulasEnMemoria.asignaciones();
+        if (ids == null) {
+            return asignaciones;
+        }
+        if (ids.size() > MAX_ITEMS_LOTE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Se pueden consultar hasta " + MAX_ITEMS_LOTE + " usuarios por vez");
+        }
+        Map<Long, AsignacionDTO> pedidas = new HashMap<>();
+        for (Long id : ids) {
+            AsignacionDTO asignacion = asignaciones.get(id);
+            if (asignacion != null) {
+                pedidas.put(id, asignacion);
+            }
+        }
+        return pedidas;
     }
 
     @Transactional
@@ -246,6 +487,7 @@ public class CelulaService {
             celulaBaja.setTimoteo(null);
 
             celulaRepository.save(celulaBaja);
+            publicarCambio(id, CambioEntidadEvent.Operacion.BAJA);
 
             return ResponseEntity.ok("Célula dada de baja con éxito.");
 
@@ -258,4 +500,7 @@ public class CelulaService {
         }
     }
 
+    private void publicarCambio(Long id, CambioEntidadEvent.Operacion operacion) {
+        eventPublisher.publishEvent(new CambioEntidadEvent(CambioEntidadEvent.Entidad.CELULA, id, operacion));
+    }
 }
@@ -0,0 +1,255 @@
+package org.unestilodevida.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.unestilodevida.backend.dto.AsignacionDTO;
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
+import org.unestilodevida.backend.dto.ClusterCelulasDTO;
+import org.unestilodevida.backend.evento.CambioEntidadEvent;
+import org.unestilodevida.backend.model.Usuario;
+import org.unestilodevida.backend.repository.CelulaRepository;
+import org.unestilodevida.backend.util.IndiceGeografico;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/*
+Modelo de lectura en memoria del listado de células activas (GET /celulas, el mapa público).
+
+Se guarda una "foto" inmutable (Snapshot) con las filas ordenadas por id y, para cada URL base desde la que se pidió,
+el JSON ya serializado. La lectura es un get() de un AtomicReference: no toma locks ni consulta la base ni usa Jackson
+(salvo la primera vez que se pide desde una URL base nueva).
+
+Cada foto incluye además un índice geográfico (IndiceGeografico) para responder "células cerca de" sin recorrer todas,
+las agrupaciones del mapa por nivel de zoom (AgrupacionCelulas), que se arman la primera vez que se pide cada zoom,
+y qué usuario es líder o timoteo de qué célula (los formularios de célula lo piden de una sola vez).
+
+Cuando se confirma un cambio de una célula, o de un usuario que es líder o timoteo de alguna, se vuelven a leer solo
+esas filas y se arma una foto nueva reutilizando el JSON de las filas que no cambiaron. Las escrituras se serializan
+entre sí; las lecturas siguen viendo la foto anterior hasta que se reemplaza.
+*/
+@Component
+public class CelulasEnMemoria {
+
+    // Cantidad máxima de URLs base distintas (host:puerto) con JSON memorizado por foto.
+    private static final int MAX_VISTAS = 8;
+
+    private final CelulaRepository celulaRepository;
+    private final CelulaMapper celulaMapper;
+    private final ObjectMapper objectMapper;
+    private final Timer tiempoReconstruccionCompleta;
+    private final Timer tiempoReconstruccionIncremental;
+    private final AtomicReference<Snapshot> actual = new AtomicReference<>();
+    // Serializa las reconstrucciones. Es un lock y no synchronized porque adentro se consulta la base: con hilos
+    // virtuales (perfil "virtual"), bloquearse dentro de un synchronized retiene el hilo de plataforma en Java 21.
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    public CelulasEnMemoria(CelulaRepository celulaRepository, CelulaMapper celulaMapper, ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.celulaRepository = celulaRepository;
+        this.celulaMapper = celulaMapper;
+        this.objectMapper = objectMapper;
+        this.tiempoReconstruccionCompleta = Timer.builder("celulas.snapshot.reconstruccion")
+                .description("Tiempo de reconstrucción del listado de células en memoria")
+                .tag("tipo", "completa")
+                .register(meterRegistry);
+        this.tiempoReconstruccionIncremental = Timer.builder("celulas.snapshot.reconstruccion")
+                .description("Tiempo de reconstrucción del listado de células en memoria")
+                .tag("tipo", "incremental")
+                .register(meterRegistry);
+        Gauge.builder("celulas.snapshot.edad", this, CelulasEnMemoria::edadEnSegundos)
+                .description("Segundos desde que se armó la foto actual del listado de células")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // Filas de las células activas, ordenadas por id.
+    public List<CelulaFilaDTO> filas() {
+        return obtener().filas();
+    }
+
+    // Células activas a menos de radioKm de (lat, lng) que cumplen el filtro, de la más cercana a la más lejana.
+    public List<IndiceGeografico.Resultado<CelulaFilaDTO>> cercanas(double lat, double lng, double radioKm, int limite,
+                                                                   Predicate<CelulaFilaDTO> filtro) {
+        return obtener().indice().buscar(lat, lng, radioKm, limite, filtro);
+    }
+
+    // Grupos de células del mapa para un zoom, dentro del rectángulo (oeste, sur, este, norte).
+    public List<ClusterCelulasDTO> clusters(int zoom, double oeste, double sur, double este, double norte) {
+        Snapshot snapshot = obtener();
+        return snapshot.agrupaciones()
+                .computeIfAbsent(zoom, z -> AgrupacionCelulas.de(snapshot.filas(), z))
+                .en(oeste, sur, este, norte);
+    }
+
+    // Usuario -> célula activa de la que es líder o timoteo. Los que no están asignados no aparecen.
+    public Map<Long, AsignacionDTO> asignaciones() {
+        return obtener().asignaciones();
+    }
+
+    // JSON del listado completo (el mismo que produciría serializar la lista de CelulaResponseDTO). No modificar el array.
+    public byte[] json(String baseUrl) {
+        Snapshot snapshot = obtener();
+        Vista vista = snapshot.vistas().get(baseUrl);
+        if (vista != null) {
+            return vista.json();
+        }
+        if (snapshot.vistas().size() >= MAX_VISTAS) {
+            return armarVista(snapshot.filas(), baseUrl, null, Set.of()).json();
+        }
+        return snapshot.vistas().computeIfAbsent(baseUrl, b -> armarVista(snapshot.filas(), b, null, Set.of())).json();
+    }
+
+    // Antes que VersionesColecciones: la foto nueva tiene que estar lista antes de que cambie el ETag del listado.
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void registrarCambio(CambioEntidadEvent evento) {
+        if (evento.entidad() == CambioEntidadEvent.Entidad.USUARIO && evento.operacion() == CambioEntidadEvent.Operacion.ALTA) {
+            return; // Un usuario recién creado todavía no es líder ni timoteo de ninguna célula.
+        }
+        // Siempre con el lock, aunque todavía no haya foto: si obtener() la está armando con una consulta hecha antes
+        // del commit, el cambio espera a que termine y se aplica sobre ella. Sin foto y sin nadie armándola, la próxima
+        // lectura consulta la base después del commit y ya lo incluye.
+        escritura.lock();
+        try {
+            Snapshot anterior = actual.get();
+            if (anterior == null) {
+                return;
+            }
+            if (evento.id() == null) {
+                actual.set(null); // Cambiaron muchas a la vez (alta masiva): la próxima lectura arma la foto completa.
+                return;
+            }
+            actual.set(tiempoReconstruccionIncremental.record(() -> evento.entidad() == CambioEntidadEvent.Entidad.CELULA
+                    ? aplicarCambios(anterior, Set.of(evento.id()), () -> celulaRepository.buscarFilaAlta(evento.id()).stream().toList())
+                    : aplicarCambiosDeUsuario(anterior, evento.id())));
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private Snapshot obtener() {
+        Snapshot snapshot = actual.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        escritura.lock();
+        try {
+            snapshot = actual.get();
+            if (snapshot == null) {
+                snapshot = tiempoReconstruccionCompleta.record(
+                        () -> Snapshot.de(List.copyOf(celulaRepository.listarCelulasAlta()), new ConcurrentHashMap<>()));
+                actual.set(snapshot);
+            }
+            return snapshot;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Las filas afectadas son las que hoy referencian al usuario; las que dejaron de referenciarlo cambian por un evento de célula.
+    private Snapshot aplicarCambiosDeUsuario(Snapshot anterior, Long usuarioId) {
+        List<CelulaFilaDTO> actualizadas = celulaRepository.listarFilasPorUsuario(usuarioId);
+        Set<Long> ids = new HashSet<>();
+        for (CelulaFilaDTO fila : anterior.filas()) {
+            if (usuarioId.equals(fila.getLiderId()) || usuarioId.equals(fila.getTimoteoId())) {
+                ids.add(fila.getId());
+            }
+        }
+        actualizadas.forEach(fila -> ids.add(fila.getId()));
+        return aplicarCambios(anterior, ids, () -> actualizadas);
+    }
+
+    // ids: células que cambiaron. leerActuales: su estado actual en la base (las que ya no están activas no vienen).
+    private Snapshot aplicarCambios(Snapshot anterior, Set<Long> ids, Supplier<List<CelulaFilaDTO>> leerActuales) {
+        if (ids.isEmpty()) {
+            return anterior;
+        }
+        TreeMap<Long, CelulaFilaDTO> porId = new TreeMap<>();
+        for (CelulaFilaDTO fila : anterior.filas()) {
+            if (!ids.contains(fila.getId())) {
+                porId.put(fila.getId(), fila);
+            }
+        }
+        for (CelulaFilaDTO fila : leerActuales.get()) {
+            porId.put(fila.getId(), fila);
+        }
+        List<CelulaFilaDTO> filas = List.copyOf(porId.values());
+
+        // Se vuelven a armar las vistas ya pedidas para que la primera lectura después del cambio no tenga que serializar.
+        ConcurrentMap<String, Vista> vistas = new ConcurrentHashMap<>();
+        anterior.vistas().forEach((baseUrl, vista) -> vistas.put(baseUrl, armarVista(filas, baseUrl, vista, ids)));
+        return Snapshot.de(filas, vistas);
+    }
+
+    private Vista armarVista(List<CelulaFilaDTO> filas, String baseUrl, Vista anterior, Set<Long> cambiadas) {
+        Map<Long, byte[]> fragmentos = new HashMap<>(filas.size() * 2);
+        ByteArrayOutputStream json = new ByteArrayOutputStream(filas.size() * 512 + 2);
+        json.write('[');
+        for (CelulaFilaDTO fila : filas) {
+            byte[] fragmento = anterior != null && !cambiadas.contains(fila.getId()) ? anterior.fragmentos().get(fila.getId()) : null;
+            if (fragmento == null) {
+                fragmento = serializar(fila, baseUrl);
+            }
+            fragmentos.put(fila.getId(), fragmento);
+            if (json.size() > 1) {
+                json.write(',');
+            }
+            json.writeBytes(fragmento);
+        }
+        json.write(']');
+        return new Vista(fragmentos, json.toByteArray());
+    }
+
+    private byte[] serializar(CelulaFilaDTO fila, String baseUrl) {
+        try {
+            return objectMapper.writeValueAsBytes(celulaMapper.toResponseDTO(fila, baseUrl));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error serializando la célula " + fila.getId(), e);
+        }
+    }
+
+    private double edadEnSegundos() {
+        Snapshot snapshot = actual.get();
+        return snapshot == null ? 0 : (System.currentTimeMillis() - snapshot.generadoEn()) / 1000.0;
+    }
+
+    private record Snapshot(List<CelulaFilaDTO> filas, IndiceGeografico<CelulaFilaDTO> indice, Map<Long, AsignacionDTO> asignaciones,
+                            long generadoEn, ConcurrentMap<String, Vista> vistas, ConcurrentMap<Integer, AgrupacionCelulas> agrupaciones) {
+
+        static Snapshot de(List<CelulaFilaDTO> filas, ConcurrentMap<String, Vista> vistas) {
+            return new Snapshot(filas, IndiceGeografico.de(filas, CelulaFilaDTO::getLatitud, CelulaFilaDTO::getLongitud),
+                    asignacionesDe(filas), System.currentTimeMillis(), vistas, new ConcurrentHashMap<>());
+        }
+
+        // Si por datos viejos un usuario figura en dos células, queda la de menor id (antes la consulta fallaba).
+        private static Map<Long, AsignacionDTO> asignacionesDe(List<CelulaFilaDTO> filas) {
+            Map<Long, AsignacionDTO> asignaciones = new HashMap<>(filas.size() * 4);
+            for (CelulaFilaDTO fila : filas) {
+                if (fila.getLiderId() != null) {
+                    asignaciones.putIfAbsent(fila.getLiderId(), new AsignacionDTO(fila.getId(), fila.getNombre(), Usuario.Rol.LIDER));
+                }
+                if (fila.getTimoteoId() != null) {
+                    asignaciones.putIfAbsent(fila.getTimoteoId(), new AsignacionDTO(fila.getId(), fila.getNombre(), Usuario.Rol.TIMOTEO));
+                }
+            }
+            return Collections.unmodifiableMap(asignaciones);
+        }
+    }
+
+    // JSON de cada fila (para reutilizar en la próxima foto) y del listado completo, para una URL base.
+    private record Vista(Map<Long, byte[]> fragmentos, byte[] json) {
+    }
+}
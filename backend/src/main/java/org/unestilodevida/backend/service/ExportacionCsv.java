@@ -0,0 +1,112 @@
+package org.unestilodevida.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.unestilodevida.backend.util.EscritorCsv;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalTime;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+Exportación de las células activas a CSV (GET /celulas/export.csv), en el mismo formato que acepta la importación.
+
+Las filas van del cursor JDBC a la respuesta sin armar listas ni entidades: la consulta se lee de a
+exportacion.filas-por-lectura filas (fetch size) y cada una se escribe apenas llega. PostgreSQL solo respeta el fetch
+size dentro de una transacción; por eso se abre una de solo lectura. La memoria no depende de la cantidad de células.
+
+El costo es que la conexión del pool queda tomada mientras dura la descarga, y la descarga va al ritmo del cliente:
+uno lento la retiene tanto como tarde en leer. Para que eso no deje al resto de la aplicación sin conexiones:
+- como mucho exportacion.simultaneas (2) exportaciones a la vez; las demás reciben 503 en el momento, sin esperar;
+- cada una dura como mucho exportacion.segundos-maximos (120): es el timeout de la transacción (y de la consulta) y,
+  mientras se escriben las filas, se corta al vencer aunque la base ya haya respondido. El cliente recibe entonces un
+  archivo incompleto.
+Armar el archivo entero antes de enviarlo liberaría la conexión enseguida, pero a cambio de tener todas las células en
+memoria o en disco.
+*/
+@Service
+public class ExportacionCsv {
+
+    private static final String SELECT_CELULAS = "SELECT c.nombre, c.dia, c.genero, c.hora_inicio, c.direccion, c.latitud, c.longitud," +
+            " c.descripcion, c.telefono, l.email, t.email" +
+            " FROM celula c LEFT JOIN usuario l ON l.id = c.lider_id LEFT JOIN usuario t ON t.id = c.timoteo_id" +
+            " WHERE c.fecha_baja IS NULL ORDER BY c.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate soloLectura;
+    private final int filasPorLectura;
+    private final int segundosMaximos;
+    private final Semaphore exportaciones;
+
+    public ExportacionCsv(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          @Value("${exportacion.filas-por-lectura:500}") int filasPorLectura,
+                          @Value("${exportacion.simultaneas:2}") int simultaneas,
+                          @Value("${exportacion.segundos-maximos:120}") int segundosMaximos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.soloLectura = new TransactionTemplate(transactionManager);
+        this.soloLectura.setReadOnly(true);
+        this.soloLectura.setTimeout(segundosMaximos);
+        this.filasPorLectura = filasPorLectura;
+        this.segundosMaximos = segundosMaximos;
+        this.exportaciones = new Semaphore(simultaneas);
+    }
+
+    // Devuelve la cantidad de células exportadas.
+    public long exportarCelulas(OutputStream salida) throws IOException {
+        if (!exportaciones.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Hay otras exportaciones en curso, intente nuevamente");
+        }
+        try {
+            return exportar(salida);
+        } finally {
+            exportaciones.release();
+        }
+    }
+
+    private long exportar(OutputStream salida) throws IOException {
+        long vence = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundosMaximos);
+        EscritorCsv csv = new EscritorCsv(salida);
+        csv.fila("nombre", "dia", "genero", "horaInicio", "direccion", "latitud", "longitud", "descripcion", "telefono",
+                "emailLider", "emailTimoteo");
+        long[] filas = {0};
+        try {
+            soloLectura.executeWithoutResult(estado -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_CELULAS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(filasPorLectura);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                if (System.nanoTime() - vence > 0) {
+                    throw new TransactionTimedOutException("La exportación superó los " + segundosMaximos + " segundos");
+                }
+                try {
+                    LocalTime hora = rs.getObject(4, LocalTime.class);
+                    csv.texto(rs.getString(1)).texto(rs.getString(2)).texto(rs.getString(3))
+                            .texto(hora != null ? hora.toString() : null)
+                            .texto(rs.getString(5))
+                            .numero((Number) rs.getObject(6)).numero((Number) rs.getObject(7))
+                            .texto(rs.getString(8)).texto(rs.getString(9)).texto(rs.getString(10)).texto(rs.getString(11))
+                            .finFila();
+                    filas[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // el cliente cortó la descarga
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        csv.flush();
+        return filas[0];
+    }
+}
@@ -0,0 +1,27 @@
+package org.unestilodevida.backend.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/*
+Almacenamiento de las fotos de perfil. El resto de la aplicación solo conoce el nombre de archivo que
+devuelve guardar(); dónde y cómo se guarda (disco local, otro servidor, etc.) depende de la implementación.
+*/
+public interface FotoPerfilStorage {
+
+    // Carpeta dentro del almacenamiento donde quedan las miniaturas (avatares) de cada foto.
+    String CARPETA_MINIATURAS = "miniaturas/";
+
+    // Guarda la foto y devuelve el nombre de archivo con el que se la identifica (es lo que se guarda en Usuario.fotoPerfil).
+    String guardar(MultipartFile foto);
+
+    // Elimina la foto y sus variantes. No falla si ya no existe.
+    void eliminar(String nombreArchivo);
+
+    // Genera la miniatura de una foto guardada si todavía no existe. Devuelve false si la foto no existe o no se pudo leer.
+    boolean generarMiniatura(String nombreArchivo);
+
+    // Nombre (relativo a la carpeta de fotos) de la miniatura de una foto.
+    static String nombreMiniatura(String nombreArchivo) {
+        return CARPETA_MINIATURAS + nombreArchivo + ".jpg";
+    }
+}
@@ -0,0 +1,224 @@
+package org.unestilodevida.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.unestilodevida.backend.evento.FotoPerfilEliminadaEvent;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Guarda las fotos de perfil en una carpeta del disco (fotos.directorio, por defecto usuarios_fotos_perfil/).
+
+- La subida se escribe en un archivo temporal dentro de la misma carpeta y después se mueve de forma atómica,
+  así nunca se sirve una foto a medio escribir.
+- La miniatura (avatar JPEG de fotos.miniatura.tamanio px) se genera en segundo plano en un pool acotado de hilos,
+  para que el tiempo de la request no dependa del tamaño de la imagen. Si la cola del pool está llena, la foto queda
+  en miniaturasPendientes y se vuelve a encolar cada vez que termina otra miniatura. Si la imagen no se puede leer,
+  la miniatura no existe y el frontend muestra la foto original.
+- Las bajas se hacen en el momento, sin pasar por el pool: borrar dos archivos es barato y no puede quedar descartado
+  porque la cola esté llena de miniaturas. Se publica FotoPerfilEliminadaEvent para que se descarten las copias en
+  memoria (FotoPerfilResourceResolver).
+*/
+@Service
+public class FotoPerfilStorageLocal implements FotoPerfilStorage {
+
+    private final Path directorio;
+    private final int tamanioMiniatura;
+    private final ThreadPoolExecutor executor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Set<String> miniaturasPendientes = ConcurrentHashMap.newKeySet();
+
+    public FotoPerfilStorageLocal(@Value("${fotos.directorio:usuarios_fotos_perfil}") String directorio,
+                                  @Value("${fotos.miniatura.tamanio:256}") int tamanioMiniatura,
+                                  @Value("${fotos.hilos:2}") int hilos,
+                                  @Value("${fotos.cola:100}") int cola,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        this.directorio = Paths.get(directorio).toAbsolutePath().normalize();
+        this.tamanioMiniatura = tamanioMiniatura;
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(cola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "fotos-perfil-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                (tarea, pool) -> {
+                    if (!pool.isShutdown() && tarea instanceof TareaMiniatura miniatura) {
+                        miniaturasPendientes.add(miniatura.nombreArchivo());
+                        System.err.println("Cola de miniaturas llena, queda pendiente la de " + miniatura.nombreArchivo());
+                    }
+                });
+    }
+
+    @Override
+    public String guardar(MultipartFile foto) {
+        String tipo = foto.getContentType();
+        if (tipo == null || !tipo.startsWith("image/")) {
+            throw new IllegalArgumentException("El archivo debe ser una imagen válida");
+        }
+
+        String original = foto.getOriginalFilename() != null ? foto.getOriginalFilename() : "foto";
+        String nombreArchivo = UUID.randomUUID() + "_" + Paths.get(original).getFileName().toString().replaceAll("\\s", "_");
+        Path destino = directorio.resolve(nombreArchivo);
+        try {
+            Files.createDirectories(directorio);
+            Path temporal = Files.createTempFile(directorio, ".subida-", ".tmp");
+            try {
+                // transferTo mueve el archivo temporal del multipart cuando puede, o copia en streaming (sin cargarlo en memoria).
+                foto.transferTo(temporal);
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error al guardar la foto de perfil", e);
+        }
+
+        executor.execute(new TareaMiniatura(nombreArchivo));
+        return nombreArchivo;
+    }
+
+    @Override
+    public void eliminar(String nombreArchivo) {
+        if (nombreArchivo == null || nombreArchivo.isBlank()) {
+            return;
+        }
+        miniaturasPendientes.remove(nombreArchivo);
+        try {
+            Files.deleteIfExists(directorio.resolve(nombreArchivo));
+            Files.deleteIfExists(directorio.resolve(FotoPerfilStorage.nombreMiniatura(nombreArchivo)));
+        } catch (IOException e) {
+            System.err.println("No se pudo eliminar la foto " + nombreArchivo + ": " + e.getMessage());
+        }
+        eventPublisher.publishEvent(new FotoPerfilEliminadaEvent(nombreArchivo));
+    }
+
+    // Cantidad de miniaturas que esperan lugar en la cola.
+    public int miniaturasPendientes() {
+        return miniaturasPendientes.size();
+    }
+
+    // Al terminar una miniatura se libera un lugar en la cola: se lo ocupa con una pendiente, si hay.
+    private void encolarPendiente() {
+        Iterator<String> it = miniaturasPendientes.iterator();
+        if (it.hasNext()) {
+            String nombreArchivo = it.next();
+            if (miniaturasPendientes.remove(nombreArchivo)) {
+                executor.execute(new TareaMiniatura(nombreArchivo));
+            }
+        }
+    }
+
+    @Override
+    public boolean generarMiniatura(String nombreArchivo) {
+        Path origen = directorio.resolve(nombreArchivo).normalize();
+        if (!origen.startsWith(directorio) || !Files.isRegularFile(origen)) {
+            return false;
+        }
+        if (Files.exists(directorio.resolve(FotoPerfilStorage.nombreMiniatura(nombreArchivo)))) {
+            return true;
+        }
+        try {
+            BufferedImage original = ImageIO.read(origen.toFile());
+            if (original == null) {
+                return false; // formato que ImageIO no sabe leer: se sirve el original
+            }
+            double escala = Math.min(1.0, (double) tamanioMiniatura / Math.max(original.getWidth(), original.getHeight()));
+            int ancho = Math.max(1, (int) Math.round(original.getWidth() * escala));
+            int alto = Math.max(1, (int) Math.round(original.getHeight() * escala));
+
+            BufferedImage miniatura = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = miniatura.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(original, 0, 0, ancho, alto, Color.WHITE, null);
+            } finally {
+                g.dispose();
+            }
+
+            Path destino = directorio.resolve(FotoPerfilStorage.nombreMiniatura(nombreArchivo));
+            Files.createDirectories(destino.getParent());
+            Path temporal = Files.createTempFile(destino.getParent(), ".miniatura-", ".tmp");
+            try {
+                escribirJpeg(miniatura, temporal);
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+            if (!Files.exists(origen)) {
+                Files.deleteIfExists(destino); // la foto se eliminó mientras se generaba la miniatura
+                return false;
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo generar la miniatura de " + nombreArchivo + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void escribirJpeg(BufferedImage imagen, Path destino) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam parametros = writer.getDefaultWriteParam();
+        parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        parametros.setCompressionQuality(0.85f);
+        try (ImageOutputStream salida = ImageIO.createImageOutputStream(destino.toFile())) {
+            writer.setOutput(salida);
+            writer.write(null, new IIOImage(imagen, null, null), parametros);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // Tarea del pool; lleva el nombre de archivo para que el rechazo sepa qué miniatura quedó pendiente.
+    private class TareaMiniatura implements Runnable {
+        private final String nombreArchivo;
+
+        TareaMiniatura(String nombreArchivo) {
+            this.nombreArchivo = nombreArchivo;
+        }
+
+        String nombreArchivo() {
+            return nombreArchivo;
+        }
+
+        @Override
+        public void run() {
+            try {
+                generarMiniatura(nombreArchivo);
+            } finally {
+                encolarPendiente();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,227 @@
+package org.unestilodevida.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.unestilodevida.backend.dto.CelulaDTO;
+import org.unestilodevida.backend.dto.ResultadoImportacionDTO;
+import org.unestilodevida.backend.dto.ResultadoLoteDTO;
+import org.unestilodevida.backend.dto.UsuarioDTO;
+import org.unestilodevida.backend.repository.UsuarioRepository;
+import org.unestilodevida.backend.util.EscritorCsv;
+import org.unestilodevida.backend.util.LectorCsv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+Importación de células y usuarios desde un CSV (la planilla con la que se mantiene la lista de células).
+
+El archivo se lee fila por fila y se procesa en lotes de importacion.filas-por-lote filas: cada lote se valida y se
+inserta con el alta masiva (CelulaService.createCelulas / UsuarioService.createUsuarios), en su propia transacción.
+Así la memoria no depende del tamaño del archivo y un error en una fila no descarta las demás; si la importación se
+corta a mitad de camino, los lotes anteriores ya quedaron confirmados.
+
+Columnas (el orden no importa, el encabezado sí; no distingue mayúsculas):
+- Células: nombre, dia, genero, horaInicio (HH:mm), direccion, telefono, emailLider y, opcionales, latitud, longitud,
+  descripcion, emailTimoteo. Es el mismo formato que genera GET /celulas/export.csv.
+- Usuarios: nombre, apellido, email, telefono, clave, rol.
+*/
+@Service
+public class ImportacionCsv {
+
+    // Cantidad máxima de filas con errores detalladas en la respuesta; el resto solo se cuenta.
+    private static final int MAX_ERRORES_INFORMADOS = 1000;
+    private static final List<String> COLUMNAS_CELULA = List.of("nombre", "dia", "genero", "horainicio", "direccion", "telefono", "emaillider");
+    private static final List<String> COLUMNAS_USUARIO = List.of("nombre", "apellido", "email", "telefono", "clave", "rol");
+
+    private final CelulaService celulaService;
+    private final UsuarioService usuarioService;
+    private final UsuarioRepository usuarioRepository;
+    private final int filasPorLote;
+
+    public ImportacionCsv(CelulaService celulaService, UsuarioService usuarioService, UsuarioRepository usuarioRepository,
+                          @Value("${importacion.filas-por-lote:500}") int filasPorLote) {
+        this.celulaService = celulaService;
+        this.usuarioService = usuarioService;
+        this.usuarioRepository = usuarioRepository;
+        this.filasPorLote = filasPorLote;
+    }
+
+    public ResultadoImportacionDTO importarCelulas(InputStream csv) {
+        return importar(csv, COLUMNAS_CELULA, this::procesarCelulas);
+    }
+
+    public ResultadoImportacionDTO importarUsuarios(InputStream csv) {
+        return importar(csv, COLUMNAS_USUARIO, this::procesarUsuarios);
+    }
+
+    private ResultadoImportacionDTO importar(InputStream csv, List<String> obligatorias,
+                                             Function<List<Fila>, List<ResultadoLoteDTO>> procesarLote) {
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+        try (LectorCsv lector = LectorCsv.de(csv)) {
+            Map<String, Integer> columnas = leerEncabezado(lector, obligatorias);
+            List<Fila> lote = new ArrayList<>(filasPorLote);
+            List<String> valores;
+            while ((valores = lector.leer()) != null) {
+                lote.add(new Fila(lector.getLinea(), columnas, valores));
+                if (lote.size() == filasPorLote) {
+                    registrar(lote, procesarLote.apply(lote), resultado);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                registrar(lote, procesarLote.apply(lote), resultado);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error leyendo el CSV", e);
+        } catch (IllegalArgumentException e) {
+            // Archivo mal formado (comillas sin cerrar, fila demasiado larga): se informa hasta dónde se llegó.
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage() + ". Filas procesadas antes del error: "
+                    + resultado.getFilas() + " (" + resultado.getCreadas() + " creadas)");
+        }
+        return resultado;
+    }
+
+    private static Map<String, Integer> leerEncabezado(LectorCsv lector, List<String> obligatorias) throws IOException {
+        List<String> encabezado = lector.leer();
+        if (encabezado == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El archivo está vacío");
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.size(); i++) {
+            columnas.putIfAbsent(encabezado.get(i).trim().toLowerCase(), i);
+        }
+        List<String> faltantes = obligatorias.stream().filter(columna -> !columnas.containsKey(columna)).toList();
+        if (!faltantes.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Faltan columnas en el encabezado: " + String.join(", ", faltantes));
+        }
+        return columnas;
+    }
+
+    private static void registrar(List<Fila> lote, List<ResultadoLoteDTO> resultados, ResultadoImportacionDTO resultado) {
+        for (int i = 0; i < lote.size(); i++) {
+            resultado.setFilas(resultado.getFilas() + 1);
+            List<String> errores = resultados.get(i).getErrores();
+            if (errores.isEmpty()) {
+                resultado.setCreadas(resultado.getCreadas() + 1);
+                continue;
+            }
+            resultado.setConErrores(resultado.getConErrores() + 1);
+            if (resultado.getErrores().size() < MAX_ERRORES_INFORMADOS) {
+                ResultadoImportacionDTO.ErrorFila error = new ResultadoImportacionDTO.ErrorFila();
+                error.setLinea(lote.get(i).linea());
+                error.setErrores(errores);
+                resultado.getErrores().add(error);
+            }
+        }
+    }
+
+    // Convierte las filas a CelulaDTO (el líder y el timoteo se buscan por email, todos los del lote en una consulta) y
+    // crea las que se pudieron convertir. Devuelve un resultado por fila, en el mismo orden.
+    private List<ResultadoLoteDTO> procesarCelulas(List<Fila> filas) {
+        Set<String> emails = new HashSet<>();
+        for (Fila fila : filas) {
+            Optional.ofNullable(fila.valor("emaillider")).ifPresent(emails::add);
+            Optional.ofNullable(fila.valor("emailtimoteo")).ifPresent(emails::add);
+        }
+        Map<String, Long> idsPorEmail = emails.isEmpty() ? Map.of() : usuarioRepository.findIdsPorEmail(emails).stream()
+                .collect(Collectors.toMap(UsuarioRepository.UsuarioIdEmail::getEmail, UsuarioRepository.UsuarioIdEmail::getId));
+
+        ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[filas.size()];
+        List<Integer> convertidas = new ArrayList<>();
+        List<CelulaDTO> celulas = new ArrayList<>();
+        for (int i = 0; i < filas.size(); i++) {
+            Fila fila = filas.get(i);
+            List<String> errores = new ArrayList<>();
+            CelulaDTO dto = new CelulaDTO();
+            dto.setNombre(fila.valor("nombre"));
+            dto.setDia(fila.valor("dia"));
+            dto.setGenero(fila.valor("genero"));
+            dto.setDireccion(fila.valor("direccion"));
+            dto.setDescripcion(fila.valor("descripcion"));
+            dto.setTelefono(fila.valor("telefono"));
+            dto.setHoraInicio(fila.convertir("horainicio", LocalTime::parse, "Hora de inicio inválida (HH:mm): ", errores));
+            dto.setLatitud(fila.convertir("latitud", ImportacionCsv::decimal, "Latitud inválida: ", errores));
+            dto.setLongitud(fila.convertir("longitud", ImportacionCsv::decimal, "Longitud inválida: ", errores));
+            dto.setLiderId(usuarioPorEmail(fila.valor("emaillider"), idsPorEmail, errores));
+            dto.setTimoteoId(usuarioPorEmail(fila.valor("emailtimoteo"), idsPorEmail, errores));
+            if (errores.isEmpty()) {
+                convertidas.add(i);
+                celulas.add(dto);
+            } else {
+                resultados[i] = ResultadoLoteDTO.rechazado(i, errores);
+            }
+        }
+        List<ResultadoLoteDTO> creadas = celulas.isEmpty() ? List.of() : celulaService.createCelulas(celulas);
+        for (int j = 0; j < creadas.size(); j++) {
+            resultados[convertidas.get(j)] = creadas.get(j);
+        }
+        return Arrays.asList(resultados);
+    }
+
+    private List<ResultadoLoteDTO> procesarUsuarios(List<Fila> filas) {
+        List<UsuarioDTO> usuarios = new ArrayList<>(filas.size());
+        for (Fila fila : filas) {
+            UsuarioDTO dto = new UsuarioDTO();
+            dto.setNombre(fila.valor("nombre"));
+            dto.setApellido(fila.valor("apellido"));
+            dto.setEmail(fila.valor("email"));
+            dto.setTelefono(fila.valor("telefono"));
+            dto.setClave(fila.valor("clave"));
+            dto.setRol(fila.valor("rol"));
+            usuarios.add(dto);
+        }
+        return usuarioService.createUsuarios(usuarios);
+    }
+
+    private static Long usuarioPorEmail(String email, Map<String, Long> idsPorEmail, List<String> errores) {
+        if (email == null) {
+            return null;
+        }
+        Long id = idsPorEmail.get(email);
+        if (id == null) {
+            errores.add("No existe un usuario con email " + email);
+        }
+        return id;
+    }
+
+    // Acepta coma decimal (las planillas en español exportan "-34,6037").
+    private static Double decimal(String valor) {
+        return Double.valueOf(valor.replace(',', '.'));
+    }
+
+    // Una fila del CSV. Los valores vacíos se tratan como null y se quita el apóstrofo con el que la exportación protege
+    // los textos que empiezan con =, +, - o @.
+    private record Fila(long linea, Map<String, Integer> columnas, List<String> valores) {
+
+        String valor(String columna) {
+            Integer indice = columnas.get(columna);
+            if (indice == null || indice >= valores.size()) {
+                return null;
+            }
+            String valor = valores.get(indice).trim();
+            return valor.isEmpty() ? null : EscritorCsv.sinProteccion(valor);
+        }
+
+        <T> T convertir(String columna, Function<String, T> conversion, String mensaje, List<String> errores) {
+            String valor = valor(columna);
+            if (valor == null) {
+                return null;
+            }
+            try {
+                return conversion.apply(valor);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                errores.add(mensaje + valor);
+                return null;
+            }
+        }
+    }
+}
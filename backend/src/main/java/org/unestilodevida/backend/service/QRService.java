@@ -0,0 +1,90 @@
+package org.unestilodevida.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.unestilodevida.backend.util.QRUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+Genera (a demanda) el QR de WhatsApp de cada célula y lo mantiene en una cache acotada en memoria.
+El QR depende solo del enlace, así que el enlace es la clave de la cache y también la base del ETag.
+*/
+@Service
+public class QRService {
+
+    public static final int TAMANIO_QR = 200;
+    // Se incrementa si cambia la forma de dibujar el QR, para que los ETag (y las URLs versionadas) cambien también.
+    private static final int VERSION_RENDER = 2;
+
+    public enum Formato {
+        PNG, SVG
+    }
+
+    private final Map<String, QR> cache;
+
+    public QRService(@Value("${celulas.qr.cache.max-entradas:500}") int maxEntradas) {
+        // LinkedHashMap en orden de acceso = LRU; se descarta el QR menos usado al superar el máximo.
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QR> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    public QR obtenerQR(String enlace, Formato formato) {
+        String clave = formato + ":" + enlace;
+        synchronized (cache) {
+            QR qr = cache.get(clave);
+            if (qr != null) {
+                return qr;
+            }
+        }
+        // Se renderiza fuera del lock; si dos hilos generan el mismo QR a la vez, el resultado es idéntico.
+        QR qr = new QR(renderizar(enlace, formato), calcularEtag(enlace, formato));
+        synchronized (cache) {
+            cache.put(clave, qr);
+        }
+        return qr;
+    }
+
+    // ETag fuerte derivado del enlace (el PNG es determinístico para un mismo enlace y tamaño).
+    public String calcularEtag(String enlace) {
+        return calcularEtag(enlace, Formato.PNG);
+    }
+
+    public String calcularEtag(String enlace, Formato formato) {
+        String base = calcularHash(enlace);
+        return formato == Formato.PNG ? base : base + "-" + formato.name().toLowerCase();
+    }
+
+    private String calcularHash(String enlace) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((VERSION_RENDER + ":" + TAMANIO_QR + ":" + enlace).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] renderizar(String enlace, Formato formato) {
+        try {
+            if (formato == Formato.SVG) {
+                return QRUtils.generarQRSvg(enlace, TAMANIO_QR, TAMANIO_QR).getBytes(StandardCharsets.UTF_8);
+            }
+            return QRUtils.generarQR(enlace, TAMANIO_QR, TAMANIO_QR);
+        } catch (Exception e) {
+            throw new IllegalStateException("Error generando QR de WhatsApp: " + e.getMessage(), e);
+        }
+    }
+
+    public record QR(byte[] contenido, String etag) {
+    }
+}
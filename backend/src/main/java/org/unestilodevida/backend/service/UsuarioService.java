@@ -1,44 +1,70 @@
 package org.unestilodevida.backend.service;
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import org.unestilodevida.backend.auth.AuthResponse;
+import org.unestilodevida.backend.auth.RefreshTokenService;
+import org.unestilodevida.backend.auth.VerificadorClaves;
 import org.unestilodevida.backend.dto.ClaveUpdateDTO;
+import org.unestilodevida.backend.dto.ResultadoLoteDTO;
 import org.unestilodevida.backend.dto.UsuarioDTO;
 import org.unestilodevida.backend.dto.UsuarioResponseDTO;
+import org.unestilodevida.backend.dto.UsuarioResumenDTO;
 import org.unestilodevida.backend.dto.UsuarioUpdateDTO;
+import org.unestilodevida.backend.evento.CambioEntidadEvent;
 import org.unestilodevida.backend.exception.UsuarioYaExisteException;
 import org.unestilodevida.backend.jwt.JwtService;
+import org.unestilodevida.backend.jwt.JwtTokenCache;
+import org.unestilodevida.backend.jwt.UsuarioAutenticado;
 import org.unestilodevida.backend.model.Usuario;
+import org.unestilodevida.backend.repository.AltasPorLoteRepository;
 import org.unestilodevida.backend.repository.CelulaRepository;
 import org.unestilodevida.backend.repository.UsuarioRepository;
+import org.unestilodevida.backend.util.UrlBase;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 
 public class UsuarioService {
+    private static final int MAX_ITEMS_LOTE = 1000;
+
     private final UsuarioRepository usuarioRepository;
     private final CelulaRepository celulaRepository;
     @Autowired
-    private HttpServletRequest request;
-    @Autowired
     JwtService jwtService;// Se encarga de crear el token cuando el usuario se crea con exito.
     @Autowired
     PasswordEncoder passwordEncoder;
+    @Autowired
+    FotoPerfilStorage fotoPerfilStorage;
+    @Autowired
+    JwtTokenCache tokenCache; // Tokens ya validados; hay que invalidarlos cuando cambian los datos del usuario.
+    @Autowired
+    RefreshTokenService refreshTokenService; // Para cerrar las sesiones abiertas al dar de baja o cambiar la clave.
+    @Autowired
+    ApplicationEventPublisher eventPublisher; // Avisa de altas, cambios y bajas (versiones de los listados, caches).
+    @Autowired
+    AltasPorLoteRepository altasPorLoteRepository; // Inserciones en batch para /usuarios/bulk.
+    @Autowired
+    VerificadorClaves verificadorClaves; // Hashea las claves del alta masiva en paralelo.
+    @Autowired
+    Validator validator;
+    @Autowired
+    TransactionTemplate transactionTemplate;
 
     public UsuarioService (UsuarioRepository usuarioRepository, CelulaRepository celulaRepository) {
         this.usuarioRepository=usuarioRepository;
@@ -63,7 +89,11 @@ public class UsuarioService {
 
         // ✅ Actualizar con la nueva clave
         usuario.setClave(passwordEncoder.encode(datos.getNuevaClave()));
+        usuario.incrementarVersionSeguridad();
         usuarioRepository.save(usuario);
+        tokenCache.invalidarUsuario(usuario.getEmail());
+        refreshTokenService.cerrarSesiones(usuario); // El frontend vuelve a pedir login después de cambiar la clave
+        publicarCambio(usuario.getId(), CambioEntidadEvent.Operacion.MODIFICACION);
 
         return ResponseEntity.ok("Contraseña actualizada correctamente");
     }
@@ -87,37 +117,101 @@ public class UsuarioService {
 
             // Si se envio foto de perfil, entonces...
             if (foto != null && !foto.isEmpty()) {
-                String tipo = foto.getContentType();
-                if (tipo == null || !tipo.startsWith("image/")) {
-                    throw new IllegalArgumentException("El archivo debe ser una imagen válida");
-                }
-                String carpeta = "usuarios_fotos_perfil/";
-                File directorio = new File(carpeta);
-                // Si no existe crea la carpeta
-                if (!directorio.exists()) {
-                    directorio.mkdirs();
-                }
-
-                String nombreArchivo = UUID.randomUUID() + "_" + foto.getOriginalFilename().replaceAll(" ", "_");
-                Path ruta = Paths.get(carpeta + nombreArchivo);
-                try {
-                    Files.copy(foto.getInputStream(), ruta, StandardCopyOption.REPLACE_EXISTING);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-
-                usuario.setFotoPerfil(nombreArchivo);
+                usuario.setFotoPerfil(fotoPerfilStorage.guardar(foto));
             }
 
             // Guardar en la base de datos
              usuarioRepository.save(usuario);
+        publicarCambio(usuario.getId(), CambioEntidadEvent.Operacion.ALTA);
         return  AuthResponse.builder()
                 .token(jwtService.getToken(usuario))
                 .build();
     }
 
-    public List<UsuarioResponseDTO> getUsuarios() {
-        String baseUrl = request.getScheme() + "://" + request.getServerName() + ":" + request.getServerPort()+"/usuarios_fotos_perfil/";
+    // Alta de varios usuarios (sin foto). Se validan todos primero; los que tienen errores se informan y no se crean.
+    // BCrypt es lo más caro, así que las claves se hashean en paralelo y antes de abrir la transacción, que solo hace
+    // el INSERT en batch. El resultado de cada usuario vuelve en el mismo orden que se recibió.
+    public List<ResultadoLoteDTO> createUsuarios(List<UsuarioDTO> usuariosDTO) {
+        if (usuariosDTO.size() > MAX_ITEMS_LOTE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Se pueden crear hasta " + MAX_ITEMS_LOTE + " usuarios por vez");
+        }
+
+        // Emails ya registrados de todo el lote en una sola consulta
+        Set<String> emails = usuariosDTO.stream()
+                .filter(dto -> dto != null && dto.getEmail() != null)
+                .map(UsuarioDTO::getEmail)
+                .collect(Collectors.toSet());
+        Set<String> registrados = emails.isEmpty() ? Set.of() : new HashSet<>(usuarioRepository.findEmailsRegistrados(emails));
+
+        ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[usuariosDTO.size()];
+        List<Integer> indicesValidos = new ArrayList<>();
+        List<Usuario> validos = new ArrayList<>();
+        Set<String> emailsEnLote = new HashSet<>();
+        for (int i = 0; i < usuariosDTO.size(); i++) {
+            UsuarioDTO dto = usuariosDTO.get(i);
+            List<String> errores = new ArrayList<>();
+            Usuario.Rol rol = null;
+            if (dto == null) {
+                errores.add("El usuario no puede ser null");
+            } else {
+                for (ConstraintViolation<UsuarioDTO> violacion : validator.validate(dto)) {
+                    errores.add(violacion.getMessage());
+                }
+                if (dto.getEmail() == null || dto.getEmail().isBlank()) {
+                    errores.add("El email es obligatorio");
+                } else if (registrados.contains(dto.getEmail()) || !emailsEnLote.add(dto.getEmail())) {
+                    errores.add("El email ya se encuentra registrado: " + dto.getEmail());
+                }
+                if (dto.getClave() == null) {
+                    errores.add("La clave es obligatoria");
+                }
+                try {
+                    rol = Usuario.Rol.valueOf(String.valueOf(dto.getRol()).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    errores.add("Rol inválido: " + dto.getRol());
+                }
+            }
+            if (!errores.isEmpty()) {
+                resultados[i] = ResultadoLoteDTO.rechazado(i, errores);
+                continue;
+            }
+            validos.add(Usuario.builder()
+                    .nombre(dto.getNombre())
+                    .apellido(dto.getApellido())
+                    .email(dto.getEmail())
+                    .telefono(dto.getTelefono())
+                    .clave(dto.getClave())
+                    .rol(rol)
+                    .build());
+            indicesValidos.add(i);
+        }
+
+        List<String> hashes = verificadorClaves.hashear(validos.stream().map(Usuario::getClave).toList());
+        for (int j = 0; j < validos.size(); j++) {
+            validos.get(j).setClave(hashes.get(j));
+        }
+
+        List<Long> ids;
+        try {
+            ids = transactionTemplate.execute(estado -> {
+                List<Long> generados = altasPorLoteRepository.insertarUsuarios(validos);
+                if (!generados.isEmpty()) {
+                    publicarCambio(null, CambioEntidadEvent.Operacion.ALTA); // un solo aviso para todo el lote
+                }
+                return generados;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Otro request registró alguno de los emails entre la verificación y el INSERT; no se crea ninguno.
+            throw new UsuarioYaExisteException("Alguno de los emails se registró mientras se procesaba el lote, intente nuevamente");
+        }
+        for (int j = 0; j < ids.size(); j++) {
+            resultados[indicesValidos.get(j)] = ResultadoLoteDTO.creado(indicesValidos.get(j), ids.get(j));
+        }
+        return Arrays.asList(resultados);
+    }
+
+    public List<UsuarioResponseDTO> getUsuarios(String baseUrl) {
+        String urlFotos = baseUrl + UrlBase.FOTOS_PERFIL;
 
         return usuarioRepository.findAll().stream()
                 .map(u -> {
@@ -130,7 +224,8 @@ public class UsuarioService {
                     dto.setRol(u.getRol().toString());
 
                     if (u.getFotoPerfil() != null) {
-                        dto.setFotoPerfil(baseUrl + u.getFotoPerfil());
+                        dto.setFotoPerfil(urlFotos + u.getFotoPerfil());
+                        dto.setFotoPerfilMiniatura(urlFotos + FotoPerfilStorage.nombreMiniatura(u.getFotoPerfil()));
                     }
 
                     if (u.getFechaBaja() !=null) {
@@ -142,9 +237,8 @@ public class UsuarioService {
                 .collect(Collectors.toList());
     }
 
-    public Optional<UsuarioResponseDTO> getUsuarioById(Long id) {
-        String baseUrl = String.format("%s://%s:%d/usuarios_fotos_perfil/",
-                request.getScheme(), request.getServerName(), request.getServerPort());
+    public Optional<UsuarioResponseDTO> getUsuarioById(Long id, String baseUrl) {
+        String urlFotos = baseUrl + UrlBase.FOTOS_PERFIL;
 
         return usuarioRepository.findById(id)
                 .map(u -> {
@@ -156,7 +250,8 @@ public class UsuarioService {
                     dto.setTelefono(u.getTelefono());
                     dto.setRol(u.getRol().toString());
                     if (u.getFotoPerfil() != null) {
-                        dto.setFotoPerfil(baseUrl + u.getFotoPerfil());
+                        dto.setFotoPerfil(urlFotos + u.getFotoPerfil());
+                        dto.setFotoPerfilMiniatura(urlFotos + FotoPerfilStorage.nombreMiniatura(u.getFotoPerfil()));
                     }
                     if (u.getFechaBaja() !=null) {
                         dto.setFechaBaja(u.getFechaBaja());
@@ -177,16 +272,19 @@ public class UsuarioService {
         return usuarioRepository.findByEmail(email);
     }
 
-    public List<Usuario> getLideres() {
-        return usuarioRepository.findByRol(Usuario.Rol.LIDER);
+    public List<UsuarioResumenDTO> getLideres() {
+        return usuarioRepository.listarPorRol(Usuario.Rol.LIDER);
     }
 
-    public List<Usuario> getTimoteos() {
-        return usuarioRepository.findByRol(Usuario.Rol.TIMOTEO);
+    public List<UsuarioResumenDTO> getTimoteos() {
+        return usuarioRepository.listarPorRol(Usuario.Rol.TIMOTEO);
     }
 
+    // MatrizPermisos ya dejó pasar solo a un ADMIN o al mismo usuario; quien edita sus propios datos no puede cambiar
+    // su rol ni darse de baja.
     @Transactional
-    public Optional<UsuarioResponseDTO> updateUsuario(Long id, UsuarioUpdateDTO dto, MultipartFile foto) {
+    public Optional<UsuarioResponseDTO> updateUsuario(Long id, UsuarioUpdateDTO dto, MultipartFile foto, String baseUrl,
+                                                      UsuarioAutenticado editor) {
 
         Optional<Usuario> usuarioOpt = usuarioRepository.findById(id);
         if (usuarioOpt.isEmpty()) {
@@ -194,6 +292,7 @@ public class UsuarioService {
         }
 
         Usuario usuario = usuarioOpt.get();
+        String emailAnterior = usuario.getEmail();
 
         // Si cambia el email, validamos que no esté usado por otro
         if (!usuario.getEmail().equals(dto.getEmail()) &&
@@ -201,43 +300,40 @@ public class UsuarioService {
             throw new UsuarioYaExisteException("El email ya está registrado en otro usuario");
         }
 
+        // Cambios que dejan sin efecto los tokens ya emitidos (el token lleva email y rol)
+        Usuario.Rol rolNuevo = dto.getRol() != null ? Usuario.Rol.valueOf(dto.getRol().toUpperCase()) : usuario.getRol();
+        if (!editor.esAdmin() && (rolNuevo != usuario.getRol() || (usuario.getFechaBaja() == null) != (dto.getFechaBaja() == null))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Solo un administrador puede cambiar el rol o dar de baja");
+        }
+        if (!emailAnterior.equals(dto.getEmail()) || rolNuevo != usuario.getRol()
+                || (usuario.getFechaBaja() == null) != (dto.getFechaBaja() == null)) {
+            usuario.incrementarVersionSeguridad();
+        }
+
         // Actualizamos campos
         usuario.setNombre(dto.getNombre());
         usuario.setApellido(dto.getApellido());
         usuario.setTelefono(dto.getTelefono());
         usuario.setEmail(dto.getEmail());
         usuario.setFechaBaja(dto.getFechaBaja());
-        if (dto.getRol() != null) {
-            usuario.setRol(Usuario.Rol.valueOf(dto.getRol().toUpperCase()));
-        }
+        usuario.setRol(rolNuevo);
 
-        // Manejo de foto (opcional)
+        // Manejo de foto (opcional). La foto anterior se borra recién cuando se confirma la transacción.
         if (foto != null && !foto.isEmpty()) {
-            String tipo = foto.getContentType();
-            if (tipo == null || !tipo.startsWith("image/")) {
-                throw new IllegalArgumentException("El archivo debe ser una imagen válida");
-            }
-
-            String carpeta = "usuarios_fotos_perfil/";
-            File directorio = new File(carpeta);
-            if (!directorio.exists()) {
-                directorio.mkdirs();
-            }
-
-            String nombreArchivo = UUID.randomUUID() + "_" + foto.getOriginalFilename().replaceAll(" ", "_");
-            Path ruta = Paths.get(carpeta + nombreArchivo);
-            try {
-                Files.copy(foto.getInputStream(), ruta, StandardCopyOption.REPLACE_EXISTING);
-                usuario.setFotoPerfil(nombreArchivo);
-            } catch (IOException e) {
-                throw new RuntimeException("Error al guardar la foto de perfil", e);
-            }
+            String fotoAnterior = usuario.getFotoPerfil();
+            usuario.setFotoPerfil(fotoPerfilStorage.guardar(foto));
+            eliminarFotoAlConfirmar(fotoAnterior);
         }
 
         usuarioRepository.save(usuario);
+        tokenCache.invalidarUsuario(emailAnterior);
+        if (usuario.getFechaBaja() != null) {
+            refreshTokenService.cerrarSesiones(usuario);
+        }
+        publicarCambio(usuario.getId(), CambioEntidadEvent.Operacion.MODIFICACION);
 
         // Construimos respuesta
-        String baseUrl = request.getScheme() + "://" + request.getServerName() + ":" + request.getServerPort() + "/usuarios_fotos_perfil/";
+        String urlFotos = baseUrl + UrlBase.FOTOS_PERFIL;
         UsuarioResponseDTO response = new UsuarioResponseDTO();
         response.setId(usuario.getId());
         response.setNombre(usuario.getNombre());
@@ -246,7 +342,8 @@ public class UsuarioService {
         response.setTelefono(usuario.getTelefono());
         response.setRol(usuario.getRol().toString());
         if (usuario.getFotoPerfil() != null) {
-            response.setFotoPerfil(baseUrl + usuario.getFotoPerfil());
+            response.setFotoPerfil(urlFotos + usuario.getFotoPerfil());
+            response.setFotoPerfilMiniatura(urlFotos + FotoPerfilStorage.nombreMiniatura(usuario.getFotoPerfil()));
         }
 
         return Optional.of(response);
@@ -256,19 +353,42 @@ public class UsuarioService {
     public ResponseEntity<String> deleteUsuario(Long id) {
         Usuario usuarioBaja = usuarioRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con ID: " + id));
-        Optional<String> nombreCelula=celulaRepository.findNombreByUsuarioId(Math.toIntExact(id));
-        System.out.println("El nombre de la celula es:"+ nombreCelula);
+        List<String> nombresCelula = celulaRepository.findNombreByUsuarioId(id);
         // Si está asignado a una célula, no permitir baja
-        if (!nombreCelula.isEmpty()) {
+        if (!nombresCelula.isEmpty()) {
             return ResponseEntity.badRequest()
                     .body("El usuario no puede ser eliminado porque está asignado a la célula: "
-                            + nombreCelula.get()
+                            + String.join(", ", nombresCelula)
                             + ". Primero debe liberarse de esa célula antes de realizar la baja.");
         }
         // Si no está asignado, realizar baja lógica
         usuarioBaja.setFechaBaja(new Date());
+        usuarioBaja.incrementarVersionSeguridad();
         usuarioRepository.save(usuarioBaja);
+        tokenCache.invalidarUsuario(usuarioBaja.getEmail());
+        refreshTokenService.cerrarSesiones(usuarioBaja); // Corta el acceso ya, sin esperar a que venzan sus tokens
+        publicarCambio(usuarioBaja.getId(), CambioEntidadEvent.Operacion.BAJA);
 
         return ResponseEntity.ok("Usuario dado de baja con éxito.");
     }
+
+    private void publicarCambio(Long id, CambioEntidadEvent.Operacion operacion) {
+        eventPublisher.publishEvent(new CambioEntidadEvent(CambioEntidadEvent.Entidad.USUARIO, id, operacion));
+    }
+
+    private void eliminarFotoAlConfirmar(String nombreArchivo) {
+        if (nombreArchivo == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fotoPerfilStorage.eliminar(nombreArchivo);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                fotoPerfilStorage.eliminar(nombreArchivo);
+            }
+        });
+    }
 }
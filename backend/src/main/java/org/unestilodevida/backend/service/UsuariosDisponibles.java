@@ -0,0 +1,51 @@
+package org.unestilodevida.backend.service;
+
+import org.springframework.stereotype.Component;
+import org.unestilodevida.backend.dto.UsuarioResumenDTO;
+import org.unestilodevida.backend.evento.CambioEntidadEvent.Entidad;
+import org.unestilodevida.backend.model.Usuario;
+import org.unestilodevida.backend.repository.UsuarioRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Usuarios activos de un rol que no son líder ni timoteo de ninguna célula (los candidatos de los formularios de célula).
+
+El resultado de cada rol se guarda junto con el ETag de usuarios y células (VersionesColecciones) con el que se
+consultó. Cualquier alta, modificación o baja confirmada cambia el ETag, y la próxima lectura vuelve a consultar.
+El ETag se toma antes de consultar: si algo cambia mientras tanto, el resultado queda guardado con el ETag viejo
+y no se reutiliza.
+*/
+@Component
+public class UsuariosDisponibles {
+
+    private final UsuarioRepository usuarioRepository;
+    private final VersionesColecciones versiones;
+    private final Map<Usuario.Rol, Entrada> porRol = new ConcurrentHashMap<>();
+
+    public UsuariosDisponibles(UsuarioRepository usuarioRepository, VersionesColecciones versiones) {
+        this.usuarioRepository = usuarioRepository;
+        this.versiones = versiones;
+    }
+
+    // ETag del resultado: cambia con cualquier escritura de usuarios o de células.
+    public String etag() {
+        return versiones.etag(Entidad.USUARIO, Entidad.CELULA);
+    }
+
+    public List<UsuarioResumenDTO> de(Usuario.Rol rol) {
+        String etag = etag();
+        Entrada entrada = porRol.get(rol);
+        if (entrada != null && entrada.etag().equals(etag)) {
+            return entrada.usuarios();
+        }
+        List<UsuarioResumenDTO> usuarios = List.copyOf(usuarioRepository.listarDisponibles(rol));
+        porRol.put(rol, new Entrada(etag, usuarios));
+        return usuarios;
+    }
+
+    private record Entrada(String etag, List<UsuarioResumenDTO> usuarios) {
+    }
+}
@@ -0,0 +1,56 @@
+package org.unestilodevida.backend.service;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.unestilodevida.backend.evento.CambioEntidadEvent;
+import org.unestilodevida.backend.evento.CambioEntidadEvent.Entidad;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Número de versión por colección (células, usuarios), usado como ETag de los listados.
+Cada alta, modificación o baja confirmada incrementa el contador, así que si el ETag que manda el cliente
+coincide con el actual, el listado no cambió y se responde 304 sin consultar la base de datos.
+
+Los contadores viven en memoria: el ETag incluye el momento de arranque para que un reinicio invalide
+los ETag anteriores en lugar de repetirlos.
+*/
+@Component
+public class VersionesColecciones {
+
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Entidad, AtomicLong> versiones = new EnumMap<>(Entidad.class);
+
+    public VersionesColecciones() {
+        for (Entidad entidad : Entidad.values()) {
+            versiones.put(entidad, new AtomicLong());
+        }
+    }
+
+    // Se incrementa después del commit: si se hiciera antes, un GET podría guardar el listado viejo con el ETag nuevo.
+    // fallbackExecution = true cubre los servicios que guardan sin una transacción abierta. Va después de que se
+    // actualicen las caches (CelulasEnMemoria), para que un ETag nuevo nunca se entregue con datos viejos, y antes del
+    // aviso a los clientes (DifusorCambios), que lleva la versión nueva.
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void registrarCambio(CambioEntidadEvent evento) {
+        versiones.get(evento.entidad()).incrementAndGet();
+    }
+
+    public long version(Entidad entidad) {
+        return versiones.get(entidad).get();
+    }
+
+    // ETag de un listado que depende de una o varias colecciones (por ejemplo, las células incluyen datos de sus usuarios).
+    public String etag(Entidad... entidades) {
+        StringBuilder etag = new StringBuilder(arranque);
+        for (Entidad entidad : entidades) {
+            etag.append('-').append(entidad.name().charAt(0)).append(version(entidad));
+        }
+        return etag.toString();
+    }
+}
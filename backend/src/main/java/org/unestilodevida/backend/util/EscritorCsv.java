@@ -0,0 +1,93 @@
+package org.unestilodevida.backend.util;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/*
+Escribe un CSV directamente en un OutputStream (con buffer), fila por fila. Arranca con el BOM de UTF-8 para que Excel
+reconozca los acentos.
+
+Los textos que empiezan con =, +, - o @ se escriben precedidos de un apóstrofo: si no, al abrir el archivo en una planilla
+se interpretarían como fórmulas (inyección de fórmulas). Los números se escriben con numero(), sin esa protección.
+Al importar, sinProteccion() quita ese apóstrofo, para que un teléfono como +54 11 5555-0000 vuelva tal cual.
+*/
+public final class EscritorCsv implements Flushable {
+
+    private final Writer writer;
+    private boolean primeroDeLaFila = true;
+
+    public EscritorCsv(OutputStream salida) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 16 * 1024);
+        writer.write('\uFEFF');
+    }
+
+    public EscritorCsv texto(String valor) throws IOException {
+        separar();
+        if (valor == null || valor.isEmpty()) {
+            return this;
+        }
+        if (pareceFormula(valor)) {
+            valor = "'" + valor;
+        }
+        if (valor.indexOf(',') >= 0 || valor.indexOf(';') >= 0 || valor.indexOf('"') >= 0
+                || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(valor.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(valor);
+        }
+        return this;
+    }
+
+    // El valor original de un texto escrito con texto(): sin el apóstrofo agregado delante de lo que parece una fórmula.
+    public static String sinProteccion(String valor) {
+        if (valor != null && valor.length() > 1 && valor.charAt(0) == '\'' && pareceFormula(valor.substring(1))) {
+            return valor.substring(1);
+        }
+        return valor;
+    }
+
+    public EscritorCsv numero(Number valor) throws IOException {
+        separar();
+        if (valor != null) {
+            writer.write(valor.toString());
+        }
+        return this;
+    }
+
+    public EscritorCsv fila(String... textos) throws IOException {
+        for (String texto : textos) {
+            texto(texto);
+        }
+        return finFila();
+    }
+
+    public EscritorCsv finFila() throws IOException {
+        writer.write("\r\n");
+        primeroDeLaFila = true;
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private static boolean pareceFormula(String valor) {
+        char primero = valor.charAt(0);
+        return primero == '=' || primero == '+' || primero == '-' || primero == '@';
+    }
+
+    private void separar() throws IOException {
+        if (!primeroDeLaFila) {
+            writer.write(',');
+        }
+        primeroDeLaFila = false;
+    }
+}
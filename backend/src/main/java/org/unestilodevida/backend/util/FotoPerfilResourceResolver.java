@@ -0,0 +1,173 @@
+package org.unestilodevida.backend.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.resource.ResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import org.springframework.web.util.UriUtils;
+import org.unestilodevida.backend.evento.FotoPerfilEliminadaEvent;
+import org.unestilodevida.backend.service.FotoPerfilStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Resolver para /usuarios_fotos_perfil/**.
+
+- Miniaturas: se generan al subir la foto (FotoPerfilStorageLocal, en segundo plano). Si se pide una que todavía no
+  existe (foto anterior a las miniaturas, o pendiente en la cola) se genera en ese momento, una sola vez, y se sirve.
+  Si la foto no se puede leer se responde 404 y se recuerda, para no volver a intentarlo en cada request; el
+  frontend muestra entonces la foto original. Nunca se sirve la original bajo la URL de la miniatura, que se cachea
+  como inmutable.
+- Cache en memoria de los archivos más pedidos: los archivos chicos (avatares) se guardan en un LRU acotado por
+  cantidad total de bytes, así los dashboards no leen del disco en cada render. Al eliminar una foto
+  (FotoPerfilEliminadaEvent) se descartan sus entradas.
+*/
+@Component
+public class FotoPerfilResourceResolver implements ResourceResolver {
+
+    private static final int MAX_SIN_MINIATURA = 10_000;
+
+    private final FotoPerfilStorage fotoPerfilStorage;
+    private final long maxBytesArchivo;
+    private final long maxBytesTotal;
+    private final LinkedHashMap<String, EnMemoria> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<String> sinMiniatura = ConcurrentHashMap.newKeySet();
+    private long bytesEnCache;
+
+    public FotoPerfilResourceResolver(FotoPerfilStorage fotoPerfilStorage,
+                                      @Value("${fotos.cache.max-bytes-archivo:262144}") long maxBytesArchivo,
+                                      @Value("${fotos.cache.max-bytes-total:16777216}") long maxBytesTotal) {
+        this.fotoPerfilStorage = fotoPerfilStorage;
+        this.maxBytesArchivo = maxBytesArchivo;
+        this.maxBytesTotal = maxBytesTotal;
+    }
+
+    @Override
+    public Resource resolveResource(HttpServletRequest request, String requestPath,
+                                    List<? extends Resource> locations, ResourceResolverChain chain) {
+        synchronized (cache) {
+            EnMemoria enCache = cache.get(requestPath);
+            if (enCache != null) {
+                return enCache;
+            }
+        }
+
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource == null && generarMiniaturaFaltante(requestPath)) {
+            resource = chain.resolveResource(request, requestPath, locations);
+        }
+        return resource != null ? guardarEnCache(requestPath, resource) : null;
+    }
+
+    @EventListener
+    public void fotoEliminada(FotoPerfilEliminadaEvent evento) {
+        String original = evento.nombreArchivo();
+        String miniatura = original + ".jpg";
+        sinMiniatura.remove(original);
+        synchronized (cache) {
+            Iterator<EnMemoria> it = cache.values().iterator();
+            while (it.hasNext()) {
+                EnMemoria enMemoria = it.next();
+                if (original.equals(enMemoria.getFilename()) || miniatura.equals(enMemoria.getFilename())) {
+                    bytesEnCache -= enMemoria.contentLength();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    // requestPath llega codificado como en la URL: miniaturas/<foto>.jpg.
+    private boolean generarMiniaturaFaltante(String requestPath) {
+        String ruta = UriUtils.decode(requestPath, StandardCharsets.UTF_8);
+        if (!ruta.startsWith(FotoPerfilStorage.CARPETA_MINIATURAS) || !ruta.endsWith(".jpg")) {
+            return false;
+        }
+        String original = ruta.substring(FotoPerfilStorage.CARPETA_MINIATURAS.length(), ruta.length() - ".jpg".length());
+        if (original.isEmpty() || original.contains("/") || sinMiniatura.contains(original)) {
+            return false;
+        }
+        if (fotoPerfilStorage.generarMiniatura(original)) {
+            return true;
+        }
+        if (sinMiniatura.size() >= MAX_SIN_MINIATURA) {
+            sinMiniatura.clear();
+        }
+        sinMiniatura.add(original);
+        return false;
+    }
+
+    @Override
+    public String resolveUrlPath(String resourcePath, List<? extends Resource> locations, ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourcePath, locations);
+    }
+
+    private Resource guardarEnCache(String requestPath, Resource resource) {
+        try {
+            long largo = resource.contentLength();
+            if (largo > maxBytesArchivo) {
+                return resource;
+            }
+            byte[] contenido;
+            try (InputStream entrada = resource.getInputStream()) {
+                contenido = entrada.readAllBytes();
+            }
+            EnMemoria enMemoria = new EnMemoria(contenido, resource.getFilename(), resource.lastModified());
+            synchronized (cache) {
+                EnMemoria anterior = cache.put(requestPath, enMemoria);
+                bytesEnCache += contenido.length - (anterior != null ? anterior.contentLength() : 0);
+                Iterator<Map.Entry<String, EnMemoria>> it = cache.entrySet().iterator();
+                while (bytesEnCache > maxBytesTotal && it.hasNext()) {
+                    bytesEnCache -= it.next().getValue().contentLength();
+                    it.remove();
+                }
+            }
+            return enMemoria;
+        } catch (IOException e) {
+            return resource;
+        }
+    }
+
+    // Copia en memoria de un archivo; conserva nombre y fecha para que el handler calcule Content-Type, Last-Modified y ETag.
+    private static class EnMemoria extends ByteArrayResource {
+        private final String nombre;
+        private final long ultimaModificacion;
+
+        EnMemoria(byte[] contenido, String nombre, long ultimaModificacion) {
+            super(contenido);
+            this.nombre = nombre;
+            this.ultimaModificacion = ultimaModificacion;
+        }
+
+        @Override
+        public String getFilename() {
+            return nombre;
+        }
+
+        @Override
+        public long lastModified() {
+            return ultimaModificacion;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
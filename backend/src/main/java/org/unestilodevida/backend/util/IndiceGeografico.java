@@ -0,0 +1,135 @@
+package org.unestilodevida.backend.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/*
+Índice espacial inmutable para buscar los puntos más cercanos a una ubicación dentro de un radio.
+
+Los puntos se ordenan por latitud: una búsqueda hace dos búsquedas binarias para quedarse con la franja de latitudes
+que entra en el radio, descarta por longitud con una cuenta barata y solo calcula la distancia real (haversine) de
+los que quedan dentro de ese rectángulo. De ellos se guardan los "limite" más cercanos en un heap.
+Los elementos sin coordenadas no se indexan.
+*/
+public final class IndiceGeografico<T> {
+
+    private static final double RADIO_TIERRA_KM = 6371.0088;
+    private static final double KM_POR_GRADO = Math.PI * RADIO_TIERRA_KM / 180;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final List<T> elementos;
+
+    private IndiceGeografico(double[] latitudes, double[] longitudes, List<T> elementos) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.elementos = elementos;
+    }
+
+    public static <T> IndiceGeografico<T> de(List<T> elementos, Function<T, Double> latitud, Function<T, Double> longitud) {
+        List<T> conCoordenadas = new ArrayList<>(elementos.size());
+        for (T elemento : elementos) {
+            if (latitud.apply(elemento) != null && longitud.apply(elemento) != null) {
+                conCoordenadas.add(elemento);
+            }
+        }
+        conCoordenadas.sort(Comparator.comparingDouble(e -> latitud.apply(e)));
+
+        double[] latitudes = new double[conCoordenadas.size()];
+        double[] longitudes = new double[conCoordenadas.size()];
+        for (int i = 0; i < conCoordenadas.size(); i++) {
+            latitudes[i] = latitud.apply(conCoordenadas.get(i));
+            longitudes[i] = longitud.apply(conCoordenadas.get(i));
+        }
+        return new IndiceGeografico<>(latitudes, longitudes, List.copyOf(conCoordenadas));
+    }
+
+    public int tamanio() {
+        return elementos.size();
+    }
+
+    // Los elementos a menos de radioKm de (lat, lng) que cumplen el filtro, del más cercano al más lejano (como máximo "limite").
+    public List<Resultado<T>> buscar(double lat, double lng, double radioKm, int limite, Predicate<T> filtro) {
+        if (limite <= 0 || elementos.isEmpty()) {
+            return List.of();
+        }
+        double deltaLat = radioKm / KM_POR_GRADO;
+        double cosLat = Math.cos(Math.toRadians(Math.min(90, Math.abs(lat) + deltaLat)));
+        // Cerca de los polos la franja de longitudes cubre todo; en ese caso no se descarta por longitud.
+        double deltaLng = cosLat > 1e-9 ? radioKm / (KM_POR_GRADO * cosLat) : 360;
+
+        // Heap con el más lejano arriba, para descartarlo cuando aparece uno más cercano.
+        PriorityQueue<Resultado<T>> mejores = new PriorityQueue<>(limite + 1,
+                Comparator.comparingDouble(Resultado<T>::distanciaKm).reversed());
+
+        int hasta = primeroMayorA(lat + deltaLat);
+        for (int i = primeroMayorOIgualA(lat - deltaLat); i < hasta; i++) {
+            double diferenciaLng = Math.abs(longitudes[i] - lng);
+            if (diferenciaLng > 180) {
+                diferenciaLng = 360 - diferenciaLng;
+            }
+            if (diferenciaLng > deltaLng) {
+                continue;
+            }
+            double distancia = distanciaKm(lat, lng, latitudes[i], longitudes[i]);
+            if (distancia > radioKm || (mejores.size() == limite && distancia >= mejores.peek().distanciaKm())) {
+                continue;
+            }
+            T elemento = elementos.get(i);
+            if (!filtro.test(elemento)) {
+                continue;
+            }
+            mejores.add(new Resultado<>(elemento, distancia));
+            if (mejores.size() > limite) {
+                mejores.poll();
+            }
+        }
+
+        List<Resultado<T>> resultado = new ArrayList<>(mejores);
+        resultado.sort(Comparator.comparingDouble(Resultado::distanciaKm));
+        return resultado;
+    }
+
+    public static double distanciaKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int primeroMayorOIgualA(double valor) {
+        int desde = 0;
+        int hasta = latitudes.length;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (latitudes[medio] < valor) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        return desde;
+    }
+
+    private int primeroMayorA(double valor) {
+        int desde = 0;
+        int hasta = latitudes.length;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (latitudes[medio] <= valor) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        return desde;
+    }
+
+    public record Resultado<T>(T elemento, double distanciaKm) {
+    }
+}
@@ -0,0 +1,116 @@
+package org.unestilodevida.backend.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Lee un CSV fila por fila (RFC 4180: campos entre comillas, comillas dobles "" y saltos de línea dentro de un campo),
+sin cargar el archivo en memoria. El separador se detecta en la primera línea: ',' o ';' (el que usa Excel cuando
+la coma es el separador decimal). Se ignoran las líneas vacías y el BOM de UTF-8 que agregan Excel y Google Sheets.
+
+Cada fila puede tener hasta MAX_CARACTERES_FILA caracteres, para que un archivo mal formado (por ejemplo, una comilla
+sin cerrar) no termine leyendo todo el archivo como un solo campo.
+*/
+public final class LectorCsv implements Closeable {
+
+    public static final int MAX_CARACTERES_FILA = 64 * 1024;
+
+    private final BufferedReader reader;
+    private final char separador;
+    private long linea = 1; // línea del archivo en la que empieza la próxima fila
+    private long lineaFila; // línea en la que empezó la última fila leída
+
+    private LectorCsv(BufferedReader reader, char separador) {
+        this.reader = reader;
+        this.separador = separador;
+    }
+
+    public static LectorCsv de(InputStream entrada) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 16 * 1024);
+        reader.mark(MAX_CARACTERES_FILA);
+        int primero = reader.read();
+        if (primero != '\uFEFF') {
+            reader.reset();
+        }
+        reader.mark(MAX_CARACTERES_FILA);
+        String encabezado = reader.readLine();
+        reader.reset();
+        char separador = encabezado != null && encabezado.indexOf(';') >= 0 && encabezado.indexOf(',') < 0 ? ';' : ',';
+        return new LectorCsv(reader, separador);
+    }
+
+    // La próxima fila no vacía, o null al final del archivo.
+    public List<String> leer() throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean vacia = true;
+        int caracteres = 0;
+        lineaFila = linea;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (++caracteres > MAX_CARACTERES_FILA) {
+                throw new IllegalArgumentException("La fila de la línea " + lineaFila + " supera los " + MAX_CARACTERES_FILA + " caracteres");
+            }
+            if (entreComillas) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        campo.append('"');
+                    } else {
+                        reader.reset();
+                        entreComillas = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                entreComillas = true;
+                vacia = false;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+                vacia = false;
+            } else if (c == '\n') {
+                linea++;
+                if (vacia && campo.isEmpty()) {
+                    lineaFila = linea; // línea vacía: se sigue con la próxima
+                    caracteres = 0;
+                    continue;
+                }
+                campos.add(campo.toString());
+                return campos;
+            } else if (c != '\r') {
+                campo.append((char) c);
+                vacia = false;
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar en la fila de la línea " + lineaFila);
+        }
+        if (vacia && campo.isEmpty()) {
+            return null;
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    // Línea del archivo en la que empieza la última fila leída (para informar errores).
+    public long getLinea() {
+        return lineaFila;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
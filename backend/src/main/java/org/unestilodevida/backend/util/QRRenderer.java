@@ -0,0 +1,165 @@
+package org.unestilodevida.backend.util;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/*
+Dibuja un código QR directamente a PNG o SVG a partir de la matriz de módulos de ZXing, sin pasar por
+BufferedImage ni ImageIO. El PNG es en escala de grises de 1 bit (un bit por pixel), así que es mucho más
+liviano de generar y de transferir que el PNG RGB de MatrixToImageWriter.
+
+El tamaño y los márgenes se calculan igual que en QRCodeWriter (zona silenciosa de 4 módulos y el QR centrado).
+Es seguro usarlo desde varios hilos: el Deflater y el buffer de compresión se reutilizan por hilo.
+*/
+public final class QRRenderer {
+
+    private static final int ZONA_SILENCIOSA = 4;
+    private static final byte[] FIRMA_PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION));
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private QRRenderer() {
+    }
+
+    public static byte[] png(String texto, int ancho, int alto) throws WriterException {
+        Plano plano = Plano.de(texto, ancho, alto);
+
+        // Una fila del PNG: byte de filtro (0 = sin filtro) + los pixeles empaquetados de a 8 por byte (1 = blanco).
+        int bytesPorFila = 1 + (plano.ancho + 7) / 8;
+        byte[] filaBlanca = new byte[bytesPorFila];
+        Arrays.fill(filaBlanca, 1, bytesPorFila, (byte) 0xFF);
+        byte[] fila = new byte[bytesPorFila];
+
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        ByteArrayOutputStream comprimido = new ByteArrayOutputStream(1024);
+        byte[] buffer = BUFFER.get();
+
+        for (int y = 0; y < plano.alto; y++) {
+            int moduloY = (y - plano.margenSuperior) / plano.escala;
+            boolean dentro = y >= plano.margenSuperior && moduloY < plano.modulos.getHeight();
+            byte[] actual = filaBlanca;
+            if (dentro) {
+                // Las filas de pixeles que caen en el mismo módulo son idénticas: se arma solo la primera.
+                if ((y - plano.margenSuperior) % plano.escala == 0) {
+                    armarFila(plano, moduloY, fila);
+                }
+                actual = fila;
+            }
+            deflater.setInput(actual);
+            while (!deflater.needsInput()) {
+                comprimido.write(buffer, 0, deflater.deflate(buffer));
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            comprimido.write(buffer, 0, deflater.deflate(buffer));
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(comprimido.size() + 64);
+        png.writeBytes(FIRMA_PNG);
+        byte[] ihdr = new byte[13];
+        escribirEntero(ihdr, 0, plano.ancho);
+        escribirEntero(ihdr, 4, plano.alto);
+        ihdr[8] = 1; // profundidad de bit
+        ihdr[9] = 0; // escala de grises
+        escribirChunk(png, "IHDR", ihdr, ihdr.length);
+        escribirChunk(png, "IDAT", comprimido.toByteArray(), comprimido.size());
+        escribirChunk(png, "IEND", new byte[0], 0);
+        return png.toByteArray();
+    }
+
+    // SVG con un único path: cada tramo horizontal de módulos negros es un rectángulo. Escala sin perder calidad.
+    public static String svg(String texto, int ancho, int alto) throws WriterException {
+        ByteMatrix modulos = codificar(texto);
+        int lado = modulos.getWidth() + 2 * ZONA_SILENCIOSA;
+
+        StringBuilder svg = new StringBuilder(modulos.getWidth() * modulos.getHeight());
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(ancho)
+                .append("\" height=\"").append(alto)
+                .append("\" viewBox=\"0 0 ").append(lado).append(' ').append(lado)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path d=\"");
+        for (int y = 0; y < modulos.getHeight(); y++) {
+            int x = 0;
+            while (x < modulos.getWidth()) {
+                if (modulos.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int inicio = x;
+                while (x < modulos.getWidth() && modulos.get(x, y) == 1) {
+                    x++;
+                }
+                svg.append('M').append(inicio + ZONA_SILENCIOSA).append(' ').append(y + ZONA_SILENCIOSA)
+                        .append('h').append(x - inicio).append("v1h-").append(x - inicio).append('z');
+            }
+        }
+        return svg.append("\"/></svg>").toString();
+    }
+
+    private static void armarFila(Plano plano, int moduloY, byte[] fila) {
+        Arrays.fill(fila, 1, fila.length, (byte) 0xFF);
+        ByteMatrix modulos = plano.modulos;
+        for (int moduloX = 0; moduloX < modulos.getWidth(); moduloX++) {
+            if (modulos.get(moduloX, moduloY) != 1) {
+                continue;
+            }
+            int desde = plano.margenIzquierdo + moduloX * plano.escala;
+            for (int x = desde; x < desde + plano.escala; x++) {
+                fila[1 + (x >> 3)] &= (byte) ~(0x80 >>> (x & 7));
+            }
+        }
+    }
+
+    private static ByteMatrix codificar(String texto) throws WriterException {
+        return Encoder.encode(texto, ErrorCorrectionLevel.L).getMatrix();
+    }
+
+    private static void escribirChunk(ByteArrayOutputStream salida, String tipo, byte[] datos, int largo) {
+        byte[] cabecera = new byte[8];
+        escribirEntero(cabecera, 0, largo);
+        byte[] tipoBytes = tipo.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(tipoBytes, 0, cabecera, 4, 4);
+        salida.write(cabecera, 0, 8);
+        salida.write(datos, 0, largo);
+
+        CRC32 crc = new CRC32();
+        crc.update(tipoBytes);
+        crc.update(datos, 0, largo);
+        byte[] crcBytes = new byte[4];
+        escribirEntero(crcBytes, 0, (int) crc.getValue());
+        salida.write(crcBytes, 0, 4);
+    }
+
+    private static void escribirEntero(byte[] destino, int posicion, int valor) {
+        destino[posicion] = (byte) (valor >>> 24);
+        destino[posicion + 1] = (byte) (valor >>> 16);
+        destino[posicion + 2] = (byte) (valor >>> 8);
+        destino[posicion + 3] = (byte) valor;
+    }
+
+    // Dimensiones de la imagen final y ubicación de la matriz de módulos dentro de ella (mismo cálculo que QRCodeWriter).
+    private record Plano(ByteMatrix modulos, int ancho, int alto, int escala, int margenIzquierdo, int margenSuperior) {
+
+        static Plano de(String texto, int ancho, int alto) throws WriterException {
+            ByteMatrix modulos = codificar(texto);
+            int anchoQR = modulos.getWidth() + 2 * ZONA_SILENCIOSA;
+            int altoQR = modulos.getHeight() + 2 * ZONA_SILENCIOSA;
+            int anchoFinal = Math.max(ancho, anchoQR);
+            int altoFinal = Math.max(alto, altoQR);
+            int escala = Math.min(anchoFinal / anchoQR, altoFinal / altoQR);
+            int margenIzquierdo = (anchoFinal - modulos.getWidth() * escala) / 2;
+            int margenSuperior = (altoFinal - modulos.getHeight() * escala) / 2;
+            return new Plano(modulos, anchoFinal, altoFinal, escala, margenIzquierdo, margenSuperior);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.unestilodevida.backend.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+Un "token bucket" por clave (email, IP, ...). Cada balde arranca lleno con "capacidad" fichas y se recarga a razón
+de una ficha cada "segundosPorFicha"; cada intento consume una. Si no hay fichas el intento se rechaza y se informa
+cuánto falta para la próxima.
+
+Sin locks: el estado de cada balde es inmutable y se reemplaza con compareAndSet. La memoria está acotada a
+maxClaves baldes; al superarlo se descartan primero los baldes que ya se recargaron del todo (equivalen a no tener
+balde) y, si no alcanza, los usados hace más tiempo.
+*/
+public final class TokenBuckets {
+
+    private final double capacidad;
+    private final double fichasPorNano;
+    private final int maxClaves;
+    private final Map<String, AtomicReference<Estado>> baldes = new ConcurrentHashMap<>();
+    private final AtomicBoolean liberando = new AtomicBoolean();
+
+    public TokenBuckets(int capacidad, double segundosPorFicha, int maxClaves) {
+        this.capacidad = capacidad;
+        this.fichasPorNano = 1 / (segundosPorFicha * 1_000_000_000d);
+        this.maxClaves = maxClaves;
+    }
+
+    // Consume una ficha. Devuelve 0 si el intento está permitido, o los nanosegundos que faltan para la próxima ficha.
+    public long consumir(String clave) {
+        AtomicReference<Estado> balde = baldes.get(clave);
+        if (balde == null) {
+            balde = baldes.computeIfAbsent(clave, c -> new AtomicReference<>(new Estado(capacidad, System.nanoTime())));
+            if (baldes.size() > maxClaves) {
+                liberarEspacio();
+            }
+        }
+        while (true) {
+            Estado actual = balde.get();
+            long ahora = System.nanoTime();
+            double fichas = fichasDisponibles(actual, ahora);
+            if (fichas < 1) {
+                return Math.max(1, (long) Math.ceil((1 - fichas) / fichasPorNano));
+            }
+            if (balde.compareAndSet(actual, new Estado(fichas - 1, ahora))) {
+                return 0;
+            }
+        }
+    }
+
+    public int cantidadDeClaves() {
+        return baldes.size();
+    }
+
+    private double fichasDisponibles(Estado estado, long ahora) {
+        return Math.min(capacidad, estado.fichas() + (ahora - estado.nanos()) * fichasPorNano);
+    }
+
+    // La hace un solo hilo a la vez; los demás siguen sin esperar. Deja el mapa al 90% para no repetirla en cada alta.
+    private void liberarEspacio() {
+        if (!liberando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long ahora = System.nanoTime();
+            baldes.values().removeIf(balde -> fichasDisponibles(balde.get(), ahora) >= capacidad);
+
+            int objetivo = maxClaves - maxClaves / 10;
+            if (baldes.size() <= objetivo) {
+                return;
+            }
+            List<Map.Entry<String, AtomicReference<Estado>>> entradas = new ArrayList<>(baldes.entrySet());
+            entradas.sort(Comparator.comparingLong(entrada -> entrada.getValue().get().nanos()));
+            for (int i = 0; i < entradas.size() && baldes.size() > objetivo; i++) {
+                baldes.remove(entradas.get(i).getKey(), entradas.get(i).getValue());
+            }
+        } finally {
+            liberando.set(false);
+        }
+    }
+
+    private record Estado(double fichas, long nanos) {
+    }
+}
@@ -0,0 +1,23 @@
+package org.unestilodevida.backend.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/*
+URL base (esquema://host:puerto) con la que el cliente llamó a la API. Con ella se arman las URLs absolutas de las fotos
+de perfil y de los QR que van en las respuestas.
+
+La calculan los controllers con la request que reciben y se la pasan a los servicios como parámetro: así los servicios
+no dependen del proxy de HttpServletRequest (que solo funciona en el hilo de la request) y se pueden llamar desde
+cualquier hilo.
+*/
+public final class UrlBase {
+
+    public static final String FOTOS_PERFIL = "/usuarios_fotos_perfil/";
+
+    private UrlBase() {
+    }
+
+    public static String de(HttpServletRequest request) {
+        return request.getScheme() + "://" + request.getServerName() + ":" + request.getServerPort();
+    }
+}
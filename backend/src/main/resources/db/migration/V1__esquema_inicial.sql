@@ -0,0 +1,50 @@
+-- Esquema que generaba Hibernate (ddl-auto=update) a partir de Usuario, Celula y RefreshToken.
+-- En una base que ya existía no se ejecuta: Flyway la marca como versión 1 (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE usuario (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre            varchar(255) NOT NULL,
+    apellido          varchar(255) NOT NULL,
+    email             varchar(255) NOT NULL UNIQUE,
+    clave             varchar(255) NOT NULL,
+    telefono          varchar(255),
+    fecha_baja        timestamp(6),
+    foto_perfil       varchar(255),
+    rol               varchar(255) NOT NULL CHECK (rol IN ('ADMIN', 'LIDER', 'TIMOTEO')),
+    version_seguridad bigint       NOT NULL DEFAULT 0
+);
+
+CREATE TABLE celula (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre           varchar(255)  NOT NULL,
+    dia              varchar(255)  NOT NULL
+        CHECK (dia IN ('LUNES', 'MARTES', 'MIERCOLES', 'JUEVES', 'VIERNES', 'SABADO', 'DOMINGO')),
+    genero           varchar(255)  NOT NULL CHECK (genero IN ('HOMBRE', 'MUJER')),
+    hora_inicio      time(6)       NOT NULL,
+    direccion        varchar(255)  NOT NULL,
+    latitud          float(53),
+    longitud         float(53),
+    descripcion      varchar(1000),
+    telefono         varchar(255)  NOT NULL,
+    enlace_whatsapp  varchar(255),
+    qr_whatsapp      text,
+    fecha_baja       timestamp(6),
+    -- Los UNIQUE crean los índices que usan las búsquedas por líder o timoteo (lider_id = ? OR timoteo_id = ?).
+    lider_id         bigint UNIQUE REFERENCES usuario (id),
+    timoteo_id       bigint UNIQUE REFERENCES usuario (id)
+);
+
+CREATE TABLE refresh_token (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    hash       varchar(64)  NOT NULL UNIQUE,
+    familia    varchar(36)  NOT NULL,
+    usuario_id bigint       NOT NULL REFERENCES usuario (id),
+    creado_en  timestamp(6) NOT NULL,
+    expira_en  timestamp(6) NOT NULL,
+    usado_en   timestamp(6),
+    revocado   boolean      NOT NULL
+);
+
+-- Antes estaban como @Index en RefreshToken: con los mismos nombres, las bases existentes ya los tienen.
+CREATE INDEX idx_refresh_token_usuario ON refresh_token (usuario_id);
+CREATE INDEX idx_refresh_token_familia ON refresh_token (familia);
@@ -0,0 +1,14 @@
+-- Índices para las consultas frecuentes. Casi todas filtran por fecha_baja IS NULL, así que los de celula son
+-- parciales: solo contienen las células activas y no crecen con las dadas de baja.
+
+-- Listado de activas, paginación por keyset (id > cursor ORDER BY id) y búsqueda de una activa por id.
+CREATE INDEX IF NOT EXISTS idx_celula_alta ON celula (id) WHERE fecha_baja IS NULL;
+
+-- Filtros de /celulas/pagina por día y género. Termina en id para que el índice entregue las filas ya ordenadas
+-- por el cursor y la consulta corte en el límite sin ordenar. Reemplaza al @Index (dia, genero, hora_inicio).
+DROP INDEX IF EXISTS idx_celula_dia_genero_hora;
+CREATE INDEX IF NOT EXISTS idx_celula_alta_dia_genero ON celula (dia, genero, id) WHERE fecha_baja IS NULL;
+
+-- findByRol: sirve para los roles con pocos usuarios (ADMIN); para LIDER y TIMOTEO, que son la mayoría de la
+-- tabla, PostgreSQL va a seguir prefiriendo leerla entera, que es lo correcto.
+CREATE INDEX IF NOT EXISTS idx_usuario_rol ON usuario (rol);
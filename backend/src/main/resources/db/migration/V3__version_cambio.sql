@@ -0,0 +1,43 @@
+-- Versión de cambio por fila para la sincronización incremental (GET /celulas/cambios?desde=). Sale de una sola
+-- secuencia compartida por celula y usuario, así que crece siempre: toda fila insertada o modificada queda con un
+-- número mayor que el de cualquier cambio anterior. Las bajas son lógicas (fecha_baja), así que también son
+-- modificaciones y el cliente se entera de ellas por el mismo camino.
+CREATE SEQUENCE IF NOT EXISTS version_cambio_seq;
+
+-- Con un DEFAULT volátil PostgreSQL reescribe la tabla y evalúa nextval para cada fila existente.
+ALTER TABLE usuario ADD COLUMN IF NOT EXISTS version_cambio bigint NOT NULL DEFAULT nextval('version_cambio_seq');
+ALTER TABLE celula ADD COLUMN IF NOT EXISTS version_cambio bigint NOT NULL DEFAULT nextval('version_cambio_seq');
+
+-- Las altas toman la versión del DEFAULT (también las del INSERT por lotes de AltasPorLoteRepository); las
+-- modificaciones, de este trigger. Un UPDATE que no cambia nada (Hibernate escribe todas las columnas) no la mueve.
+CREATE OR REPLACE FUNCTION marcar_version_cambio() RETURNS trigger AS $$
+BEGIN
+    NEW.version_cambio := nextval('version_cambio_seq');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_usuario_version_cambio BEFORE UPDATE ON usuario
+    FOR EACH ROW WHEN (OLD.* IS DISTINCT FROM NEW.*) EXECUTE FUNCTION marcar_version_cambio();
+CREATE TRIGGER trg_celula_version_cambio BEFORE UPDATE ON celula
+    FOR EACH ROW WHEN (OLD.* IS DISTINCT FROM NEW.*) EXECUTE FUNCTION marcar_version_cambio();
+
+-- Cada célula se devuelve con los datos de su líder y su timoteo: si cambian los que se muestran, la célula también
+-- tiene que volver a viajar. Se busca por lider_id/timoteo_id, que tienen índice único.
+CREATE OR REPLACE FUNCTION marcar_celulas_del_usuario() RETURNS trigger AS $$
+BEGIN
+    UPDATE celula SET version_cambio = nextval('version_cambio_seq')
+    WHERE lider_id = NEW.id OR timoteo_id = NEW.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_usuario_celulas_version AFTER UPDATE ON usuario
+    FOR EACH ROW
+    WHEN ((OLD.nombre, OLD.apellido, OLD.email, OLD.telefono, OLD.foto_perfil, OLD.rol)
+          IS DISTINCT FROM (NEW.nombre, NEW.apellido, NEW.email, NEW.telefono, NEW.foto_perfil, NEW.rol))
+    EXECUTE FUNCTION marcar_celulas_del_usuario();
+
+-- WHERE version_cambio > :desde ORDER BY version_cambio: recorre solo lo que cambió desde la versión del cliente.
+CREATE INDEX IF NOT EXISTS idx_celula_version_cambio ON celula (version_cambio);
+CREATE INDEX IF NOT EXISTS idx_usuario_version_cambio ON usuario (version_cambio);
@@ -0,0 +1,50 @@
+-- La versión de cambio pasa a asignarse al confirmar la transacción y no al escribir la fila. Con nextval al escribir,
+-- una transacción larga (un alta por lotes o una importación de cientos de filas) podía confirmar con versiones menores
+-- que las de otra más corta que confirmó antes: un cliente que ya había recibido la versión mayor salteaba esas filas.
+--
+-- Ahora escribir una fila solo la marca como pendiente (version_cambio NULL, fuera del índice y de GET
+-- /celulas/cambios). Un trigger diferido, que corre justo antes del commit, toma un advisory lock de la transacción y
+-- recién ahí le da la versión. El lock se suelta al confirmar, así que las versiones salen en el mismo orden en que
+-- confirman las transacciones: si un cliente ve la versión N, todo lo que tenga una versión menor ya está confirmado.
+-- El costo es que los commits que tocan celula o usuario se hacen de a uno, y un UPDATE extra por fila escrita.
+
+ALTER TABLE usuario ALTER COLUMN version_cambio DROP NOT NULL, ALTER COLUMN version_cambio DROP DEFAULT;
+ALTER TABLE celula ALTER COLUMN version_cambio DROP NOT NULL, ALTER COLUMN version_cambio DROP DEFAULT;
+
+-- Un cambio real de la fila la deja pendiente. Si lo que cambió es la propia versión (la asigna el trigger diferido
+-- de abajo) se respeta.
+CREATE OR REPLACE FUNCTION marcar_version_cambio() RETURNS trigger AS $$
+BEGIN
+    IF NEW.version_cambio IS NOT DISTINCT FROM OLD.version_cambio THEN
+        NEW.version_cambio := NULL;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Los datos visibles de un usuario cambiaron: sus células también quedan pendientes.
+CREATE OR REPLACE FUNCTION marcar_celulas_del_usuario() RETURNS trigger AS $$
+BEGIN
+    UPDATE celula SET version_cambio = NULL
+    WHERE (lider_id = NEW.id OR timoteo_id = NEW.id) AND version_cambio IS NOT NULL;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Antes del commit, de a una transacción por vez: versión nueva para cada fila que quedó pendiente.
+CREATE OR REPLACE FUNCTION asignar_version_cambio() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('version_cambio'));
+    EXECUTE format('UPDATE %I SET version_cambio = nextval(''version_cambio_seq'') WHERE id = $1 AND version_cambio IS NULL',
+                   TG_TABLE_NAME)
+        USING NEW.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE CONSTRAINT TRIGGER trg_usuario_asignar_version AFTER INSERT OR UPDATE ON usuario
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW WHEN (NEW.version_cambio IS NULL) EXECUTE FUNCTION asignar_version_cambio();
+CREATE CONSTRAINT TRIGGER trg_celula_asignar_version AFTER INSERT OR UPDATE ON celula
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW WHEN (NEW.version_cambio IS NULL) EXECUTE FUNCTION asignar_version_cambio();
@@ -0,0 +1,12 @@
+-- Búsqueda por texto de /celulas/pagina: LOWER(nombre) LIKE '%texto%' OR LOWER(direccion) LIKE '%texto%'. Un índice
+-- B-tree no sirve para un LIKE que empieza con %; uno GIN de trigramas (pg_trgm) sí, y PostgreSQL combina los dos con
+-- un BitmapOr. Son parciales como los de V2: solo las células activas.
+--
+-- pg_trgm viene con PostgreSQL y desde la versión 13 es una extensión "trusted": la puede crear el dueño de la base,
+-- sin superusuario. Con textos de menos de tres caracteres el índice no filtra y se vuelve a leer la tabla.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_celula_alta_nombre_trgm ON celula USING gin (lower(nombre) gin_trgm_ops)
+    WHERE fecha_baja IS NULL;
+CREATE INDEX IF NOT EXISTS idx_celula_alta_direccion_trgm ON celula USING gin (lower(direccion) gin_trgm_ops)
+    WHERE fecha_baja IS NULL;
@@ -0,0 +1,8 @@
+-- Los QR guardados en Base64 en celula.qr_whatsapp: desde que el QR se genera a demanda (GET /celulas/{id}/qr) la
+-- columna ya no se lee. Se vacía una sola vez, acá, en lugar de en cada arranque de la aplicación.
+--
+-- Sin el trigger de V3/V4 que marca la fila como cambiada: el QR no viaja en GET /celulas/cambios, así que las células
+-- no tienen que volver a mandarse a los clientes. DISABLE TRIGGER vale para esta transacción de la migración.
+ALTER TABLE celula DISABLE TRIGGER trg_celula_version_cambio;
+UPDATE celula SET qr_whatsapp = NULL WHERE qr_whatsapp IS NOT NULL;
+ALTER TABLE celula ENABLE TRIGGER trg_celula_version_cambio;
@@ -0,0 +1,46 @@
+package org.unestilodevida.backend;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.unestilodevida.backend.jwt.UsuarioAutenticado;
+import org.unestilodevida.backend.model.Usuario;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Mide el costo de autorizar una request con MatrizPermisos. Depende de la máquina, así que no corre con mvn test: se
+ejecuta aparte con mvn test -Pbenchmarks. No mide el costo exacto (eso pide JMH): solo avisa si autorizar pasa a costar
+órdenes de magnitud más, por ejemplo por volver a recorrer authorities o evaluar SpEL en cada request.
+*/
+class MatrizPermisosBenchmark {
+
+	private final MatrizPermisos matriz = new MatrizPermisos();
+
+	@Test
+	void autorizarUnaRequestCuestaMenosDeUnMicrosegundo() {
+		UsuarioAutenticado usuario = new UsuarioAutenticado(1L, "usuario@test.com", Usuario.Rol.LIDER);
+		Authentication lider = new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
+		RequestAuthorizationContext[] contextos = {
+				new RequestAuthorizationContext(new MockHttpServletRequest("GET", "/celulas")),
+				new RequestAuthorizationContext(new MockHttpServletRequest("DELETE", "/usuarios/delete/3")),
+				new RequestAuthorizationContext(new MockHttpServletRequest("PATCH", "/celulas/update/7")),
+				new RequestAuthorizationContext(new MockHttpServletRequest("GET", "/usuarios")),
+		};
+		int iteraciones = 2_000_000;
+		int permitidos = 0;
+		for (int i = 0; i < iteraciones; i++) { // calentamiento
+			permitidos += matriz.check(() -> lider, contextos[i & 3]).isGranted() ? 1 : 0;
+		}
+		long inicio = System.nanoTime();
+		for (int i = 0; i < iteraciones; i++) {
+			permitidos += matriz.check(() -> lider, contextos[i & 3]).isGranted() ? 1 : 0;
+		}
+		double nanosPorRequest = (System.nanoTime() - inicio) / (double) iteraciones;
+
+		assertThat(permitidos).isEqualTo(iteraciones); // 2 de cada 4 requests, en las dos vueltas
+		assertThat(nanosPorRequest).as("ns por request").isLessThan(1_000);
+	}
+}
@@ -0,0 +1,82 @@
+package org.unestilodevida.backend;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.unestilodevida.backend.jwt.UsuarioAutenticado;
+import org.unestilodevida.backend.model.Usuario;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatrizPermisosTests {
+
+	private final MatrizPermisos matriz = new MatrizPermisos();
+
+	@Test
+	void soloAdminPuedeCrearYBorrar() {
+		assertThat(permitido(Usuario.Rol.ADMIN, "POST", "/celulas/create")).isTrue();
+		assertThat(permitido(Usuario.Rol.LIDER, "POST", "/celulas/create")).isFalse();
+		assertThat(permitido(Usuario.Rol.TIMOTEO, "DELETE", "/celulas/delete/7")).isFalse();
+		assertThat(permitido(Usuario.Rol.LIDER, "POST", "/celulas/bulk")).isFalse();
+		assertThat(permitido(Usuario.Rol.LIDER, "POST", "/usuarios/bulk")).isFalse();
+		assertThat(permitido(Usuario.Rol.LIDER, "GET", "/usuarios")).isFalse();
+		assertThat(permitido(Usuario.Rol.LIDER, "DELETE", "/usuarios/delete/3")).isFalse();
+		assertThat(permitido(Usuario.Rol.ADMIN, "DELETE", "/usuarios/delete/3")).isTrue();
+	}
+
+	@Test
+	void elRestoLoPuedeUsarCualquierRol() {
+		for (Usuario.Rol rol : Usuario.Rol.values()) {
+			assertThat(permitido(rol, "GET", "/celulas")).isTrue();
+			assertThat(permitido(rol, "PATCH", "/celulas/update/7")).isTrue(); // CelulaService verifica que sea la propia
+			assertThat(permitido(rol, "GET", "/usuarios/lideres")).isTrue();
+		}
+	}
+
+	@Test
+	void cadaUnoEditaSoloSusDatos() {
+		assertThat(permitido(Usuario.Rol.ADMIN, 5L, "PUT", "/usuarios/update/3")).isTrue();
+		assertThat(permitido(Usuario.Rol.LIDER, 3L, "PUT", "/usuarios/update/3")).isTrue();
+		assertThat(permitido(Usuario.Rol.LIDER, 5L, "PUT", "/usuarios/update/3")).isFalse();
+		assertThat(permitido(Usuario.Rol.TIMOTEO, 5L, "PUT", "/usuarios/update/3;x=1")).isFalse();
+		assertThat(permitido(Usuario.Rol.TIMOTEO, 3L, "POST", "/usuarios/updateClave/3")).isTrue();
+		assertThat(permitido(Usuario.Rol.ADMIN, 5L, "POST", "/usuarios/updateClave/3")).isFalse();
+	}
+
+	@Test
+	void soloAdminRegistraUsuarios() {
+		assertThat(permitido(Usuario.Rol.ADMIN, "POST", "/auth/register")).isTrue();
+		assertThat(permitido(Usuario.Rol.LIDER, "POST", "/auth/register")).isFalse();
+		assertThat(permitido(Usuario.Rol.TIMOTEO, "POST", "/auth/register")).isFalse();
+	}
+
+	// Spring MVC ignora los ";parametros" de la ruta al elegir el controller; la matriz tiene que hacer lo mismo.
+	@Test
+	void noSeSaltaConParametrosEnLaRuta() {
+		assertThat(permitido(Usuario.Rol.LIDER, "POST", "/celulas/create;x=1")).isFalse();
+		assertThat(permitido(Usuario.Rol.LIDER, "GET", "/usuarios;jsessionid=1")).isFalse();
+	}
+
+	@Test
+	void sinRolNoHayAcceso() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/celulas");
+		assertThat(matriz.check(() -> null, new RequestAuthorizationContext(request)).isGranted()).isFalse();
+	}
+
+	private boolean permitido(Usuario.Rol rol, String metodo, String ruta) {
+		return permitido(rol, 1L, metodo, ruta);
+	}
+
+	private boolean permitido(Usuario.Rol rol, Long usuarioId, String metodo, String ruta) {
+		MockHttpServletRequest request = new MockHttpServletRequest(metodo, ruta);
+		Authentication authentication = autenticado(rol, usuarioId);
+		return matriz.check(() -> authentication, new RequestAuthorizationContext(request)).isGranted();
+	}
+
+	private static Authentication autenticado(Usuario.Rol rol, Long usuarioId) {
+		UsuarioAutenticado usuario = new UsuarioAutenticado(usuarioId, "usuario@test.com", rol);
+		return new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
+	}
+}
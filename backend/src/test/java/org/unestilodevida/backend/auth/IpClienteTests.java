@@ -0,0 +1,82 @@
+package org.unestilodevida.backend.auth;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.mockito.Mockito.verify;
+
+/*
+La IP que ven los límites por IP de /auth sale de X-Forwarded-For solo cuando el request llega desde un proxy
+confiable (server.tomcat.remoteip.internal-proxies, ver proxy.properties). Levanta Tomcat de verdad: el que resuelve
+la IP es su RemoteIpValve, no un filtro de Spring. Los requests del test llegan desde 127.0.0.1.
+*/
+class IpClienteTests {
+
+	private static final String CLAVE_JWT = "jwt.secret.key=clave-de-prueba-de-al-menos-treinta-y-dos-bytes";
+
+	@Nested
+	@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = CLAVE_JWT)
+	class DetrasDeUnProxyConfiable {
+
+		@Autowired
+		private TestRestTemplate rest;
+
+		@MockitoBean
+		private LimitadorIntentos limitadorIntentos;
+
+		@MockitoBean
+		private AuthService authService;
+
+		@Test
+		void usaLaIpQueMandaElProxy() {
+			refresh("203.0.113.7");
+			verify(limitadorIntentos).verificarIp("203.0.113.7");
+		}
+
+		// El proxy agrega la IP real al final; lo que el cliente haya puesto antes no cuenta.
+		@Test
+		void noSePuedeElegirLaIpAnteponiendoOtra() {
+			refresh("1.2.3.4, 203.0.113.8");
+			verify(limitadorIntentos).verificarIp("203.0.113.8");
+		}
+
+		private void refresh(String forwardedFor) {
+			HttpHeaders headers = new HttpHeaders();
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			headers.set("X-Forwarded-For", forwardedFor);
+			rest.postForEntity("/auth/refresh", new HttpEntity<>("{\"refreshToken\":\"x\"}", headers), String.class);
+		}
+	}
+
+	@Nested
+	@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+			properties = {CLAVE_JWT, "server.tomcat.remoteip.internal-proxies=10\\.0\\.0\\.1"})
+	class SinProxyConfiable {
+
+		@Autowired
+		private TestRestTemplate rest;
+
+		@MockitoBean
+		private LimitadorIntentos limitadorIntentos;
+
+		@MockitoBean
+		private AuthService authService;
+
+		@Test
+		void ignoraElHeaderYUsaLaIpDeLaConexion() {
+			HttpHeaders headers = new HttpHeaders();
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			headers.set("X-Forwarded-For", "203.0.113.7");
+			rest.postForEntity("/auth/refresh", new HttpEntity<>("{\"refreshToken\":\"x\"}", headers), String.class);
+
+			verify(limitadorIntentos).verificarIp("127.0.0.1");
+		}
+	}
+}
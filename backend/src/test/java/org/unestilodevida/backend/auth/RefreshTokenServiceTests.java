@@ -0,0 +1,105 @@
+package org.unestilodevida.backend.auth;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.server.ResponseStatusException;
+import org.unestilodevida.backend.jwt.JwtTokenCache;
+import org.unestilodevida.backend.jwt.RevocacionTokens;
+import org.unestilodevida.backend.model.Usuario;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({RefreshTokenService.class, RevocacionTokens.class, JwtTokenCache.class})
+class RefreshTokenServiceTests {
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void rotarEntregaUnTokenNuevoYElAnteriorDejaDeServir() {
+		Usuario usuario = usuario();
+		String inicial = refreshTokenService.emitir(usuario);
+
+		RefreshTokenService.Rotacion rotacion = refreshTokenService.rotar(inicial);
+
+		assertThat(rotacion.usuario().getId()).isEqualTo(usuario.getId());
+		assertThat(rotacion.refreshToken()).isNotEqualTo(inicial);
+		rotadosHaceUnMinuto();
+		assertThatThrownBy(() -> refreshTokenService.rotar(inicial)).isInstanceOf(ResponseStatusException.class);
+	}
+
+	// Si se reutiliza un token rotado hace más que los segundos de gracia, se revoca toda la familia: tampoco sirve el
+	// último token emitido.
+	@Test
+	void reutilizarUnTokenRevocaLaFamilia() {
+		Usuario usuario = usuario();
+		String inicial = refreshTokenService.emitir(usuario);
+		String siguiente = refreshTokenService.rotar(inicial).refreshToken();
+		rotadosHaceUnMinuto();
+
+		assertThatThrownBy(() -> refreshTokenService.rotar(inicial)).isInstanceOf(ResponseStatusException.class);
+		entityManager.clear();
+
+		assertThatThrownBy(() -> refreshTokenService.rotar(siguiente)).isInstanceOf(ResponseStatusException.class);
+	}
+
+	// Dos pestañas renuevan a la vez con el mismo token: la segunda recibe otro token de la familia y ninguna pierde la sesión.
+	@Test
+	void reusarDentroDeLaGraciaNoCierraLaSesion() {
+		Usuario usuario = usuario();
+		String inicial = refreshTokenService.emitir(usuario);
+		String primera = refreshTokenService.rotar(inicial).refreshToken();
+		String segunda = refreshTokenService.rotar(inicial).refreshToken();
+		entityManager.clear();
+
+		assertThat(segunda).isNotEqualTo(primera);
+		assertThat(refreshTokenService.rotar(primera).refreshToken()).isNotNull();
+		assertThat(refreshTokenService.rotar(segunda).refreshToken()).isNotNull();
+	}
+
+	// Después de un logout el token rotado no sirve, aunque esté dentro de la gracia.
+	@Test
+	void laGraciaNoReviveUnaSesionCerrada() {
+		Usuario usuario = usuario();
+		String inicial = refreshTokenService.emitir(usuario);
+		String siguiente = refreshTokenService.rotar(inicial).refreshToken();
+		refreshTokenService.revocar(siguiente);
+		entityManager.clear();
+
+		assertThatThrownBy(() -> refreshTokenService.rotar(inicial)).isInstanceOf(ResponseStatusException.class);
+	}
+
+	@Test
+	void unTokenDesconocidoEsRechazado() {
+		assertThatThrownBy(() -> refreshTokenService.rotar("no-existe")).isInstanceOf(ResponseStatusException.class);
+	}
+
+	private void rotadosHaceUnMinuto() {
+		entityManager.createQuery("UPDATE RefreshToken r SET r.usadoEn = :antes WHERE r.usadoEn IS NOT NULL")
+				.setParameter("antes", new Date(System.currentTimeMillis() - 60_000))
+				.executeUpdate();
+		entityManager.clear();
+	}
+
+	private Usuario usuario() {
+		Usuario usuario = Usuario.builder()
+				.nombre("Ana")
+				.apellido("Pérez")
+				.email("ana-" + System.nanoTime() + "@test.com")
+				.clave("x")
+				.rol(Usuario.Rol.LIDER)
+				.build();
+		entityManager.persist(usuario);
+		return usuario;
+	}
+}
@@ -0,0 +1,164 @@
+package org.unestilodevida.backend.evento;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.unestilodevida.backend.evento.CambioEntidadEvent.Entidad;
+import org.unestilodevida.backend.evento.CambioEntidadEvent.Operacion;
+import org.unestilodevida.backend.service.VersionesColecciones;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DifusorCambiosTests {
+
+	private final List<DifusorCambios> difusores = new ArrayList<>();
+	private final List<CountDownLatch> trabas = new ArrayList<>();
+	private CountDownLatch proximaTraba;
+
+	@AfterEach
+	void cerrar() {
+		trabas.forEach(CountDownLatch::countDown);
+		difusores.forEach(DifusorCambios::cerrar);
+	}
+
+	// Mientras se envía el primer evento, la misma célula cambia dos veces: al cliente le llega solo el último aviso.
+	@Test
+	void losCambiosDeUnaMismaFilaSeCompactan() throws Exception {
+		DifusorCambios difusor = difusor(256, 10_000, 60_000);
+		CountDownLatch traba = new CountDownLatch(1);
+		EmitterDePrueba cliente = suscribir(difusor, traba);
+
+		difusor.registrarCambio(new CambioEntidadEvent(Entidad.CELULA, 1L, Operacion.ALTA));
+		difusor.registrarCambio(new CambioEntidadEvent(Entidad.CELULA, 2L, Operacion.ALTA));
+		difusor.registrarCambio(new CambioEntidadEvent(Entidad.CELULA, 1L, Operacion.MODIFICACION));
+		difusor.registrarCambio(new CambioEntidadEvent(Entidad.USUARIO, 1L, Operacion.BAJA));
+		traba.countDown();
+
+		assertThat(cliente.siguiente()).startsWith("event:conectado");
+		assertThat(cliente.siguiente()).contains("entidad=CELULA, id=2, operacion=ALTA");
+		assertThat(cliente.siguiente()).contains("entidad=CELULA, id=1, operacion=MODIFICACION");
+		assertThat(cliente.siguiente()).contains("entidad=USUARIO, id=1, operacion=BAJA");
+		assertThat(cliente.nada()).isTrue();
+	}
+
+	// Con la cola llena se descartan los avisos y se manda un solo "resync"; después los avisos vuelven a llegar.
+	@Test
+	void siLaColaSeLlenaSeMandaResync() throws Exception {
+		DifusorCambios difusor = difusor(2, 10_000, 60_000);
+		CountDownLatch traba = new CountDownLatch(1);
+		EmitterDePrueba cliente = suscribir(difusor, traba);
+
+		for (long id = 1; id <= 3; id++) {
+			difusor.registrarCambio(new CambioEntidadEvent(Entidad.CELULA, id, Operacion.ALTA));
+		}
+		traba.countDown();
+
+		assertThat(cliente.siguiente()).startsWith("event:conectado");
+		assertThat(cliente.siguiente()).startsWith("event:resync");
+		assertThat(cliente.nada()).isTrue();
+
+		difusor.registrarCambio(new CambioEntidadEvent(Entidad.CELULA, 9L, Operacion.BAJA));
+		assertThat(cliente.siguiente()).contains("id=9, operacion=BAJA");
+	}
+
+	@Test
+	void sinCambiosSeMandaElLatido() throws Exception {
+		DifusorCambios difusor = difusor(256, 10_000, 50);
+		EmitterDePrueba cliente = suscribir(difusor, null);
+
+		assertThat(cliente.siguiente()).startsWith("event:conectado");
+		assertThat(cliente.siguiente()).startsWith(":");
+	}
+
+	// Un cliente que no lee ocupa solo su hilo: los demás siguen recibiendo avisos, y al vencer el tiempo de envío se
+	// lo da de baja.
+	@Test
+	void unClienteTrabadoNoFrenaALosDemasYSeDaDeBaja() throws Exception {
+		DifusorCambios difusor = difusor(256, 200, 60_000);
+		suscribir(difusor, new CountDownLatch(1));
+		EmitterDePrueba otro = suscribir(difusor, null);
+		assertThat(otro.siguiente()).startsWith("event:conectado");
+
+		difusor.registrarCambio(new CambioEntidadEvent(Entidad.CELULA, 1L, Operacion.ALTA));
+		assertThat(otro.siguiente()).contains("id=1, operacion=ALTA");
+
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (difusor.cantidadSuscriptores() > 1 && System.nanoTime() < limite) {
+			Thread.sleep(20);
+		}
+		assertThat(difusor.cantidadSuscriptores()).isEqualTo(1);
+		difusor.registrarCambio(new CambioEntidadEvent(Entidad.CELULA, 2L, Operacion.ALTA));
+		assertThat(otro.siguiente()).contains("id=2, operacion=ALTA");
+	}
+
+	private DifusorCambios difusor(int maxPendientes, long timeoutEnvioMs, long latidoMs) {
+		DifusorCambios difusor = new DifusorCambios(new VersionesColecciones(), 10, maxPendientes, 1, 4, timeoutEnvioMs,
+				latidoMs, 60_000) {
+			@Override
+			SseEmitter nuevoEmitter(long duracionMs) {
+				return new EmitterDePrueba(proximaTraba);
+			}
+		};
+		difusores.add(difusor);
+		return difusor;
+	}
+
+	private EmitterDePrueba suscribir(DifusorCambios difusor, CountDownLatch traba) throws InterruptedException {
+		if (traba != null) {
+			trabas.add(traba); // se suelta al terminar el test
+		}
+		proximaTraba = traba;
+		EmitterDePrueba emitter = (EmitterDePrueba) difusor.suscribir();
+		if (traba != null) {
+			// Lo que se publique a partir de ahora espera detrás del primer envío.
+			assertThat(emitter.enviando.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+		return emitter;
+	}
+
+	// Guarda el texto de cada evento; si tiene una traba, cada envío espera a que se suelte (un cliente que no lee).
+	private static final class EmitterDePrueba extends SseEmitter {
+		private final BlockingQueue<String> enviados = new LinkedBlockingQueue<>();
+		private final CountDownLatch traba;
+		private final CountDownLatch enviando = new CountDownLatch(1);
+
+		EmitterDePrueba(CountDownLatch traba) {
+			this.traba = traba;
+		}
+
+		@Override
+		public void send(SseEventBuilder evento) {
+			enviando.countDown();
+			if (traba != null) {
+				try {
+					traba.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			StringBuilder texto = new StringBuilder();
+			for (ResponseBodyEmitter.DataWithMediaType parte : evento.build()) {
+				texto.append(parte.getData());
+			}
+			enviados.add(texto.toString());
+		}
+
+		String siguiente() throws InterruptedException {
+			String evento = enviados.poll(5, TimeUnit.SECONDS);
+			assertThat(evento).as("evento enviado").isNotNull();
+			return evento;
+		}
+
+		boolean nada() throws InterruptedException {
+			return enviados.poll(200, TimeUnit.MILLISECONDS) == null;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package org.unestilodevida.backend.jwt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.unestilodevida.backend.model.Usuario;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenCacheTests {
+
+	private final JwtTokenCache cache = new JwtTokenCache(10);
+
+	@Test
+	void devuelveElTokenGuardadoHastaQueVence() {
+		guardar("vigente", "ana@test.com", 60_000);
+		guardar("vencido", "ana@test.com", -1);
+
+		assertThat(cache.obtener("vigente").usuario().getUsername()).isEqualTo("ana@test.com");
+		assertThat(cache.obtener("vencido")).isNull();
+		assertThat(cache.obtener("desconocido")).isNull();
+	}
+
+	@Test
+	void llenoDescartaPrimeroLosVencidosYDespuesUnaParte() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			guardar("corto-" + i, "ana@test.com", 50);
+		}
+		for (int i = 0; i < 5; i++) {
+			guardar("largo-" + i, "ana@test.com", 60_000);
+		}
+		Thread.sleep(100);
+
+		guardar("nuevo", "ana@test.com", 60_000);
+		for (int i = 0; i < 5; i++) {
+			assertThat(cache.obtener("largo-" + i)).isNotNull();
+		}
+
+		for (int i = 0; i < 5; i++) {
+			guardar("otro-" + i, "bruno@test.com", 60_000);
+		}
+		int presentes = 0;
+		for (String token : new String[]{"largo-0", "largo-1", "largo-2", "largo-3", "largo-4", "nuevo",
+				"otro-0", "otro-1", "otro-2", "otro-3", "otro-4"}) {
+			presentes += cache.obtener(token) != null ? 1 : 0;
+		}
+		assertThat(presentes).isLessThanOrEqualTo(10);
+		assertThat(cache.obtener("otro-4")).isNotNull();
+	}
+
+	@Test
+	void invalidarUnUsuarioSoloQuitaSusTokens() {
+		guardar("ana-1", "ana@test.com", 60_000);
+		guardar("ana-2", "ana@test.com", 60_000);
+		guardar("bruno", "bruno@test.com", 60_000);
+
+		cache.invalidarUsuario("ana@test.com");
+
+		assertThat(cache.obtener("ana-1")).isNull();
+		assertThat(cache.obtener("ana-2")).isNull();
+		assertThat(cache.obtener("bruno")).isNotNull();
+	}
+
+	// Dentro de la transacción que modifica al usuario el token sigue cacheado; se quita recién con el commit.
+	@Test
+	void dentroDeUnaTransaccionSeInvalidaAlConfirmar() {
+		guardar("ana", "ana@test.com", 60_000);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.invalidarUsuario("ana@test.com");
+			assertThat(cache.obtener("ana")).isNotNull();
+
+			TransactionSynchronizationUtils.triggerAfterCommit();
+			assertThat(cache.obtener("ana")).isNull();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	// Una request que validó el token con los datos anteriores a la invalidación no lo deja en el cache.
+	@Test
+	void noGuardaLoValidadoAntesDeUnaInvalidacion() {
+		long generacion = cache.generacion();
+		cache.invalidarUsuario("ana@test.com");
+
+		cache.guardar("ana", usuario("ana@test.com"), claims(60_000), generacion);
+
+		assertThat(cache.obtener("ana")).isNull();
+	}
+
+	private void guardar(String token, String email, long vigenciaMs) {
+		cache.guardar(token, usuario(email), claims(vigenciaMs), cache.generacion());
+	}
+
+	private static UsuarioAutenticado usuario(String email) {
+		return new UsuarioAutenticado(1L, email, Usuario.Rol.LIDER);
+	}
+
+	private static TokenClaims claims(long vigenciaMs) {
+		return new TokenClaims(null, null, null, null, null, null, null, null, new Date(),
+				new Date(System.currentTimeMillis() + vigenciaMs));
+	}
+}
@@ -0,0 +1,26 @@
+package org.unestilodevida.backend.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketsEventosTests {
+
+	@Test
+	void unTicketSirveUnaSolaVez() {
+		TicketsEventos tickets = new TicketsEventos(30);
+		String ticket = tickets.emitir("token");
+
+		assertThat(ticket).isNotEqualTo("token");
+		assertThat(tickets.canjear(ticket)).isEqualTo("token");
+		assertThat(tickets.canjear(ticket)).isNull();
+		assertThat(tickets.canjear("no-existe")).isNull();
+	}
+
+	@Test
+	void unTicketVencidoNoSirve() {
+		TicketsEventos tickets = new TicketsEventos(-1);
+
+		assertThat(tickets.canjear(tickets.emitir("token"))).isNull();
+	}
+}
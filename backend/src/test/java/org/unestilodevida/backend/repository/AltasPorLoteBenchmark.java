@@ -0,0 +1,76 @@
+package org.unestilodevida.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.unestilodevida.backend.model.Celula;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Compara 1000 save() con flush, como hacía una alta por request, contra un solo batch de AltasPorLoteRepository. Es una
+comparación aproximada (H2 en memoria, sin la red ni el costo HTTP de cada alta individual) y depende de la máquina,
+así que no corre con mvn test: se ejecuta aparte con mvn test -Pbenchmarks. Que se use el batch lo verifica
+AltasPorLoteRepositoryTests.
+*/
+@DataJpaTest
+@Import(AltasPorLoteRepository.class)
+class AltasPorLoteBenchmark {
+
+	@Autowired
+	private AltasPorLoteRepository altasPorLoteRepository;
+
+	@Autowired
+	private CelulaRepository celulaRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void unBatchEsMasRapidoQueUnaAltaPorVez() {
+		int cantidad = 1000;
+		insertarDeAUna(100); // calentamiento
+		altasPorLoteRepository.insertarCelulas(celulas(100));
+
+		long inicio = System.nanoTime();
+		insertarDeAUna(cantidad);
+		long deAUna = System.nanoTime() - inicio;
+
+		inicio = System.nanoTime();
+		List<Long> ids = altasPorLoteRepository.insertarCelulas(celulas(cantidad));
+		long enBatch = System.nanoTime() - inicio;
+
+		assertThat(ids).hasSize(cantidad);
+		assertThat(enBatch).as("ns en batch contra %d ns de a una", deAUna).isLessThan(deAUna);
+	}
+
+	private void insertarDeAUna(int cantidad) {
+		for (Celula celula : celulas(cantidad)) {
+			celulaRepository.save(celula);
+			entityManager.flush();
+		}
+		entityManager.clear();
+	}
+
+	private static List<Celula> celulas(int cantidad) {
+		List<Celula> celulas = new ArrayList<>(cantidad);
+		for (int i = 0; i < cantidad; i++) {
+			celulas.add(Celula.builder()
+					.nombre("Célula " + i)
+					.dia(Celula.DiaSemana.JUEVES)
+					.genero(Celula.Genero.HOMBRE)
+					.horaInicio(LocalTime.of(19, 30))
+					.direccion("Calle 123")
+					.telefono("1155550000")
+					.enlaceWhatsapp("https://wa.me/1155550000")
+					.build());
+		}
+		return celulas;
+	}
+}
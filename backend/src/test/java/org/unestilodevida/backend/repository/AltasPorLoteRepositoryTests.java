@@ -0,0 +1,158 @@
+package org.unestilodevida.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.unestilodevida.backend.model.Celula;
+import org.unestilodevida.backend.model.Usuario;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({AltasPorLoteRepository.class, AltasPorLoteRepositoryTests.SentenciasContadas.class})
+class AltasPorLoteRepositoryTests {
+
+	@Autowired
+	private AltasPorLoteRepository altasPorLoteRepository;
+
+	@Autowired
+	private CelulaRepository celulaRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void devuelveLosIdsEnElOrdenRecibido() {
+		Usuario lider = usuarioRepository.save(usuario("lider@test.com"));
+		List<Long> ids = altasPorLoteRepository.insertarCelulas(List.of(
+				celula("Primera", lider), celula("Segunda", null), celula("Tercera", null)));
+
+		assertThat(ids).hasSize(3).doesNotContainNull();
+		entityManager.clear();
+		assertThat(celulaRepository.findById(ids.get(0)).orElseThrow().getNombre()).isEqualTo("Primera");
+		assertThat(celulaRepository.findById(ids.get(0)).orElseThrow().getLider().getId()).isEqualTo(lider.getId());
+		assertThat(celulaRepository.findById(ids.get(2)).orElseThrow().getNombre()).isEqualTo("Tercera");
+	}
+
+	@Test
+	void insertaUsuariosConVersionDeSeguridadInicial() {
+		List<Long> ids = altasPorLoteRepository.insertarUsuarios(List.of(usuario("a@test.com"), usuario("b@test.com")));
+
+		entityManager.clear();
+		Usuario b = usuarioRepository.findById(ids.get(1)).orElseThrow();
+		assertThat(b.getEmail()).isEqualTo("b@test.com");
+		assertThat(b.getVersionSeguridad()).isZero();
+	}
+
+	// Todas las filas tienen que viajar en un solo executeBatch: si el driver o JdbcTemplate cayeran a un INSERT por
+	// fila, el resultado sería el mismo pero se perdería la razón de ser del repositorio.
+	@Test
+	void mandaTodasLasFilasEnUnSoloBatch() {
+		List<Celula> celulas = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			celulas.add(celula("Célula " + i, null));
+		}
+		long antes = celulaRepository.count();
+		SentenciasContadas.reiniciar();
+
+		List<Long> ids = altasPorLoteRepository.insertarCelulas(celulas);
+
+		assertThat(SentenciasContadas.filasEnBatch.get()).isEqualTo(50);
+		assertThat(SentenciasContadas.batches.get()).isEqualTo(1);
+		assertThat(SentenciasContadas.individuales.get()).isZero();
+		assertThat(ids).hasSize(50).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(celulaRepository.count()).isEqualTo(antes + 50);
+	}
+
+	private static Celula celula(String nombre, Usuario lider) {
+		return Celula.builder()
+				.nombre(nombre)
+				.dia(Celula.DiaSemana.JUEVES)
+				.genero(Celula.Genero.HOMBRE)
+				.horaInicio(LocalTime.of(19, 30))
+				.direccion("Calle 123")
+				.telefono("1155550000")
+				.enlaceWhatsapp("https://wa.me/1155550000")
+				.lider(lider)
+				.build();
+	}
+
+	private static Usuario usuario(String email) {
+		return Usuario.builder()
+				.nombre("Nombre")
+				.apellido("Apellido")
+				.email(email)
+				.clave("hash")
+				.rol(Usuario.Rol.LIDER)
+				.build();
+	}
+
+	// Envuelve el DataSource para contar cómo se ejecutan los PreparedStatement: filas agregadas con addBatch, llamadas
+	// a executeBatch y ejecuciones sueltas (executeUpdate / execute).
+	@TestConfiguration
+	static class SentenciasContadas {
+
+		static final AtomicInteger filasEnBatch = new AtomicInteger();
+		static final AtomicInteger batches = new AtomicInteger();
+		static final AtomicInteger individuales = new AtomicInteger();
+
+		static void reiniciar() {
+			filasEnBatch.set(0);
+			batches.set(0);
+			individuales.set(0);
+		}
+
+		@Bean
+		static BeanPostProcessor contarSentencias() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource dataSource ? envolver(DataSource.class, dataSource) : bean;
+				}
+			};
+		}
+
+		private static <T> T envolver(Class<T> tipo, T objeto) {
+			return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+				switch (metodo.getName()) {
+					case "addBatch" -> filasEnBatch.incrementAndGet();
+					case "executeBatch" -> batches.incrementAndGet();
+					case "executeUpdate", "execute" -> individuales.incrementAndGet();
+					default -> {
+					}
+				}
+				Object resultado;
+				try {
+					resultado = metodo.invoke(objeto, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+				if (resultado instanceof Connection conexion) {
+					return envolver(Connection.class, conexion);
+				}
+				if (resultado instanceof PreparedStatement sentencia && metodo.getName().equals("prepareStatement")) {
+					return envolver(PreparedStatement.class, sentencia);
+				}
+				return resultado;
+			}));
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package org.unestilodevida.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
+import org.unestilodevida.backend.model.Celula;
+import org.unestilodevida.backend.model.Usuario;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CelulaRepositoryTests {
+
+	@Autowired
+	private CelulaRepository celulaRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void listarCelulasAltaUsaUnaSolaConsulta() {
+		assertThat(contarConsultasDelListado(5)).isEqualTo(1);
+		assertThat(contarConsultasDelListado(25)).isEqualTo(1);
+	}
+
+	// El patrón llega escapado (CelulaService.patronLike): % y _ escritos por el usuario no son comodines.
+	@Test
+	void buscarPaginaPorTextoRespetaElEscape() {
+		celulaRepository.deleteAll();
+		for (String nombre : List.of("Jóvenes 100%", "Jóvenes 1000", "casa_norte", "casaXnorte")) {
+			entityManager.persist(Celula.builder()
+					.nombre(nombre)
+					.dia(Celula.DiaSemana.MARTES)
+					.genero(Celula.Genero.MUJER)
+					.horaInicio(LocalTime.of(20, 0))
+					.direccion("Calle 1")
+					.telefono("1155550000")
+					.build());
+		}
+		entityManager.flush();
+
+		assertThat(nombres("%100\\%%")).containsExactly("Jóvenes 100%");
+		assertThat(nombres("%casa\\_norte%")).containsExactly("casa_norte");
+		assertThat(nombres("%jóvenes%")).containsExactly("Jóvenes 100%", "Jóvenes 1000");
+		assertThat(celulaRepository.buscarPagina(0L, Celula.DiaSemana.LUNES, null, null, null, null, Limit.of(10))).isEmpty();
+		assertThat(celulaRepository.buscarPagina(0L, Celula.DiaSemana.MARTES, Celula.Genero.MUJER,
+				LocalTime.of(19, 0), LocalTime.of(21, 0), null, Limit.of(10))).hasSize(4);
+	}
+
+	private List<String> nombres(String patron) {
+		return celulaRepository.buscarPagina(0L, null, null, null, null, patron, Limit.of(10)).stream()
+				.map(CelulaFilaDTO::getNombre)
+				.toList();
+	}
+
+	// Crea n células activas (cada una con líder y timoteo) y devuelve cuántos statements ejecuta el listado.
+	private long contarConsultasDelListado(int n) {
+		celulaRepository.deleteAll();
+		for (int i = 0; i < n; i++) {
+			Usuario lider = usuario("lider", i, Usuario.Rol.LIDER);
+			Usuario timoteo = usuario("timoteo", i, Usuario.Rol.TIMOTEO);
+			entityManager.persist(Celula.builder()
+					.nombre("Célula " + i)
+					.dia(Celula.DiaSemana.MARTES)
+					.genero(Celula.Genero.MUJER)
+					.horaInicio(LocalTime.of(20, 0))
+					.direccion("Calle " + i)
+					.telefono("1155550000")
+					.lider(lider)
+					.timoteo(timoteo)
+					.build());
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		List<CelulaFilaDTO> filas = celulaRepository.listarCelulasAlta();
+
+		assertThat(filas).hasSize(n);
+		assertThat(filas).allSatisfy(fila -> {
+			assertThat(fila.getLiderNombre()).isNotNull();
+			assertThat(fila.getTimoteoNombre()).isNotNull();
+		});
+		return estadisticas.getPrepareStatementCount();
+	}
+
+	private Usuario usuario(String prefijo, int i, Usuario.Rol rol) {
+		Usuario usuario = Usuario.builder()
+				.nombre(prefijo)
+				.apellido(String.valueOf(i))
+				.email(prefijo + i + "-" + System.nanoTime() + "@test.com")
+				.clave("x")
+				.rol(rol)
+				.build();
+		entityManager.persist(usuario);
+		return usuario;
+	}
+}
@@ -0,0 +1,144 @@
+package org.unestilodevida.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.BeforeTransaction;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.unestilodevida.backend.model.Celula;
+import org.unestilodevida.backend.model.Usuario;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Corre las consultas de los repositorios contra PostgreSQL (con las migraciones de Flyway) y 100.000 células, y falla
+si alguna recorre una tabla entera. En lugar de leer la salida de EXPLAIN se usa pg_stat_xact_user_tables, que cuenta
+las lecturas secuenciales hechas dentro de la transacción del test: así se mide el SQL que realmente genera Hibernate.
+
+Quedan afuera los listados completos (findCelulasAlta, listarCelulasAlta, la exportación), listarPorRol de LIDER o
+TIMOTEO y listarDisponibles (anti-join contra todas las células, se guarda en memoria): leen casi toda la tabla y ahí
+la lectura secuencial es el plan correcto.
+
+Necesita Docker; sin Docker el test se saltea.
+*/
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.flyway.enabled=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ConsultasIndexadasTests {
+
+	private static final int CELULAS = 100_000;
+	private static final int ADMINS = 100;
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static boolean sembrado;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private CelulaRepository celulaRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	// Fuera de la transacción del test, para que los datos queden confirmados y ANALYZE actualice las estadísticas.
+	@BeforeTransaction
+	void sembrar() {
+		if (sembrado) {
+			return;
+		}
+		// Cada célula i tiene como líder al usuario 2i-1 y como timoteo al 2i; los últimos usuarios son administradores.
+		jdbcTemplate.update("INSERT INTO usuario (id, nombre, apellido, email, clave, rol)" +
+				" SELECT g, 'Nombre ' || g, 'Apellido', 'usuario' || g || '@test.com', 'x'," +
+				" CASE WHEN g > ? THEN 'ADMIN' WHEN g % 2 = 1 THEN 'LIDER' ELSE 'TIMOTEO' END" +
+				" FROM generate_series(1, ?) g", 2 * CELULAS, 2 * CELULAS + ADMINS);
+		// Una de cada diez células está dada de baja.
+		jdbcTemplate.update("INSERT INTO celula (id, nombre, dia, genero, hora_inicio, direccion, telefono, fecha_baja, lider_id, timoteo_id)" +
+				" SELECT g, 'Célula ' || g," +
+				" (ARRAY['LUNES', 'MARTES', 'MIERCOLES', 'JUEVES', 'VIERNES', 'SABADO', 'DOMINGO'])[1 + g % 7]," +
+				" CASE WHEN g % 2 = 0 THEN 'HOMBRE' ELSE 'MUJER' END, TIME '18:00' + (g % 8) * INTERVAL '30 minutes'," +
+				" 'Calle ' || g, '11' || g, CASE WHEN g % 10 = 0 THEN now() END, 2 * g - 1, 2 * g" +
+				" FROM generate_series(1, ?) g", CELULAS);
+		jdbcTemplate.update("INSERT INTO refresh_token (hash, familia, usuario_id, creado_en, expira_en, revocado)" +
+				" SELECT encode(sha256(g::text::bytea), 'hex'), md5(g::text), g, now(), now() + INTERVAL '30 days', false" +
+				" FROM generate_series(1, ?) g", CELULAS);
+		jdbcTemplate.execute("ANALYZE");
+		sembrado = true;
+	}
+
+	@Test
+	void consultasDeCelula() {
+		sinLecturasSecuenciales("findNombreByUsuarioId", () -> celulaRepository.findNombreByUsuarioId(1L));
+		sinLecturasSecuenciales("findEnlaceWhatsappById", () -> celulaRepository.findEnlaceWhatsappById(5L));
+		sinLecturasSecuenciales("buscarFilaAlta", () -> celulaRepository.buscarFilaAlta(5L));
+		sinLecturasSecuenciales("listarFilasPorUsuario", () -> celulaRepository.listarFilasPorUsuario(9L));
+		sinLecturasSecuenciales("buscarPagina", () -> celulaRepository.buscarPagina(
+				0L, null, null, null, null, null, Limit.of(50)));
+		sinLecturasSecuenciales("buscarPagina por día y género", () -> celulaRepository.buscarPagina(
+				50_000L, Celula.DiaSemana.LUNES, Celula.Genero.HOMBRE, null, null, null, Limit.of(50)));
+		// LIKE '%texto%' con los índices de trigramas de V5.
+		sinLecturasSecuenciales("buscarPagina por texto", () -> celulaRepository.buscarPagina(
+				0L, null, null, null, null, "%calle 4242%", Limit.of(50)));
+		// Un cliente que ya tiene casi todo: solo las últimas 100 células cambiadas.
+		Long ultimaVersion = jdbcTemplate.queryForObject("SELECT max(version_cambio) FROM celula", Long.class);
+		sinLecturasSecuenciales("buscarCambios", () -> celulaRepository.buscarCambios(ultimaVersion - 100, Limit.of(500)));
+		sinLecturasSecuenciales("listarFilasAlta", () -> celulaRepository.listarFilasAlta(List.of(1L, 2L, 3L)));
+	}
+
+	@Test
+	void consultasDeUsuario() {
+		sinLecturasSecuenciales("findByEmail", () -> usuarioRepository.findByEmail("usuario77@test.com"));
+		sinLecturasSecuenciales("listarPorRol(ADMIN)", () -> usuarioRepository.listarPorRol(Usuario.Rol.ADMIN));
+		sinLecturasSecuenciales("findVersionSeguridadActiva", () -> usuarioRepository.findVersionSeguridadActiva(77L));
+		sinLecturasSecuenciales("findEmailsRegistrados", () -> usuarioRepository.findEmailsRegistrados(
+				List.of("usuario1@test.com", "usuario2@test.com", "nuevo@test.com")));
+		sinLecturasSecuenciales("findIdsPorEmail", () -> usuarioRepository.findIdsPorEmail(
+				List.of("usuario1@test.com", "usuario2@test.com")));
+		sinLecturasSecuenciales("buscarAsignables", () -> usuarioRepository.buscarAsignables(List.of(1L, 2L, 3L)));
+	}
+
+	@Test
+	void consultasDeRefreshToken() {
+		String hash = jdbcTemplate.queryForObject("SELECT hash FROM refresh_token WHERE usuario_id = 10", String.class);
+		String familia = jdbcTemplate.queryForObject("SELECT familia FROM refresh_token WHERE usuario_id = 10", String.class);
+		Long id = jdbcTemplate.queryForObject("SELECT id FROM refresh_token WHERE usuario_id = 10", Long.class);
+
+		sinLecturasSecuenciales("findByHash", () -> refreshTokenRepository.findByHash(hash));
+		sinLecturasSecuenciales("marcarUsado", () -> refreshTokenRepository.marcarUsado(id, new Date()));
+		sinLecturasSecuenciales("familiaRevocada", () -> refreshTokenRepository.familiaRevocada(familia));
+		sinLecturasSecuenciales("revocarFamilia", () -> refreshTokenRepository.revocarFamilia(familia));
+		sinLecturasSecuenciales("revocarPorUsuario", () -> refreshTokenRepository.revocarPorUsuario(11L));
+		sinLecturasSecuenciales("borrarVencidos", () -> refreshTokenRepository.borrarVencidos(12L, new Date()));
+	}
+
+	private void sinLecturasSecuenciales(String consulta, Runnable ejecutar) {
+		Map<String, Long> antes = lecturasSecuenciales();
+		ejecutar.run();
+		assertThat(lecturasSecuenciales()).as(consulta + " recorre una tabla entera").isEqualTo(antes);
+	}
+
+	// Lecturas secuenciales por tabla en lo que va de la transacción.
+	private Map<String, Long> lecturasSecuenciales() {
+		Map<String, Long> lecturas = new HashMap<>();
+		jdbcTemplate.query("SELECT relname, seq_scan FROM pg_stat_xact_user_tables",
+				fila -> { lecturas.put(fila.getString("relname"), fila.getLong("seq_scan")); });
+		return lecturas;
+	}
+}
@@ -0,0 +1,67 @@
+package org.unestilodevida.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.unestilodevida.backend.dto.UsuarioResumenDTO;
+import org.unestilodevida.backend.model.Celula;
+import org.unestilodevida.backend.model.Usuario;
+
+import java.time.LocalTime;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class UsuarioRepositoryTests {
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void listarDisponiblesExcluyeAsignadosYDadosDeBaja() {
+		Usuario libre = usuario("libre", Usuario.Rol.LIDER, null);
+		Usuario lider = usuario("lider", Usuario.Rol.LIDER, null);
+		Usuario comoTimoteo = usuario("comoTimoteo", Usuario.Rol.LIDER, null);
+		usuario("deBaja", Usuario.Rol.LIDER, new Date());
+		usuario("timoteo", Usuario.Rol.TIMOTEO, null);
+		celula(lider, comoTimoteo);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(usuarioRepository.listarDisponibles(Usuario.Rol.LIDER))
+				.extracting(UsuarioResumenDTO::getId)
+				.containsExactly(libre.getId());
+		assertThat(usuarioRepository.listarPorRol(Usuario.Rol.LIDER)).hasSize(4);
+	}
+
+	private Usuario usuario(String nombre, Usuario.Rol rol, Date fechaBaja) {
+		Usuario usuario = Usuario.builder()
+				.nombre(nombre)
+				.apellido("Test")
+				.email(nombre + "@test.com")
+				.clave("x")
+				.rol(rol)
+				.fechaBaja(fechaBaja)
+				.build();
+		entityManager.persist(usuario);
+		return usuario;
+	}
+
+	private void celula(Usuario lider, Usuario timoteo) {
+		entityManager.persist(Celula.builder()
+				.nombre("Célula de " + lider.getNombre())
+				.dia(Celula.DiaSemana.LUNES)
+				.genero(Celula.Genero.HOMBRE)
+				.horaInicio(LocalTime.of(20, 0))
+				.direccion("Calle 1")
+				.telefono("1155550000")
+				.lider(lider)
+				.timoteo(timoteo)
+				.build());
+	}
+}
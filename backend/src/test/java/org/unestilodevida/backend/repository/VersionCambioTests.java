@@ -0,0 +1,80 @@
+package org.unestilodevida.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Las versiones de GET /celulas/cambios salen en el orden en que confirman las transacciones (migración V4): una
+transacción larga que empezó antes que otra corta, pero confirma después, no puede quedar con una versión menor que
+la que ya recibió un cliente. Necesita Docker; sin Docker el test se saltea.
+*/
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.flyway.enabled=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VersionCambioTests {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private CelulaRepository celulaRepository;
+
+	@Test
+	void unaTransaccionLargaNoQuedaDetrasDeLaVersionYaEntregada() throws SQLException {
+		try (Connection larga = dataSource.getConnection(); Connection corta = dataSource.getConnection()) {
+			long idLarga = insertarCelula(corta, "Larga");
+			long idCorta = insertarCelula(corta, "Corta");
+
+			larga.setAutoCommit(false);
+			try (Statement sentencia = larga.createStatement()) {
+				sentencia.executeUpdate("UPDATE celula SET nombre = 'Larga 2' WHERE id = " + idLarga);
+			}
+			try (Statement sentencia = corta.createStatement()) {
+				sentencia.executeUpdate("UPDATE celula SET nombre = 'Corta 2' WHERE id = " + idCorta);
+			}
+
+			// Un cliente sincroniza mientras la transacción larga sigue abierta y se queda con la versión más alta.
+			List<CelulaRepository.CelulaCambio> vistos = celulaRepository.buscarCambios(0, Limit.of(100));
+			long version = vistos.get(vistos.size() - 1).getVersionCambio();
+			assertThat(vistos).extracting(CelulaRepository.CelulaCambio::getId).containsExactly(idLarga, idCorta);
+
+			larga.commit();
+
+			assertThat(celulaRepository.buscarCambios(version, Limit.of(100)))
+					.extracting(CelulaRepository.CelulaCambio::getId)
+					.containsExactly(idLarga);
+		}
+	}
+
+	private static long insertarCelula(Connection conexion, String nombre) throws SQLException {
+		try (Statement sentencia = conexion.createStatement();
+			 ResultSet id = sentencia.executeQuery("INSERT INTO celula (nombre, dia, genero, hora_inicio, direccion, telefono)" +
+					 " VALUES ('" + nombre + "', 'LUNES', 'MUJER', TIME '20:00', 'Calle 1', '1155550000') RETURNING id")) {
+			id.next();
+			return id.getLong(1);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package org.unestilodevida.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
+import org.unestilodevida.backend.dto.ClusterCelulasDTO;
+import org.unestilodevida.backend.model.Celula;
+
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class AgrupacionCelulasTests {
+
+	// Dos en Buenos Aires a un kilómetro, una en La Plata, dos en Madrid (una sin género) y una sin coordenadas.
+	private final List<CelulaFilaDTO> filas = List.of(
+			fila(1L, -34.60, -58.38, Celula.Genero.MUJER),
+			fila(2L, -34.61, -58.39, Celula.Genero.HOMBRE),
+			fila(3L, -34.92, -57.95, Celula.Genero.MUJER),
+			fila(4L, 40.40, -3.70, Celula.Genero.HOMBRE),
+			fila(5L, 40.41, -3.71, null),
+			fila(6L, null, null, Celula.Genero.MUJER));
+
+	// Con poco zoom las celdas miden miles de kilómetros: queda un grupo por ciudad, con la cantidad por género.
+	@Test
+	void conPocoZoomAgrupaPorCeldaYCuentaPorGenero() {
+		List<ClusterCelulasDTO> clusters = ordenados(AgrupacionCelulas.de(filas, 2).en(-180, -85, 180, 85));
+
+		assertThat(clusters).hasSize(2);
+		ClusterCelulasDTO argentina = clusters.get(0);
+		assertThat(argentina.getCantidad()).isEqualTo(3);
+		assertThat(argentina.getMujeres()).isEqualTo(2);
+		assertThat(argentina.getHombres()).isEqualTo(1);
+		assertThat(argentina.getCelulaId()).isNull();
+		assertThat(argentina.getLatitud()).isCloseTo((-34.60 - 34.61 - 34.92) / 3, offset(1e-9));
+		ClusterCelulasDTO madrid = clusters.get(1);
+		assertThat(madrid.getCantidad()).isEqualTo(2);
+		assertThat(madrid.getHombres()).isEqualTo(1);
+		assertThat(madrid.getMujeres()).isZero();
+	}
+
+	// Con mucho zoom cada célula queda sola y el grupo trae su id para mostrarla como marcador.
+	@Test
+	void conMuchoZoomCadaCelulaEsUnGrupo() {
+		List<ClusterCelulasDTO> clusters = ordenados(AgrupacionCelulas.de(filas, 18).en(-180, -85, 180, 85));
+
+		assertThat(clusters).extracting(ClusterCelulasDTO::getCelulaId).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+		assertThat(clusters).allSatisfy(cluster -> assertThat(cluster.getCantidad()).isEqualTo(1));
+	}
+
+	// Se devuelven los grupos cuya celda toca el rectángulo, aunque su centro quede afuera; lo mismo al recorrer las
+	// celdas del rectángulo (vista chica) que al recorrer los grupos (vista amplia).
+	@Test
+	void devuelveLosGruposCuyaCeldaTocaElRectangulo() {
+		AgrupacionCelulas cerca = AgrupacionCelulas.de(filas, 18);
+		assertThat(cerca.en(-58.38, -34.60, -58.38, -34.60)).extracting(ClusterCelulasDTO::getCelulaId).containsExactly(1L); // una celda
+		assertThat(cerca.en(-58.381, -34.601, -58.379, -34.599)).extracting(ClusterCelulasDTO::getCelulaId).containsExactly(1L);
+		assertThat(cerca.en(-100, -60, -30, 20)).extracting(ClusterCelulasDTO::getCelulaId).containsExactlyInAnyOrder(1L, 2L, 3L);
+		assertThat(cerca.en(0, 0, 10, 10)).isEmpty();
+
+		// Rectángulo chico dentro de la celda del grupo argentino: el grupo vuelve entero, con su centro fuera del rectángulo.
+		List<ClusterCelulasDTO> lejos = AgrupacionCelulas.de(filas, 2).en(-58.381, -34.601, -58.379, -34.599);
+		assertThat(lejos).hasSize(1);
+		assertThat(lejos.get(0).getCantidad()).isEqualTo(3);
+		assertThat(lejos.get(0).getLatitud()).isLessThan(-34.601);
+	}
+
+	private static List<ClusterCelulasDTO> ordenados(List<ClusterCelulasDTO> clusters) {
+		return clusters.stream().sorted(Comparator.comparingDouble(ClusterCelulasDTO::getLatitud)).toList();
+	}
+
+	private static CelulaFilaDTO fila(Long id, Double latitud, Double longitud, Celula.Genero genero) {
+		return new CelulaFilaDTO(id, "Célula " + id, Celula.DiaSemana.LUNES, genero, LocalTime.of(20, 0), "Calle " + id,
+				latitud, longitud, null, "1155550000", null,
+				null, null, null, null, null, null, null,
+				null, null, null, null, null, null, null);
+	}
+}
@@ -0,0 +1,85 @@
+package org.unestilodevida.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.unestilodevida.backend.dto.CelulaDTO;
+import org.unestilodevida.backend.jwt.UsuarioAutenticado;
+import org.unestilodevida.backend.model.Celula;
+import org.unestilodevida.backend.model.Usuario;
+import org.unestilodevida.backend.repository.CelulaRepository;
+import org.unestilodevida.backend.repository.UsuarioRepository;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CelulaServiceTests {
+
+	private final CelulaRepository celulaRepository = mock(CelulaRepository.class);
+	private final UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+	private final CelulaService celulaService = new CelulaService(celulaRepository, usuarioRepository, new CelulaMapper(null),
+			null, mock(ApplicationEventPublisher.class), null, null);
+
+	private final Usuario lider = usuario(1L, Usuario.Rol.LIDER);
+	private final Usuario timoteo = usuario(2L, Usuario.Rol.TIMOTEO);
+	private final UsuarioAutenticado editorLider = new UsuarioAutenticado(1L, "lider@test.com", Usuario.Rol.LIDER);
+
+	// Un líder no elige a su timoteo: ni otro usuario ni dejarla sin timoteo (0).
+	@Test
+	void unLiderNoCambiaNiQuitaAlTimoteo() {
+		celulaConLiderYTimoteo();
+
+		for (long timoteoId : new long[]{3L, 0L}) {
+			CelulaDTO dto = new CelulaDTO();
+			dto.setTimoteoId(timoteoId);
+			assertThatThrownBy(() -> celulaService.updateCelula(dto, 10L, "http://localhost", editorLider))
+					.isInstanceOfSatisfying(ResponseStatusException.class,
+							e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+		}
+		verify(celulaRepository, never()).save(any());
+	}
+
+	// Sin timoteoId, el timoteo queda como está; mandar el mismo también vale.
+	@Test
+	void unLiderEditaSinTocarAlTimoteo() {
+		Celula celula = celulaConLiderYTimoteo();
+		when(celulaRepository.save(any())).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+		CelulaDTO dto = new CelulaDTO();
+		dto.setNombre("Nuevo nombre");
+		celulaService.updateCelula(dto, 10L, "http://localhost", editorLider);
+		assertThat(celula.getTimoteo()).isSameAs(timoteo);
+
+		when(usuarioRepository.findById(2L)).thenReturn(Optional.of(timoteo));
+		dto.setTimoteoId(2L);
+		celulaService.updateCelula(dto, 10L, "http://localhost", editorLider);
+		assertThat(celula.getTimoteo()).isSameAs(timoteo);
+		assertThat(celula.getNombre()).isEqualTo("Nuevo nombre");
+	}
+
+	@Test
+	void elTextoBuscadoSeEscapaParaLike() {
+		assertThat(CelulaService.patronLike("calle 12")).isEqualTo("%calle 12%");
+		assertThat(CelulaService.patronLike("100%")).isEqualTo("%100\\%%");
+		assertThat(CelulaService.patronLike("casa_norte")).isEqualTo("%casa\\_norte%");
+		assertThat(CelulaService.patronLike("a\\b")).isEqualTo("%a\\\\b%");
+	}
+
+	private Celula celulaConLiderYTimoteo() {
+		Celula celula = Celula.builder().id(10L).nombre("Célula").lider(lider).timoteo(timoteo).build();
+		when(celulaRepository.findById(10L)).thenReturn(Optional.of(celula));
+		return celula;
+	}
+
+	private static Usuario usuario(Long id, Usuario.Rol rol) {
+		return Usuario.builder().id(id).nombre("N" + id).apellido("A").email(id + "@test.com").clave("x").rol(rol).build();
+	}
+}
@@ -0,0 +1,82 @@
+package org.unestilodevida.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.unestilodevida.backend.dto.CelulaFilaDTO;
+import org.unestilodevida.backend.evento.CambioEntidadEvent;
+import org.unestilodevida.backend.model.Celula;
+import org.unestilodevida.backend.repository.CelulaRepository;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CelulasEnMemoriaTests {
+
+	private final CelulaRepository celulaRepository = mock(CelulaRepository.class);
+	private final CelulasEnMemoria celulas = new CelulasEnMemoria(celulaRepository, new CelulaMapper(null),
+			new ObjectMapper(), new SimpleMeterRegistry());
+
+	@Test
+	void unCambioSoloVuelveALeerEsaCelula() {
+		when(celulaRepository.listarCelulasAlta()).thenReturn(List.of(fila(1L, "Uno"), fila(2L, "Dos")));
+		when(celulaRepository.buscarFilaAlta(2L)).thenReturn(Optional.of(fila(2L, "Dos bis")));
+		when(celulaRepository.buscarFilaAlta(1L)).thenReturn(Optional.empty());
+		celulas.filas();
+
+		celulas.registrarCambio(cambio(2L, CambioEntidadEvent.Operacion.MODIFICACION));
+		assertThat(celulas.filas()).extracting(CelulaFilaDTO::getNombre).containsExactly("Uno", "Dos bis");
+
+		celulas.registrarCambio(cambio(1L, CambioEntidadEvent.Operacion.BAJA));
+		assertThat(celulas.filas()).extracting(CelulaFilaDTO::getId).containsExactly(2L);
+		verify(celulaRepository, times(1)).listarCelulasAlta();
+	}
+
+	// La foto se arma con una consulta que leyó la base antes del commit; el evento de ese commit llega mientras tanto.
+	@Test
+	void unCambioDuranteLaPrimeraLecturaNoSePierde() throws Exception {
+		CountDownLatch consultando = new CountDownLatch(1);
+		CountDownLatch soltar = new CountDownLatch(1);
+		when(celulaRepository.listarCelulasAlta()).thenAnswer(invocacion -> {
+			consultando.countDown();
+			soltar.await(5, TimeUnit.SECONDS);
+			return List.of(fila(1L, "Vieja"));
+		});
+		when(celulaRepository.buscarFilaAlta(1L)).thenReturn(Optional.of(fila(1L, "Nueva")));
+
+		CompletableFuture<List<CelulaFilaDTO>> lectura = CompletableFuture.supplyAsync(celulas::filas);
+		assertThat(consultando.await(5, TimeUnit.SECONDS)).isTrue();
+		Thread evento = new Thread(() -> celulas.registrarCambio(cambio(1L, CambioEntidadEvent.Operacion.MODIFICACION)));
+		evento.start();
+		// Se suelta la consulta cuando el evento ya está esperando (o, si no esperara, ya terminó).
+		while (evento.getState() != Thread.State.WAITING && evento.getState() != Thread.State.TERMINATED) {
+			Thread.onSpinWait();
+		}
+		soltar.countDown();
+		lectura.get(5, TimeUnit.SECONDS);
+		evento.join(5_000);
+
+		assertThat(celulas.filas()).extracting(CelulaFilaDTO::getNombre).containsExactly("Nueva");
+	}
+
+	private static CambioEntidadEvent cambio(Long id, CambioEntidadEvent.Operacion operacion) {
+		return new CambioEntidadEvent(CambioEntidadEvent.Entidad.CELULA, id, operacion);
+	}
+
+	private static CelulaFilaDTO fila(Long id, String nombre) {
+		return new CelulaFilaDTO(id, nombre, Celula.DiaSemana.LUNES, Celula.Genero.MUJER, LocalTime.of(20, 0), "Calle " + id,
+				null, null, null, "1155550000", null,
+				null, null, null, null, null, null, null,
+				null, null, null, null, null, null, null);
+	}
+}
@@ -0,0 +1,227 @@
+package org.unestilodevida.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.server.ResponseStatusException;
+import org.unestilodevida.backend.dto.CelulaDTO;
+import org.unestilodevida.backend.dto.ResultadoLoteDTO;
+import org.unestilodevida.backend.model.Celula;
+import org.unestilodevida.backend.repository.AltasPorLoteRepository;
+import org.unestilodevida.backend.repository.UsuarioRepository;
+import org.unestilodevida.backend.util.LectorCsv;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({ExportacionCsv.class, AltasPorLoteRepository.class})
+class ExportacionCsvTests {
+
+	@Autowired
+	private ExportacionCsv exportacionCsv;
+
+	@Autowired
+	private AltasPorLoteRepository altasPorLoteRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	// 100.000 células exportadas a un stream que las va leyendo (nunca está el archivo entero en memoria): mientras el
+	// lector no avanza, la exportación queda esperando con apenas los buffers escritos.
+	@Test
+	void exportaCienMilCelulasEnElFormatoDeLaImportacion() throws Exception {
+		int cantidad = 100_000;
+		for (int desde = 0; desde < cantidad; desde += 10_000) {
+			altasPorLoteRepository.insertarCelulas(celulas(desde, 10_000));
+		}
+
+		PipedInputStream entrada = new PipedInputStream(64 * 1024);
+		PipedOutputStream salida = new PipedOutputStream(entrada);
+		Thread exportando = Thread.currentThread();
+		CompletableFuture<long[]> lectura = CompletableFuture.supplyAsync(() -> {
+			try {
+				LectorCsv lector = LectorCsv.de(entrada);
+				lector.leer(); // encabezado
+				lector.leer();
+				while (exportando.getState() != Thread.State.TIMED_WAITING && exportando.getState() != Thread.State.WAITING) {
+					Thread.onSpinWait();
+				}
+				long pendientes = entrada.available();
+				long[] filas = contarFilas(lector);
+				return new long[]{filas[0] + 2, filas[1], pendientes};
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		long exportadas;
+		try (OutputStream out = salida) {
+			exportadas = exportacionCsv.exportarCelulas(out);
+		}
+		long[] leidas = lectura.get(60, TimeUnit.SECONDS);
+
+		assertThat(exportadas).isEqualTo(cantidad);
+		assertThat(leidas[0]).isEqualTo(cantidad + 1); // con el encabezado
+		assertThat(leidas[1]).isEqualTo(11); // columnas de la última fila
+		assertThat(leidas[2]).isLessThanOrEqualTo(64 * 1024); // lo que esperaba en el pipe con la exportación frenada
+	}
+
+	// Lo exportado se vuelve a importar igual, incluidos los textos que la exportación protege con un apóstrofo.
+	@Test
+	void exportarEImportarConservaLosDatos() throws Exception {
+		Celula original = Celula.builder()
+				.nombre("=Jóvenes, \"centro\"")
+				.dia(Celula.DiaSemana.MARTES)
+				.genero(Celula.Genero.HOMBRE)
+				.horaInicio(LocalTime.of(19, 30))
+				.direccion("-Sin número-")
+				.latitud(-34.6037)
+				.longitud(-58.3816)
+				.descripcion("@todos\nlos martes")
+				.telefono("+54 11 5555-0000")
+				.build();
+		altasPorLoteRepository.insertarCelulas(List.of(original));
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		exportacionCsv.exportarCelulas(csv);
+
+		CelulaService celulaService = mock(CelulaService.class);
+		when(celulaService.createCelulas(anyList())).thenAnswer(invocacion -> List.of(ResultadoLoteDTO.creado(0, 1L)));
+		new ImportacionCsv(celulaService, null, usuarioRepository, 500).importarCelulas(new ByteArrayInputStream(csv.toByteArray()));
+
+		ArgumentCaptor<List<CelulaDTO>> importadas = ArgumentCaptor.captor();
+		verify(celulaService).createCelulas(importadas.capture());
+		CelulaDTO importada = importadas.getValue().get(0);
+		assertThat(importada.getNombre()).isEqualTo(original.getNombre());
+		assertThat(importada.getDia()).isEqualTo(original.getDia().name());
+		assertThat(importada.getGenero()).isEqualTo(original.getGenero().name());
+		assertThat(importada.getHoraInicio()).isEqualTo(original.getHoraInicio());
+		assertThat(importada.getDireccion()).isEqualTo(original.getDireccion());
+		assertThat(importada.getLatitud()).isEqualTo(original.getLatitud());
+		assertThat(importada.getLongitud()).isEqualTo(original.getLongitud());
+		assertThat(importada.getDescripcion()).isEqualTo(original.getDescripcion());
+		assertThat(importada.getTelefono()).isEqualTo(original.getTelefono());
+	}
+
+	// Mientras una exportación tiene tomado el único lugar (su cliente no lee), la siguiente recibe 503 sin esperar.
+	@Test
+	void limitaLasExportacionesSimultaneas() throws Exception {
+		ExportacionCsv unaPorVez = new ExportacionCsv(jdbcTemplate, transactionManager, 500, 1, 120);
+		CountDownLatch escribiendo = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		OutputStream clienteFrenado = new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void flush() {
+				escribiendo.countDown();
+				try {
+					liberar.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		CompletableFuture<Long> primera = CompletableFuture.supplyAsync(() -> {
+			try {
+				return unaPorVez.exportarCelulas(clienteFrenado);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		assertThat(escribiendo.await(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThatThrownBy(() -> unaPorVez.exportarCelulas(new ByteArrayOutputStream()))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+		liberar.countDown();
+		primera.get(10, TimeUnit.SECONDS);
+		assertThat(unaPorVez.exportarCelulas(new ByteArrayOutputStream())).isZero(); // el lugar se liberó
+	}
+
+	// Un cliente que lee muy despacio no retiene la conexión más que exportacion.segundos-maximos.
+	@Test
+	void cortaLaExportacionQueSuperaElTiempoMaximo() {
+		altasPorLoteRepository.insertarCelulas(celulas(0, 2_000));
+		ExportacionCsv conUnSegundo = new ExportacionCsv(jdbcTemplate, transactionManager, 500, 2, 1);
+		OutputStream clienteLento = new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int desde, int largo) {
+				try {
+					Thread.sleep(1_100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+
+		assertThatThrownBy(() -> conUnSegundo.exportarCelulas(clienteLento)).isInstanceOf(TransactionTimedOutException.class);
+	}
+
+	private static long[] contarFilas(LectorCsv lector) throws IOException {
+		try (lector) {
+			long filas = 0;
+			List<String> fila;
+			List<String> ultima = List.of();
+			while ((fila = lector.leer()) != null) {
+				filas++;
+				ultima = fila;
+			}
+			return new long[]{filas, ultima.size()};
+		}
+	}
+
+	private static List<Celula> celulas(int desde, int cantidad) {
+		List<Celula> celulas = new ArrayList<>(cantidad);
+		for (int i = desde; i < desde + cantidad; i++) {
+			celulas.add(Celula.builder()
+					.nombre("Célula " + i)
+					.dia(Celula.DiaSemana.SABADO)
+					.genero(Celula.Genero.MUJER)
+					.horaInicio(LocalTime.of(18, 0))
+					.direccion("Av. Siempre Viva " + i + ", CABA")
+					.latitud(-34.6)
+					.longitud(-58.38)
+					.telefono("1155550000")
+					.build());
+		}
+		return celulas;
+	}
+}
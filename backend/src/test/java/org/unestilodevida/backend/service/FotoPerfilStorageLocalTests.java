@@ -0,0 +1,79 @@
+package org.unestilodevida.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class FotoPerfilStorageLocalTests {
+
+	@TempDir
+	private Path directorio;
+
+	private FotoPerfilStorageLocal storage;
+
+	@AfterEach
+	void cerrar() {
+		if (storage != null) {
+			storage.cerrar();
+		}
+	}
+
+	// Con un hilo y una cola de un lugar, las subidas seguidas de fotos grandes encuentran la cola llena: esas
+	// miniaturas quedan pendientes y se generan igual a medida que se libera la cola.
+	@Test
+	void conLaColaLlenaLasMiniaturasQuedanPendientesYSeGeneranDespues() throws Exception {
+		storage = new FotoPerfilStorageLocal(directorio.toString(), 64, 1, 1, mock(ApplicationEventPublisher.class));
+		MockMultipartFile grande = png("foto.png", 4000, 3000);
+		List<String> nombres = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			nombres.add(storage.guardar(grande));
+		}
+		assertThat(storage.miniaturasPendientes()).isPositive();
+
+		for (String nombre : nombres) {
+			esperarA(directorio.resolve(FotoPerfilStorage.nombreMiniatura(nombre)));
+		}
+		assertThat(storage.miniaturasPendientes()).isZero();
+	}
+
+	@Test
+	void eliminarBorraLaFotoYSuMiniaturaEnElMomento() throws Exception {
+		storage = new FotoPerfilStorageLocal(directorio.toString(), 64, 1, 1, mock(ApplicationEventPublisher.class));
+		String nombre = storage.guardar(png("foto.png", 400, 300));
+		Path miniatura = directorio.resolve(FotoPerfilStorage.nombreMiniatura(nombre));
+		esperarA(miniatura);
+
+		storage.eliminar(nombre);
+
+		assertThat(directorio.resolve(nombre)).doesNotExist();
+		assertThat(miniatura).doesNotExist();
+	}
+
+	private static void esperarA(Path archivo) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 10_000;
+		while (!Files.exists(archivo) && System.currentTimeMillis() < limite) {
+			Thread.sleep(10);
+		}
+		assertThat(archivo).exists();
+	}
+
+	private static MockMultipartFile png(String nombre, int ancho, int alto) throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB), "png", salida);
+		return new MockMultipartFile("foto", nombre, "image/png", salida.toByteArray());
+	}
+}
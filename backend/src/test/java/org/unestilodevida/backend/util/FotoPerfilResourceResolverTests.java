@@ -0,0 +1,103 @@
+package org.unestilodevida.backend.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import org.unestilodevida.backend.evento.FotoPerfilEliminadaEvent;
+import org.unestilodevida.backend.service.FotoPerfilStorage;
+import org.unestilodevida.backend.service.FotoPerfilStorageLocal;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FotoPerfilResourceResolverTests {
+
+	@TempDir
+	private Path directorio;
+
+	private FotoPerfilStorageLocal storage;
+	private FotoPerfilResourceResolver resolver;
+
+	@AfterEach
+	void cerrar() {
+		if (storage != null) {
+			storage.cerrar();
+		}
+	}
+
+	// Foto subida antes de que existieran las miniaturas: la primera vez que se pide la miniatura se genera.
+	@Test
+	void generaLaMiniaturaQueFaltaAlPedirla() throws Exception {
+		usarStorageLocal();
+		ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "png", directorio.resolve("vieja.png").toFile());
+
+		Resource miniatura = resolver(FotoPerfilStorage.nombreMiniatura("vieja.png"));
+
+		assertThat(miniatura).isNotNull();
+		assertThat(miniatura.getFilename()).isEqualTo("vieja.png.jpg");
+		assertThat(directorio.resolve(FotoPerfilStorage.nombreMiniatura("vieja.png"))).exists();
+	}
+
+	@Test
+	void siLaFotoNoSePuedeLeerResponde404SinReintentar() {
+		FotoPerfilStorage storageMock = mock(FotoPerfilStorage.class);
+		when(storageMock.generarMiniatura("rota.png")).thenReturn(false);
+		resolver = new FotoPerfilResourceResolver(storageMock, 262_144, 16_777_216);
+
+		assertThat(resolver(FotoPerfilStorage.nombreMiniatura("rota.png"))).isNull();
+		assertThat(resolver(FotoPerfilStorage.nombreMiniatura("rota.png"))).isNull();
+		assertThat(resolver("rota.png")).isNull();
+
+		verify(storageMock, times(1)).generarMiniatura("rota.png");
+	}
+
+	@Test
+	void alEliminarLaFotoSeDescartaDeLaCache() throws Exception {
+		usarStorageLocal();
+		Files.write(directorio.resolve("foto.png"), new byte[]{1, 2, 3});
+		assertThat(resolver("foto.png")).isNotNull();
+
+		storage.eliminar("foto.png");
+
+		assertThat(resolver("foto.png")).isNull();
+	}
+
+	private void usarStorageLocal() {
+		storage = new FotoPerfilStorageLocal(directorio.toString(), 64, 1, 10,
+				evento -> resolver.fotoEliminada((FotoPerfilEliminadaEvent) evento));
+		resolver = new FotoPerfilResourceResolver(storage, 262_144, 16_777_216);
+	}
+
+	private Resource resolver(String ruta) {
+		return resolver.resolveResource(new MockHttpServletRequest(), ruta, List.of(), new EnDisco());
+	}
+
+	// Cadena mínima: lo que haría PathResourceResolver con la carpeta de fotos como única ubicación.
+	private class EnDisco implements ResourceResolverChain {
+
+		@Override
+		public Resource resolveResource(HttpServletRequest request, String requestPath, List<? extends Resource> locations) {
+			Path archivo = directorio.resolve(requestPath);
+			return Files.isRegularFile(archivo) ? new FileSystemResource(archivo) : null;
+		}
+
+		@Override
+		public String resolveUrlPath(String resourcePath, List<? extends Resource> locations) {
+			return resourcePath;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package org.unestilodevida.backend.util;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceGeograficoTests {
+
+	private record Punto(int id, Double lat, Double lng, boolean par) {
+	}
+
+	// Compara el índice con una búsqueda por fuerza bruta sobre n puntos sintéticos alrededor de Buenos Aires.
+	@ParameterizedTest
+	@ValueSource(ints = {10_000, 100_000})
+	void devuelveLosMismosPuntosQueRecorrerTodos(int n) {
+		Random random = new Random(n);
+		List<Punto> puntos = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			boolean sinCoordenadas = i % 97 == 0;
+			puntos.add(new Punto(i,
+					sinCoordenadas ? null : -34.6 + (random.nextDouble() - 0.5) * 2,
+					sinCoordenadas ? null : -58.4 + (random.nextDouble() - 0.5) * 2,
+					i % 2 == 0));
+		}
+		IndiceGeografico<Punto> indice = IndiceGeografico.de(puntos, Punto::lat, Punto::lng);
+
+		for (int consulta = 0; consulta < 50; consulta++) {
+			double lat = -34.6 + (random.nextDouble() - 0.5) * 2;
+			double lng = -58.4 + (random.nextDouble() - 0.5) * 2;
+			double radioKm = 1 + random.nextDouble() * 10;
+			int limite = 1 + random.nextInt(30);
+
+			List<Integer> esperados = puntos.stream()
+					.filter(p -> p.lat() != null && p.par())
+					.filter(p -> IndiceGeografico.distanciaKm(lat, lng, p.lat(), p.lng()) <= radioKm)
+					.sorted(Comparator.comparingDouble(p -> IndiceGeografico.distanciaKm(lat, lng, p.lat(), p.lng())))
+					.limit(limite)
+					.map(Punto::id)
+					.toList();
+
+			List<IndiceGeografico.Resultado<Punto>> resultado = indice.buscar(lat, lng, radioKm, limite, Punto::par);
+
+			assertThat(resultado).extracting(r -> r.elemento().id()).containsExactlyElementsOf(esperados);
+			assertThat(resultado).isSortedAccordingTo(Comparator.comparingDouble(IndiceGeografico.Resultado::distanciaKm));
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package org.unestilodevida.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LectorCsvTests {
+
+	@Test
+	void leeCamposEntreComillasConSaltosDeLineaYComillasDobles() throws IOException {
+		String csv = "nombre,descripcion\r\n" +
+				"\"Célula, centro\",\"Dice \"\"hola\"\"\nen dos líneas\"\r\n" +
+				"\r\n" +
+				"Norte,\n";
+		List<List<String>> filas = leerTodo(csv.getBytes(StandardCharsets.UTF_8));
+
+		assertThat(filas).containsExactly(
+				List.of("nombre", "descripcion"),
+				List.of("Célula, centro", "Dice \"hola\"\nen dos líneas"),
+				List.of("Norte", ""));
+	}
+
+	@Test
+	void detectaPuntoYComaEIgnoraElBom() throws IOException {
+		List<List<String>> filas = leerTodo("\uFEFFnombre;latitud\nSur;-34,6\n".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(filas).containsExactly(List.of("nombre", "latitud"), List.of("Sur", "-34,6"));
+	}
+
+	@Test
+	void informaLaLineaDondeEmpiezaCadaFila() throws IOException {
+		try (LectorCsv lector = LectorCsv.de(new ByteArrayInputStream("a\n\"b\nb\"\n\nc\n".getBytes(StandardCharsets.UTF_8)))) {
+			lector.leer();
+			assertThat(lector.getLinea()).isEqualTo(1);
+			lector.leer();
+			assertThat(lector.getLinea()).isEqualTo(2);
+			lector.leer();
+			assertThat(lector.getLinea()).isEqualTo(5);
+			assertThat(lector.leer()).isNull();
+		}
+	}
+
+	@Test
+	void unaComillaSinCerrarNoLeeElArchivoEntero() {
+		byte[] csv = ("a\n\"" + "x".repeat(LectorCsv.MAX_CARACTERES_FILA + 10)).getBytes(StandardCharsets.UTF_8);
+
+		assertThatThrownBy(() -> leerTodo(csv)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// Lo que escribe EscritorCsv se vuelve a leer igual (salvo el apóstrofo que protege de las fórmulas).
+	@Test
+	void leeLoQueEscribeEscritorCsv() throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		EscritorCsv escritor = new EscritorCsv(salida);
+		escritor.texto("a,b").texto("c\"d").texto("=SUMA(A1)").texto(null).numero(-34.6).finFila();
+		escritor.flush();
+
+		assertThat(leerTodo(salida.toByteArray())).containsExactly(List.of("a,b", "c\"d", "'=SUMA(A1)", "", "-34.6"));
+	}
+
+	private static List<List<String>> leerTodo(byte[] csv) throws IOException {
+		List<List<String>> filas = new ArrayList<>();
+		try (LectorCsv lector = LectorCsv.de(new ByteArrayInputStream(csv))) {
+			List<String> fila;
+			while ((fila = lector.leer()) != null) {
+				filas.add(fila);
+			}
+		}
+		return filas;
+	}
+}
@@ -0,0 +1,105 @@
+package org.unestilodevida.backend.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.imageio.ImageIO;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QRRendererTests {
+
+	private static final String ENLACE = "https://wa.me/5491155550000?text=Hola%2C%20quiero%20sumarme%20a%20la%20c%C3%A9lula";
+	private static final Pattern TRAMO = Pattern.compile("M(\\d+) (\\d+)h(\\d+)v1h-(\\d+)z");
+
+	// El PNG de 1 bit tiene que ser, pixel por pixel, el mismo QR que dibuja ZXing con QRCodeWriter y MatrixToImageWriter.
+	@Test
+	void elPngEsIgualAlDeZxing() throws Exception {
+		int[][] tamanios = {{300, 300}, {250, 310}, {37, 37}, {1000, 1000}};
+		for (String texto : new String[]{"https://wa.me/5491155550000", ENLACE}) {
+			for (int[] tamanio : tamanios) {
+				BufferedImage nuestra = ImageIO.read(new ByteArrayInputStream(QRRenderer.png(texto, tamanio[0], tamanio[1])));
+				BufferedImage zxing = MatrixToImageWriter.toBufferedImage(
+						new QRCodeWriter().encode(texto, BarcodeFormat.QR_CODE, tamanio[0], tamanio[1]));
+
+				assertThat(nuestra.getWidth()).isEqualTo(zxing.getWidth());
+				assertThat(nuestra.getHeight()).isEqualTo(zxing.getHeight());
+				for (int y = 0; y < zxing.getHeight(); y++) {
+					for (int x = 0; x < zxing.getWidth(); x++) {
+						assertThat(negro(nuestra, x, y)).as("pixel %d,%d de %s en %dx%d", x, y, texto, tamanio[0], tamanio[1])
+								.isEqualTo(negro(zxing, x, y));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void elPngSeLeeConElTextoOriginal() throws Exception {
+		BufferedImage imagen = ImageIO.read(new ByteArrayInputStream(QRRenderer.png(ENLACE, 300, 300)));
+		BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(imagen)));
+
+		assertThat(new QRCodeReader().decode(bitmap).getText()).isEqualTo(ENLACE);
+	}
+
+	// El SVG es XML válido con un solo path; sus tramos, reconstruidos, cubren exactamente los módulos negros de la matriz.
+	@Test
+	void elPathDelSvgCubreLosModulosNegros() throws Exception {
+		String svg = QRRenderer.svg(ENLACE, 300, 300);
+		ByteMatrix modulos = Encoder.encode(ENLACE, ErrorCorrectionLevel.L).getMatrix();
+		int lado = modulos.getWidth() + 8;
+
+		Document documento = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)));
+		Element raiz = documento.getDocumentElement();
+		assertThat(raiz.getAttribute("viewBox")).isEqualTo("0 0 " + lado + " " + lado);
+		assertThat(raiz.getAttribute("width")).isEqualTo("300");
+		assertThat(documento.getElementsByTagName("path").getLength()).isEqualTo(1);
+
+		String d = ((Element) documento.getElementsByTagName("path").item(0)).getAttribute("d");
+		boolean[][] negros = new boolean[lado][lado];
+		Matcher tramo = TRAMO.matcher(d);
+		int fin = 0;
+		while (tramo.find()) {
+			assertThat(tramo.start()).as("tramo sin separar en %d", fin).isEqualTo(fin);
+			fin = tramo.end();
+			int x = Integer.parseInt(tramo.group(1));
+			int y = Integer.parseInt(tramo.group(2));
+			int largo = Integer.parseInt(tramo.group(3));
+			assertThat(tramo.group(4)).isEqualTo(tramo.group(3));
+			for (int i = x; i < x + largo; i++) {
+				assertThat(negros[y][i]).as("módulo %d,%d dibujado dos veces", i, y).isFalse();
+				negros[y][i] = true;
+			}
+		}
+		assertThat(fin).isEqualTo(d.length());
+
+		for (int y = 0; y < lado; y++) {
+			for (int x = 0; x < lado; x++) {
+				boolean enMatriz = x >= 4 && y >= 4 && x < lado - 4 && y < lado - 4 && modulos.get(x - 4, y - 4) == 1;
+				assertThat(negros[y][x]).as("módulo %d,%d", x, y).isEqualTo(enMatriz);
+			}
+		}
+	}
+
+	private static boolean negro(BufferedImage imagen, int x, int y) {
+		return (imagen.getRGB(x, y) & 0xFFFFFF) == 0;
+	}
+}
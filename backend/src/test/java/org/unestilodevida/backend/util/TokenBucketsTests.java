@@ -0,0 +1,70 @@
+package org.unestilodevida.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketsTests {
+
+	// Muchos hilos atacando la misma clave: se permiten exactamente "capacidad" intentos (la recarga es de una ficha por hora).
+	@Test
+	void bajoConcurrenciaNoPermiteMasIntentosQueLaCapacidad() throws Exception {
+		TokenBuckets buckets = new TokenBuckets(50, 3600, 1000);
+		int hilos = 16;
+		int intentosPorHilo = 2000;
+		ExecutorService executor = Executors.newFixedThreadPool(hilos);
+		CountDownLatch largada = new CountDownLatch(1);
+		try {
+			List<Future<Integer>> permitidos = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				permitidos.add(executor.submit(() -> {
+					largada.await();
+					int permitidosEnHilo = 0;
+					for (int j = 0; j < intentosPorHilo; j++) {
+						if (buckets.consumir("atacante@test.com") == 0) {
+							permitidosEnHilo++;
+						}
+					}
+					return permitidosEnHilo;
+				}));
+			}
+			largada.countDown();
+
+			int total = 0;
+			for (Future<Integer> futuro : permitidos) {
+				total += futuro.get(30, TimeUnit.SECONDS);
+			}
+			assertThat(total).isEqualTo(50);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void alRechazarInformaCuantoFaltaParaLaProximaFicha() {
+		TokenBuckets buckets = new TokenBuckets(1, 60, 1000);
+
+		assertThat(buckets.consumir("10.0.0.1")).isZero();
+		assertThat(buckets.consumir("10.0.0.1")).isGreaterThan(TimeUnit.SECONDS.toNanos(59));
+		assertThat(buckets.consumir("10.0.0.2")).isZero();
+	}
+
+	@Test
+	void laMemoriaQuedaAcotadaConMuchasClavesDistintas() {
+		TokenBuckets buckets = new TokenBuckets(5, 60, 1000);
+
+		for (int i = 0; i < 50_000; i++) {
+			buckets.consumir("10.0." + (i / 256) + "." + (i % 256));
+		}
+
+		assertThat(buckets.cantidadDeClaves()).isLessThanOrEqualTo(1001);
+	}
+}
@@ -4,4 +4,11 @@ import api from './axiosConfig';
 export const authApi = {
   login: (credentials: { email: string; clave: string }) =>
     api.post('/auth/login', credentials),
-};
\ No newline at end of file
+  // Revoca el refresh token y el token de acceso actual en el backend
+  logout: () =>
+    api.post(
+      '/auth/logout',
+      { refreshToken: localStorage.getItem('refreshToken') },
+      { headers: { Authorization: `Bearer ${localStorage.getItem('token')}` } }
+    ),
+};
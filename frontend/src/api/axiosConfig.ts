@@ -1,36 +1,106 @@
-import axios from 'axios';
+import axios, { type AxiosRequestConfig } from 'axios';
 import { jwtDecode } from 'jwt-decode';
 
 interface DecodedToken {
   exp?: number; // puede venir o no
 }
 
+export const baseURL = 'http://localhost:8080'; // backend Spring Boot
+
 const api = axios.create({
-  baseURL: 'http://localhost:8080', // backend Spring Boot
+  baseURL,
   headers: {
     'Content-Type': 'application/json',
   },
 });
 
-// Con esto, cada vez que llames a celulaApi.getAll(), create(), etc., Axios incluirá automáticamente el token en los headers.
-// Interceptor para agregar token y validar expiración
-api.interceptors.request.use((config) => {
+// El token de acceso dura pocos minutos; cuando vence se pide otro a /auth/refresh con el refresh token.
+// Si varias requests lo necesitan a la vez, comparten el mismo pedido (el refresh token se rota en cada uso).
+// Las pestañas comparten los tokens en localStorage: con un Web Lock renueva una por vez, y la que espera usa el
+// token que dejó la otra en lugar de volver a presentar el refresh token ya rotado.
+let renovacionEnCurso: Promise<string | null> | null = null;
+
+const renovarToken = (): Promise<string | null> => {
+  const refreshTokenVisto = localStorage.getItem("refreshToken");
+  if (!refreshTokenVisto) return Promise.resolve(null);
+
+  if (!renovacionEnCurso) {
+    renovacionEnCurso = conLockEntrePestanias(() => pedirRenovacion(refreshTokenVisto)).finally(() => {
+      renovacionEnCurso = null;
+    });
+  }
+  return renovacionEnCurso;
+};
+
+const conLockEntrePestanias = <T>(tarea: () => Promise<T>): Promise<T> =>
+  navigator.locks ? navigator.locks.request("renovacion-token", tarea) : tarea();
+
+const pedirRenovacion = async (refreshTokenVisto: string): Promise<string | null> => {
+  const refreshToken = localStorage.getItem("refreshToken");
   const token = localStorage.getItem("token");
+  // Otra pestaña renovó mientras esperábamos el lock.
+  if (refreshToken !== refreshTokenVisto && token && !tokenVencido(token)) return token;
+  if (!refreshToken) return null;
 
-  if (token) {
-    const decoded: DecodedToken = jwtDecode(token);
-    // Verificar si el token tiene exp y si sigue siendo válido
-    if (decoded.exp && decoded.exp * 1000 < Date.now()) {
-      console.warn("Token expirado, eliminando del almacenamiento.");
+  try {
+    const res = await axios.post(`${baseURL}/auth/refresh`, { refreshToken });
+    localStorage.setItem("token", res.data.token);
+    localStorage.setItem("refreshToken", res.data.refreshToken);
+    return res.data.token as string;
+  } catch (error) {
+    // Solo un 401 significa que la sesión ya no es válida (vencida, cerrada o usuario dado de baja). Un 429 del
+    // limitador o un error de red no: se conservan los tokens y se vuelve a intentar en la próxima request.
+    if (axios.isAxiosError(error) && error.response?.status === 401) {
       localStorage.removeItem("token");
-      // Opcionalmente podrías redirigir al login:
-      // window.location.href = "/login";
-    } else {
-      config.headers.Authorization = `Bearer ${token}`;
+      localStorage.removeItem("refreshToken");
     }
+    return null;
+  }
+};
+
+const tokenVencido = (token: string) => {
+  try {
+    const decoded: DecodedToken = jwtDecode(token);
+    // Se renueva unos segundos antes del vencimiento real para no mandar un token que vence en el camino.
+    return !!decoded.exp && decoded.exp * 1000 < Date.now() + 10_000;
+  } catch {
+    return true;
+  }
+};
+
+// Con esto, cada vez que llames a celulaApi.getAll(), create(), etc., Axios incluirá automáticamente el token en los headers.
+// Interceptor para agregar token y renovarlo si está por vencer
+api.interceptors.request.use(async (config) => {
+  if (config.url?.startsWith('/auth/')) return config;
+
+  let token = localStorage.getItem("token");
+  if (token && tokenVencido(token)) {
+    token = await renovarToken();
+  }
+  if (token) {
+    config.headers.Authorization = `Bearer ${token}`;
   }
 
   return config;
 });
 
+// Si el backend rechaza el token (401, por ejemplo porque se revocó), se intenta renovarlo una vez y se repite la
+// request. Un 403 es falta de permiso para ese endpoint: renovar el token no lo cambia.
+api.interceptors.response.use(
+  (response) => response,
+  async (error) => {
+    const original = error.config as AxiosRequestConfig & { _reintentado?: boolean };
+    const status = error.response?.status;
+    if (status === 401 && original && !original._reintentado && !original.url?.startsWith('/auth/')) {
+      original._reintentado = true;
+      const token = await renovarToken();
+      if (token) {
+        original.headers = { ...original.headers, Authorization: `Bearer ${token}` };
+        return api(original);
+      }
+    }
+    return Promise.reject(error);
+  }
+);
+
 export default api;
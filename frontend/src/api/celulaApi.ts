@@ -8,5 +8,6 @@ export const celulaApi = {
   delete: (id: number) => api.delete(`/celulas/delete/${id}`),
   getDias:() =>api.get('celulas/dias'),
   getGeneros:() =>api.get('celulas/generos'),
-  usuarioLibre:(id:number) => api.get(`celulas/usuarioLibre/${id}`),
+  // Sin ids devuelve las asignaciones de todos los usuarios
+  getAsignaciones:(ids?: number[]) => api.get('celulas/asignaciones', { params: ids ? { ids: ids.join(',') } : {} }),
 };
\ No newline at end of file
@@ -0,0 +1,72 @@
+import api, { baseURL } from './axiosConfig';
+
+// Aviso que manda GET /eventos cuando se confirma un cambio. id es null si cambiaron muchas filas a la vez.
+export interface AvisoCambio {
+  entidad: 'CELULA' | 'USUARIO';
+  id: number | null;
+  operacion: 'ALTA' | 'MODIFICACION' | 'BAJA';
+  version: number;
+}
+
+// Con api (axios) el token de acceso va en el header y se renueva si hace falta.
+const pedirTicket = async (): Promise<string | null> => {
+  try {
+    const res = await api.post<{ ticket: string }>('/eventos/ticket');
+    return res.data.ticket;
+  } catch {
+    return null;
+  }
+};
+
+interface Suscripcion {
+  onCambio: (aviso: AvisoCambio) => void;
+  // Se pudieron perder avisos (reconexión o cliente atrasado): hay que volver a pedir los listados
+  onResync: () => void;
+}
+
+// Se conecta a /eventos y se vuelve a conectar sola. El servidor corta la conexión cuando vence el token de acceso,
+// así que cada reconexión pide un ticket nuevo: EventSource no manda headers, y el ticket (de un solo uso y pocos
+// segundos) va como parámetro en lugar del token.
+// Devuelve la función para desuscribirse.
+export const suscribirCambios = ({ onCambio, onResync }: Suscripcion): (() => void) => {
+  let fuente: EventSource | null = null;
+  let reintento: ReturnType<typeof setTimeout> | null = null;
+  let cerrado = false;
+  let conectadoAntes = false;
+  let espera = 1000;
+
+  const conectar = async () => {
+    const ticket = await pedirTicket();
+    if (cerrado) return;
+    if (!ticket) {
+      programarReintento();
+      return;
+    }
+    fuente = new EventSource(`${baseURL}/eventos?ticket=${encodeURIComponent(ticket)}`);
+    fuente.addEventListener('conectado', () => {
+      espera = 1000;
+      if (conectadoAntes) onResync(); // mientras estuvo desconectado pudo cambiar algo
+      conectadoAntes = true;
+    });
+    fuente.addEventListener('cambio', (e) => onCambio(JSON.parse((e as MessageEvent).data)));
+    fuente.addEventListener('resync', () => onResync());
+    fuente.onerror = () => {
+      fuente?.close();
+      programarReintento();
+    };
+  };
+
+  const programarReintento = () => {
+    if (cerrado) return;
+    reintento = setTimeout(conectar, espera);
+    espera = Math.min(espera * 2, 30_000);
+  };
+
+  conectar();
+
+  return () => {
+    cerrado = true;
+    if (reintento) clearTimeout(reintento);
+    fuente?.close();
+  };
+};
@@ -10,6 +10,7 @@ export const usuarioApi = {
   existByEmail: (email:string) => api.get(`/usuarios/existByEmail/${email}`),
   getLideres:() => api.get('/usuarios/lideres'),
   getTimoteos:() => api.get('/usuarios/timoteos'),
+  getDisponibles:(rol: 'LIDER' | 'TIMOTEO') => api.get('/usuarios/disponibles', { params: { rol } }),
   updateClave: (id: number, data: { claveActual: string; nuevaClave: string }) =>
     api.post(`/usuarios/updateClave/${id}`, data)
 };
@@ -236,7 +236,8 @@ export const CelulaPanel: React.FC<Props> = ({ celula, onClose, refreshCelulas }
         >
           {celula.lider.fotoPerfil ? (
             <img
-              src={celula.lider.fotoPerfil}
+              src={celula.lider.fotoPerfilMiniatura || celula.lider.fotoPerfil}
+              onError={(e) => { if (celula.lider.fotoPerfil && e.currentTarget.src !== celula.lider.fotoPerfil) e.currentTarget.src = celula.lider.fotoPerfil; }}
               alt="Foto del líder"
               className="w-16 h-16 rounded-full object-cover border-2 shadow-sm"
               style={{ borderColor: currentColors.primary }}
@@ -279,11 +280,11 @@ export const CelulaPanel: React.FC<Props> = ({ celula, onClose, refreshCelulas }
           ))}
         </div>
 
-        {celula.qrWhatsapp && (
+        {celula.qrUrl && (
           <div className="text-center p-6 rounded-2xl border-2 border-dashed" style={{ borderColor: currentColors.medium }}>
             <p className="text-sm font-medium text-gray-700 mb-3">Escanea para chatear con el ldier</p>
             <div className="inline-block p-3 rounded-2xl" style={{ backgroundColor: currentColors.light }}>
-              <img src={`data:image/png;base64,${celula.qrWhatsapp}`} alt="QR WhatsApp" className="w-32 h-32 mx-auto rounded-lg shadow-sm" />
+              <img src={celula.qrUrl} alt="QR WhatsApp" className="w-32 h-32 mx-auto rounded-lg shadow-sm" />
             </div>
           </div>
         )}
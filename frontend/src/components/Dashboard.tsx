@@ -18,6 +18,7 @@ import { UserIcon } from 'lucide-react';
 import { EditarMisDatosPage } from '../pages/EditarMisDatosPage';
 import { CambiarClavePage } from '../pages/CambiarClavePage';
 import { ProtectedRoute } from './ProtectedRoute';
+import { authApi } from '../api/authApi';
 
 const NAVIGATION: Navigation = [
   { segment: 'dashboard', title: 'Dashboard', icon: <DashboardIcon /> },
@@ -56,6 +57,7 @@ export default function DashboardLayoutAccount() {
       });
     },
     signOut: () => {
+      authApi.logout().catch(() => {}); // Si falla, la sesión igual vence sola
       localStorage.clear();
       setSession(null);
       navigate('/');
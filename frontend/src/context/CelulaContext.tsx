@@ -10,6 +10,7 @@ export interface UsuarioRelacionado {
   clave: string;
   telefono: string | null;
   fotoPerfil: string | null;
+  fotoPerfilMiniatura?: string | null; // avatar reducido generado por el backend
   rol: "LIDER" | "TIMOTEO" | "ADMIN" | "USUARIO"; // podés ajustar según tus roles reales
 }
 
@@ -26,7 +27,7 @@ export interface Celula {
   descripcion: string;
   telefono: string;
   enlaceWhatsapp: string;
-  qrWhatsapp: string;
+  qrUrl: string | null; // imagen PNG servida por GET /celulas/{id}/qr
   lider: UsuarioRelacionado;
   timoteo: UsuarioRelacionado;
 }
@@ -46,6 +47,13 @@ export interface CelulaCreateDTO {
   timoteoId: number;
 }
 
+// Célula a la que está asignado un usuario (GET /celulas/asignaciones, indexado por id de usuario)
+export interface Asignacion {
+  celulaId: number;
+  celulaNombre: string;
+  funcion: "LIDER" | "TIMOTEO";
+}
+
 export interface Dias {
   nombre:string
 }
@@ -65,7 +73,7 @@ interface CelulaContextValue {
   eliminarCelula: (id: number) => Promise<string>; // DELETE /celulas/delete/:id
   getDias:() => Promise<Dias[]>;
   getGeneros:() =>Promise<Generos[]>  
-  usuarioLibre:(id:number) => Promise<string | null>;          
+  getAsignaciones:(ids?: number[]) => Promise<Record<number, Asignacion>>; // GET /celulas/asignaciones
 }
 
 export const CelulaContext = React.createContext<CelulaContextValue | undefined>(undefined);
@@ -160,15 +168,18 @@ export const CelulaProvider: React.FC<UsuarioProviderProps> = ({ children }) =>
     }
   }; 
 
-    const usuarioLibre = async (id: number): Promise<string | null> => {
-      try {
-        const res = await celulaApi.usuarioLibre(id); // Llamamos al endpoint
-        return res.data;
-      } catch (error) {
-        console.error('Error verificar disponibilidad del usuario:', error);
-        return null; // Devolvemos null si hay error;
-      }
-    };
+  // -------------------------------------------------------
+  // 🔹 Obtener a qué célula está asignado cada usuario (una sola llamada para todo el formulario)
+  // -------------------------------------------------------
+  const getAsignaciones = async (ids?: number[]): Promise<Record<number, Asignacion>> => {
+    try {
+      const res = await celulaApi.getAsignaciones(ids);
+      return res.data;
+    } catch (error) {
+      console.error('Error obteniendo asignaciones de usuarios:', error);
+      return {}; // Sin datos, la validación la hace el backend al guardar
+    }
+  };
 
   // -------------------------------------------------------
   // 🚀 Retornamos el Provider
@@ -177,7 +188,7 @@ export const CelulaProvider: React.FC<UsuarioProviderProps> = ({ children }) =>
   // Así, cualquier componente hijo podrá usarlas llamando al Context.
   return (
     <CelulaContext.Provider
-      value={{ getCelulas, getCelulaById, crearCelula, actualizarCelula, eliminarCelula, getGeneros, getDias, usuarioLibre }}
+      value={{ getCelulas, getCelulaById, crearCelula, actualizarCelula, eliminarCelula, getGeneros, getDias, getAsignaciones }}
     >
       {children}
     </CelulaContext.Provider>
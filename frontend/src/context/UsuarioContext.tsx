@@ -14,6 +14,14 @@ export interface Usuario {
   fechaBaja?: Date | null;
 }
 
+// Datos mínimos de un usuario que devuelven /usuarios/lideres, /timoteos y /disponibles (sin clave)
+export interface UsuarioResumen {
+  id: number;
+  nombre: string;
+  apellido: string;
+  email: string;
+}
+
 export interface Rol {
   nombre:string;
 }
@@ -49,8 +57,9 @@ interface UsuarioProviderProps {
 // Este Contexto define QUÉ datos o funciones estarán disponibles para quienes lo consuman (en este caso, solo las funciones que llaman a los endpoints de usuarios).
 interface UsuarioContextValue {
   getUsuarios: () => Promise<Usuario[]>;                              // GET /usuarios
-  getLideres: () => Promise<Usuario[]>;                              // GET /usuarios/lideres
-  getTimoteos: () => Promise<Usuario[]>;                              // GET /usuarios/timoteos
+  getLideres: () => Promise<UsuarioResumen[]>;                              // GET /usuarios/lideres
+  getTimoteos: () => Promise<UsuarioResumen[]>;                              // GET /usuarios/timoteos
+  getDisponibles: (rol: 'LIDER' | 'TIMOTEO') => Promise<UsuarioResumen[]>; // GET /usuarios/disponibles?rol=
   getUsuarioById: (id: number) => Promise<Usuario | null>;             // GET /usuarios/:id
   crearUsuario: (formData: FormData) => Promise<Usuario | null>; // POST /usuarios/create
   actualizarUsuario: (id: number, formData: FormData) => Promise<Usuario | null>;
@@ -89,7 +98,7 @@ export const UsuarioProvider: React.FC<UsuarioProviderProps> = ({ children }) =>
     // -------------------------------------------------------
   // 🔹 Obtener todos los usuarios lideres
   // -------------------------------------------------------
-  const getLideres = async (): Promise<Usuario[]> => {
+  const getLideres = async (): Promise<UsuarioResumen[]> => {
     try {
       const res = await usuarioApi.getLideres(); // Llamamos al endpoint
       return res.data;                       // Devolvemos la lista
@@ -101,7 +110,7 @@ export const UsuarioProvider: React.FC<UsuarioProviderProps> = ({ children }) =>
     // -------------------------------------------------------
   // 🔹 Obtener todos los usuarios timoteos
   // -------------------------------------------------------
-  const getTimoteos = async (): Promise<Usuario[]> => {
+  const getTimoteos = async (): Promise<UsuarioResumen[]> => {
     try {
       const res = await usuarioApi.getTimoteos(); // Llamamos al endpoint
       return res.data;                       // Devolvemos la lista
@@ -110,6 +119,18 @@ export const UsuarioProvider: React.FC<UsuarioProviderProps> = ({ children }) =>
       return []; // Devolvemos un array vacío si hay error
     }
   };
+    // -------------------------------------------------------
+  // 🔹 Obtener los usuarios activos de un rol que no están asignados a ninguna célula
+  // -------------------------------------------------------
+  const getDisponibles = async (rol: 'LIDER' | 'TIMOTEO'): Promise<UsuarioResumen[]> => {
+    try {
+      const res = await usuarioApi.getDisponibles(rol); // Llamamos al endpoint
+      return res.data;                       // Devolvemos la lista
+    } catch (error) {
+      console.error('Error obteniendo usuarios disponibles:', error);
+      return []; // Devolvemos un array vacío si hay error
+    }
+  };
 
     // -------------------------------------------------------
   // 🔹 Verificar si el mail ya exixste en la BD
@@ -209,7 +230,7 @@ export const UsuarioProvider: React.FC<UsuarioProviderProps> = ({ children }) =>
   // Así, cualquier componente hijo podrá usarlas llamando al Context.
   return (
     <UsuarioContext.Provider
-      value={{ getUsuarios, getUsuarioById, crearUsuario, actualizarUsuario, eliminarUsuario, getRoles, existByEmail, getLideres, getTimoteos, updateClave, }}
+      value={{ getUsuarios, getUsuarioById, crearUsuario, actualizarUsuario, eliminarUsuario, getRoles, existByEmail, getLideres, getTimoteos, getDisponibles, updateClave, }}
     >
       {children}
     </UsuarioContext.Provider>
@@ -15,6 +15,7 @@ import RestartAltIcon from '@mui/icons-material/RestartAlt';
 import AddIcon from '@mui/icons-material/Add';
 import { CelulaPanel } from '../components/CelulaPanel';
 import Swal from 'sweetalert2';
+import { suscribirCambios } from '../api/eventosApi';
 
 export const CelulasPage: React.FC = () => {
   const celulaContext = React.useContext(CelulaContext);
@@ -85,6 +86,34 @@ export const CelulasPage: React.FC = () => {
     refreshCelulas();
   }, [refreshCelulas]);
 
+  // Cambios confirmados por otros usuarios (o en otra pestaña), avisados por el backend: se actualiza solo la célula
+  // afectada en lugar de volver a pedir el listado.
+  const celulasRef = React.useRef(celulas);
+  celulasRef.current = celulas;
+  React.useEffect(() => {
+    if (!celulaContext) return;
+    return suscribirCambios({
+      onCambio: async (aviso) => {
+        if (aviso.id === null) {
+          refreshCelulas(); // cambiaron muchas a la vez (alta masiva)
+          return;
+        }
+        const id = aviso.id;
+        if (aviso.entidad === 'USUARIO') {
+          // Solo importa si es líder o timoteo de alguna célula del listado (sus datos se muestran en ella)
+          if (celulasRef.current.some(c => c.lider?.id === id || c.timoteo?.id === id)) refreshCelulas();
+          return;
+        }
+        const celula = aviso.operacion === 'BAJA' ? null : await celulaContext.getCelulaById(id);
+        setCelulas(prev => {
+          const resto = prev.filter(c => c.id !== id);
+          return celula ? [...resto, celula].sort((a, b) => a.id - b.id) : resto;
+        });
+      },
+      onResync: refreshCelulas,
+    });
+  }, [celulaContext, refreshCelulas]);
+
   const handleAddCelula = async (celulaCreateDTO: CelulaCreateDTO) => {
     if (!celulaContext) return;
     try {
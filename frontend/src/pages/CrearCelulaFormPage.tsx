@@ -8,8 +8,8 @@ import FormControl from '@mui/material/FormControl';
 import InputLabel from '@mui/material/InputLabel';
 import Select from '@mui/material/Select';
 import MenuItem from '@mui/material/MenuItem';
-import { CelulaContext, type CelulaCreateDTO, type Dias, type Generos } from "../context/CelulaContext";
-import { UsuarioContext, type Usuario } from '../context/UsuarioContext';
+import { CelulaContext, type Asignacion, type CelulaCreateDTO, type Dias, type Generos } from "../context/CelulaContext";
+import { UsuarioContext, type UsuarioResumen } from '../context/UsuarioContext';
 import { MapaSelector } from '../components/MapaSelector';
 import 'leaflet/dist/leaflet.css';
 import Paper from '@mui/material/Paper';
@@ -26,11 +26,12 @@ export const CrearCelulaFormPage: React.FC<CrearCelulaFormPageProps> = ({ onClos
 
   const [errores, setErrores] = React.useState<string[]>([]);
   const usuarioContext = React.useContext(UsuarioContext);
-  const [lideres, setLideres] = React.useState<Usuario[]>([]);
-  const [timoteos, setTimoteos] = React.useState<Usuario[]>([]);
+  const [lideres, setLideres] = React.useState<UsuarioResumen[]>([]);
+  const [timoteos, setTimoteos] = React.useState<UsuarioResumen[]>([]);
   const celulaContext = React.useContext(CelulaContext);
   const [dias,setDias] = React.useState<Dias[]>([]);
   const [generos,setGeneros] = React.useState<Generos[]>([]);
+  const [asignaciones, setAsignaciones] = React.useState<Record<number, Asignacion>>({});
   const [celula, setCelula] = React.useState<CelulaCreateDTO>({
     nombre: "",
     dia: "",
@@ -46,12 +47,14 @@ export const CrearCelulaFormPage: React.FC<CrearCelulaFormPageProps> = ({ onClos
   });
   
   
-  // Obtiene los lideres y timoteos desde el backend
+  // Obtiene desde el backend los lideres y timoteos activos que todavía no tienen célula
   React.useEffect(() => {
     if (!usuarioContext) return;
     const fetchUsuarios = async () => {
-      const lideres = await usuarioContext.getLideres();
-      const timoteos = await usuarioContext.getTimoteos();
+      const [lideres, timoteos] = await Promise.all([
+        usuarioContext.getDisponibles('LIDER'),
+        usuarioContext.getDisponibles('TIMOTEO'),
+      ]);
       setLideres(lideres);
       setTimoteos(timoteos);
     };
@@ -68,6 +71,8 @@ export const CrearCelulaFormPage: React.FC<CrearCelulaFormPageProps> = ({ onClos
         setGeneros(generos);
     }
     fetchDiasAndGeneros();
+    // Una sola llamada con las asignaciones de todos los usuarios, para validar sin consultar uno por uno
+    celulaContext.getAsignaciones().then(setAsignaciones);
   }, [celulaContext]);
 
     // Actualiza dinámicamente la celula, teniendo en cuenta el cambio del input y su valor actual
@@ -100,12 +105,12 @@ export const CrearCelulaFormPage: React.FC<CrearCelulaFormPageProps> = ({ onClos
   };
 
   // Esta funcion valida que el usuario este disponible para asignar a la celula, en caso contrario añade un mensaje de error para mostrar en el front
-  const validarUsuarioAsignado = async (usuarioId: number | undefined, rol: string, errores: string[]) => {
-    if (!usuarioId || !celulaContext) return;
+  const validarUsuarioAsignado = (usuarioId: number | undefined, rol: string, errores: string[]) => {
+    if (!usuarioId) return;
 
-    const nombreCelula = await celulaContext.usuarioLibre(usuarioId);
-    if (nombreCelula != null) {
-      errores.push(`El ${rol.toLowerCase()} ya se encuentra asignado/a a la célula: ${nombreCelula}`);
+    const asignacion = asignaciones[usuarioId];
+    if (asignacion) {
+      errores.push(`El ${rol.toLowerCase()} ya se encuentra asignado/a a la célula: ${asignacion.celulaNombre}`);
     }
   };
   // Envia el objeto celula listo a CelulaPage.tsx para enviar al backend.
@@ -114,8 +119,8 @@ export const CrearCelulaFormPage: React.FC<CrearCelulaFormPageProps> = ({ onClos
     const erroresValidacion = validarCelula();
     
     // Valida que el lider y el timoteo este disponible para ser asignado a la celula
-    await validarUsuarioAsignado(celula.liderId, "Líder", erroresValidacion);
-    await validarUsuarioAsignado(celula.timoteoId, "Timoteo", erroresValidacion);
+    validarUsuarioAsignado(celula.liderId, "Líder", erroresValidacion);
+    validarUsuarioAsignado(celula.timoteoId, "Timoteo", erroresValidacion);
 
     if (erroresValidacion.length > 0) {
       setErrores(erroresValidacion);
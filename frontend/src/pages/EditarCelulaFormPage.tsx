@@ -8,8 +8,8 @@ import FormControl from '@mui/material/FormControl';
 import InputLabel from '@mui/material/InputLabel';
 import Select from '@mui/material/Select';
 import MenuItem from '@mui/material/MenuItem';
-import { CelulaContext, type CelulaCreateDTO, type Dias, type Celula,  type Generos } from "../context/CelulaContext";
-import { UsuarioContext, type Usuario } from '../context/UsuarioContext';
+import { CelulaContext, type Asignacion, type CelulaCreateDTO, type Dias, type Celula,  type Generos } from "../context/CelulaContext";
+import { UsuarioContext, type UsuarioResumen } from '../context/UsuarioContext';
 import { MapaSelector } from '../components/MapaSelector';
 import 'leaflet/dist/leaflet.css';
 import Paper from '@mui/material/Paper';
@@ -40,22 +40,26 @@ export const EditarCelulaFormPage: React.FC<EditarCelulaFormPageProps> = ({ celu
   const usuarioContext = React.useContext(UsuarioContext);
   const celulaContext = React.useContext(CelulaContext);
 
-  const [lideres, setLideres] = React.useState<Usuario[]>([]);
-  const [timoteos, setTimoteos] = React.useState<Usuario[]>([]);
+  const [lideres, setLideres] = React.useState<UsuarioResumen[]>([]);
+  const [timoteos, setTimoteos] = React.useState<UsuarioResumen[]>([]);
   const [dias,setDias] = React.useState<Dias[]>([]);
   const [generos,setGeneros] = React.useState<Generos[]>([]);
+  const [asignaciones, setAsignaciones] = React.useState<Record<number, Asignacion>>({});
 
-  // Obtener líderes y timoteos
+  // Obtener líderes y timoteos disponibles. Los actuales de la célula ya están asignados (a esta), así que se agregan
+  // a mano para que sigan apareciendo en los selectores.
   React.useEffect(() => {
     if (!usuarioContext) return;
     const fetchUsuarios = async () => {
-      const lideres = await usuarioContext.getLideres();
-      const timoteos = await usuarioContext.getTimoteos();
-      setLideres(lideres);
-      setTimoteos(timoteos);
+      const [lideres, timoteos] = await Promise.all([
+        usuarioContext.getDisponibles('LIDER'),
+        usuarioContext.getDisponibles('TIMOTEO'),
+      ]);
+      setLideres(celulaData.lider ? [celulaData.lider, ...lideres] : lideres);
+      setTimoteos(celulaData.timoteo ? [celulaData.timoteo, ...timoteos] : timoteos);
     };
     fetchUsuarios();
-  }, [usuarioContext]);
+  }, [usuarioContext, celulaData]);
 
   // Obtener días y géneros
   React.useEffect(() => {
@@ -67,6 +71,8 @@ export const EditarCelulaFormPage: React.FC<EditarCelulaFormPageProps> = ({ celu
       setGeneros(generos);
     }
     fetchDiasAndGeneros();
+    // Una sola llamada con las asignaciones de todos los usuarios, para validar sin consultar uno por uno
+    celulaContext.getAsignaciones().then(setAsignaciones);
   }, [celulaContext]);
 
   const handleChange = (e: React.ChangeEvent<HTMLInputElement | HTMLTextAreaElement | { name?: string; value: unknown }>) => {
@@ -98,11 +104,11 @@ const handleSelectChange = (e: SelectChangeEvent<string>) => {
     return errores;
   };
 
-  const validarUsuarioAsignado = async (usuarioId: number | undefined, rol: string, errores: string[]) => {
-    if (!usuarioId || !celulaContext) return;
-    const nombreCelula = await celulaContext.usuarioLibre(usuarioId);
-    if (nombreCelula != null && nombreCelula !== celula.nombre) {
-      errores.push(`El ${rol.toLowerCase()} ya se encuentra asignado/a a la célula: ${nombreCelula}`);
+  const validarUsuarioAsignado = (usuarioId: number | undefined, rol: string, errores: string[]) => {
+    if (!usuarioId) return;
+    const asignacion = asignaciones[usuarioId];
+    if (asignacion && asignacion.celulaId !== celulaData.id) {
+      errores.push(`El ${rol.toLowerCase()} ya se encuentra asignado/a a la célula: ${asignacion.celulaNombre}`);
     }
   };
 
@@ -110,11 +116,11 @@ const handleSelectChange = (e: SelectChangeEvent<string>) => {
     const erroresValidacion = validarCelula();
 
    if (celulaData.lider.id !== celula.liderId) {
-    await validarUsuarioAsignado(celula.liderId, "Líder", erroresValidacion);
+    validarUsuarioAsignado(celula.liderId, "Líder", erroresValidacion);
     }
 
     if (celulaData.timoteo?.id !== celula.timoteoId) {
-    await validarUsuarioAsignado(celula.timoteoId, "Timoteo", erroresValidacion);
+    validarUsuarioAsignado(celula.timoteoId, "Timoteo", erroresValidacion);
     }
     
     
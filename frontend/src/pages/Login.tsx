@@ -71,6 +71,7 @@ const Login = () => {
         
         
         localStorage.setItem("token", response.data.token);
+        localStorage.setItem("refreshToken", response.data.refreshToken);
         localStorage.setItem("usuarioId", response.data.id);
         localStorage.setItem("usuarioNombre", response.data.nombre);
         localStorage.setItem("usuarioApellido", response.data.apellido);
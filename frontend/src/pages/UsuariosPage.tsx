@@ -12,9 +12,20 @@ import Swal from 'sweetalert2';
 import { EditarUsuarioFormPage } from './EditarUsuarioFormPage';
 import { TextField } from '@mui/material';
 import { useNavigate } from 'react-router-dom';
+import { suscribirCambios } from '../api/eventosApi';
 
 type UsuarioVisible = Omit<Usuario, 'clave' | 'fotoPerfil'>; // Lo uso para mostrar en la tabla sin datos sensibles
 
+const aUsuarioVisible = (usuario: Usuario) => ({
+  id: usuario.id,
+  nombre: usuario.nombre,
+  apellido: usuario.apellido,
+  email: usuario.email,
+  telefono: usuario.telefono,
+  rol: usuario.rol,
+  fechaBaja: usuario.fechaBaja ? new Date(usuario.fechaBaja).toLocaleDateString("es-AR"): null,
+});
+
 export const UsuariosPage: React.FC = () => {
   const usuarioContext = React.useContext(UsuarioContext);
   const [usuarios, setUsuarios] = React.useState<UsuarioVisible[]>([]);
@@ -51,23 +62,35 @@ React.useEffect(() => {
   if (!usuarioContext) return;
   const data = await usuarioContext.getUsuarios();
 
-  const usuariosMapeados = data.map(usuario => ({
-    id: usuario.id,
-    nombre: usuario.nombre,
-    apellido: usuario.apellido,
-    email: usuario.email,
-    telefono: usuario.telefono,
-    rol: usuario.rol,
-    fechaBaja: usuario.fechaBaja ? new Date(usuario.fechaBaja).toLocaleDateString("es-AR"): null,
-  }));
-
-  setUsuarios(usuariosMapeados);
+  setUsuarios(data.map(aUsuarioVisible));
 }, [usuarioContext]);
   // Refresca / llama al endpoint getUsuarios();
   React.useEffect(() => {
     refreshUsuarios();
   }, [refreshUsuarios]);
 
+  // Cambios confirmados por otros usuarios (o en otra pestaña), avisados por el backend: se actualiza solo la fila
+  // del usuario afectado en lugar de volver a pedir el listado.
+  React.useEffect(() => {
+    if (!usuarioContext) return;
+    return suscribirCambios({
+      onCambio: async (aviso) => {
+        if (aviso.entidad !== 'USUARIO') return;
+        if (aviso.id === null) {
+          refreshUsuarios(); // cambiaron muchos a la vez (alta masiva)
+          return;
+        }
+        const id = aviso.id;
+        const usuario = await usuarioContext.getUsuarioById(id); // las bajas son lógicas: el usuario sigue en la tabla
+        setUsuarios(prev => {
+          const resto = prev.filter(u => u.id !== id);
+          return usuario ? [...resto, aUsuarioVisible(usuario)].sort((a, b) => a.id - b.id) : resto;
+        });
+      },
+      onResync: refreshUsuarios,
+    });
+  }, [usuarioContext, refreshUsuarios]);
+
   // Crear usuario nuevo
   const handleAddUsuario = async (formData: FormData) => {
     if (!usuarioContext) return;